@@ -0,0 +1,74 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.dao.OptimisticLockingFailureException;
+import tn.esprit.spring.dto.CoursePatch;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.services.ICourseServices;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Four clients changing the price of a course, each its own course or all the same one: through the
+ * partial update (column-targeted UPDATE, conflicts retried) and by reading the course and saving it back
+ * whole (merge, every column written, a conflict is a failed write the client has to redo).
+ */
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CourseUpdateBenchmark {
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        @Param({"false", "true"})
+        public boolean contended;
+
+        Long numCourse;
+        float price;
+
+        @Setup(Level.Trial)
+        public void pick(StationSkiState state, ThreadParams thread) {
+            numCourse = state.courseIds.get(contended ? 0 : thread.getThreadIndex());
+        }
+    }
+
+    /* Null when the retries ran out */
+    @Benchmark
+    public Course patch(StationSkiState state, Client client) {
+        try {
+            return state.bean(ICourseServices.class)
+                    .patchCourse(client.numCourse, new CoursePatch(null, null, null, client.price++, null, null));
+        } catch (OptimisticLockingFailureException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Course readAndSaveWhole(StationSkiState state, Client client) {
+        ICourseServices services = state.bean(ICourseServices.class);
+        Course course = services.retrieveCourse(client.numCourse);
+        course.setPrice(client.price++);
+        try {
+            return services.updateCourse(course);
+        } catch (OptimisticLockingFailureException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Books courses over HTTP with more concurrent clients than Tomcat has worker threads, once with the default
+ * thread-per-request executor and once with the {@code virtual-threads} profile.
+ */
+@Fork(1)
+@Threads(400)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HttpBookingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server extends StationSkiState {
+
+        @Param({"platform", "virtual"})
+        public String threadModel;
+
+        String baseUrl() {
+            return "http://localhost:" + bean(Environment.class).getProperty("local.server.port") + "/api";
+        }
+
+        @Override
+        protected WebApplicationType webApplicationType() {
+            return WebApplicationType.SERVLET;
+        }
+
+        @Override
+        protected String[] applicationArguments() {
+            List<String> arguments = new ArrayList<>(Arrays.asList(super.applicationArguments()));
+            arguments.add("--server.port=0");
+            arguments.add("--spring.datasource.hikari.maximum-pool-size=20");
+            if ("virtual".equals(threadModel)) {
+                arguments.add("--spring.profiles.active=virtual-threads");
+            }
+            return arguments.toArray(new String[0]);
+        }
+    }
+
+    @Benchmark
+    public int addRegistrationAndAssignToSkierAndCourse(Server server) throws IOException {
+        long n = server.next();
+        return Http.send("PUT", server.baseUrl() + "/registration/addAndAssignToSkierAndCourse/"
+                        + server.skierFor(n) + "/" + server.courseFor(n), "application/json",
+                ("{\"numWeek\":" + server.weekFor(n) + "}").getBytes(StandardCharsets.UTF_8));
+    }
+}
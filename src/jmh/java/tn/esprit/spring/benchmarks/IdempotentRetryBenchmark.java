@@ -0,0 +1,76 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A client retrying the same booking over HTTP: with an Idempotency-Key the retry is answered from the
+ * stored response, without one it runs the registration lookups again (and is refused as a duplicate).
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IdempotentRetryBenchmark {
+
+    private static final String KEY = "benchmark-retry";
+    private static final byte[] BODY = "{\"numWeek\":1}".getBytes(StandardCharsets.UTF_8);
+
+    @State(Scope.Benchmark)
+    public static class Server extends StationSkiState {
+
+        @Override
+        protected WebApplicationType webApplicationType() {
+            return WebApplicationType.SERVLET;
+        }
+
+        @Override
+        protected String[] applicationArguments() {
+            String[] arguments = super.applicationArguments();
+            String[] withPort = Arrays.copyOf(arguments, arguments.length + 1);
+            withPort[arguments.length] = "--server.port=0";
+            return withPort;
+        }
+    }
+
+    /* The first booking, every benchmark call is a retry of it */
+    @State(Scope.Benchmark)
+    public static class Booking {
+
+        String url;
+
+        @Setup(Level.Trial)
+        public void book(Server server) throws IOException {
+            url = "http://localhost:" + server.bean(Environment.class).getProperty("local.server.port")
+                    + "/api/registration/addAndAssignToSkierAndCourse/" + server.skierFor(0) + "/" + server.courseFor(0);
+            Http.send("PUT", url, "application/json", BODY, "Idempotency-Key", KEY);
+        }
+    }
+
+    @Benchmark
+    public int retryWithKey(Booking booking) throws IOException {
+        return Http.send("PUT", booking.url, "application/json", BODY, "Idempotency-Key", KEY);
+    }
+
+    @Benchmark
+    public int retryWithoutKey(Booking booking) throws IOException {
+        return Http.send("PUT", booking.url, "application/json", BODY);
+    }
+}
@@ -0,0 +1,85 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Instructor;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IInstructorRepository;
+import tn.esprit.spring.services.IInstructorServices;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds one course to an instructor who already teaches {@code taughtCourses} courses, then removes it:
+ * through the targeted link inserts and deletes, and by saving the whole collection like
+ * addInstructorAndAssignToCourse used to. Only the second one should slow down as the collection grows.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InstructorAssignmentBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Senior {
+
+        @Param({"10", "200"})
+        public int taughtCourses;
+
+        Instructor instructor;
+        Set<Course> courses;
+        Course extra;
+
+        @Setup(Level.Trial)
+        public void seed(StationSkiState state) {
+            List<Course> created = new ArrayList<>();
+            for (int i = 0; i <= taughtCourses; i++) {
+                created.add(new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 100f, 1, null, null));
+            }
+            created = state.bean(ICourseRepository.class).saveAll(created);
+            extra = created.remove(created.size() - 1);
+            courses = new HashSet<>(created);
+            instructor = state.bean(IInstructorRepository.class)
+                    .save(new Instructor(null, "senior", "instructor", LocalDate.of(2000, 1, 1), new HashSet<>(courses), null));
+        }
+    }
+
+    @Benchmark
+    public int linkAndUnlink(StationSkiState state, Senior senior) {
+        IInstructorServices services = state.bean(IInstructorServices.class);
+        Set<Long> numCourses = Collections.singleton(senior.extra.getNumCourse());
+        return services.assignCourses(senior.instructor.getNumInstructor(), numCourses)
+                + services.unassignCourses(senior.instructor.getNumInstructor(), numCourses);
+    }
+
+    @Benchmark
+    public Instructor saveWholeCollection(StationSkiState state, Senior senior) {
+        IInstructorRepository repository = state.bean(IInstructorRepository.class);
+        Set<Course> withExtra = new HashSet<>(senior.courses);
+        withExtra.add(senior.extra);
+        senior.instructor.setCourses(withExtra);
+        senior.instructor = repository.save(senior.instructor);
+        senior.instructor.setCourses(new HashSet<>(senior.courses));
+        return senior.instructor = repository.save(senior.instructor);
+    }
+}
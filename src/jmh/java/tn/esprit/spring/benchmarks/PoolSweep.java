@@ -0,0 +1,71 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs {@link PoolSweepBenchmark} (JMH command line options are honoured, e.g. {@code -p poolSize=8,16}) and
+ * writes one line per endpoint, pool size and batch size to target/pool-sweep.csv: throughput in requests
+ * per second, and p50/p99 latency in milliseconds.
+ */
+public final class PoolSweep {
+
+    private PoolSweep() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(PoolSweepBenchmark.class.getName())
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        Map<String, double[]> rows = new TreeMap<>();
+        for (RunResult run : results) {
+            BenchmarkParams params = run.getParams();
+            String endpoint = params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1);
+            String key = String.format("%s,%s,%s", endpoint, params.getParam("poolSize"), params.getParam("batchSize"));
+            double[] row = rows.computeIfAbsent(key, k -> new double[3]);
+            Result<?> result = run.getPrimaryResult();
+            switch (params.getMode()) {
+                case Throughput:
+                    row[0] = result.getScore() * 1000;
+                    break;
+                case SampleTime:
+                    row[1] = result.getStatistics().getPercentile(50);
+                    row[2] = result.getStatistics().getPercentile(99);
+                    break;
+                default:
+                    break;
+            }
+        }
+        write(rows);
+    }
+
+    private static void write(Map<String, double[]> rows) throws IOException {
+        Files.createDirectories(Paths.get("target"));
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(Paths.get("target", "pool-sweep.csv")))) {
+            String header = "endpoint,poolSize,batchSize,requestsPerSecond,p50Millis,p99Millis";
+            csv.println(header);
+            System.out.println(header);
+            for (Map.Entry<String, double[]> row : rows.entrySet()) {
+                String line = String.format("%s,%.0f,%.2f,%.2f", row.getKey(), row.getValue()[0], row.getValue()[1], row.getValue()[2]);
+                csv.println(line);
+                System.out.println(line);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the registration and skier write endpoints over HTTP with a fixed number of clients, for each
+ * combination of Hikari pool size and hibernate JDBC batch size. {@link PoolSweep} runs it and prints one
+ * throughput/latency row per combination.
+ */
+@Fork(1)
+@Threads(32)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PoolSweepBenchmark {
+
+    static final int IMPORT_ROWS = 100;
+
+    @State(Scope.Benchmark)
+    public static class Server extends StationSkiState {
+
+        @Param({"4", "8", "16", "32"})
+        public int poolSize;
+
+        @Param({"1", "50"})
+        public int batchSize;
+
+        String baseUrl() {
+            return "http://localhost:" + bean(Environment.class).getProperty("local.server.port") + "/api";
+        }
+
+        @Override
+        protected WebApplicationType webApplicationType() {
+            return WebApplicationType.SERVLET;
+        }
+
+        @Override
+        protected String[] applicationArguments() {
+            List<String> arguments = new ArrayList<>(Arrays.asList(super.applicationArguments()));
+            arguments.add("--server.port=0");
+            arguments.add("--spring.datasource.hikari.maximum-pool-size=" + poolSize);
+            arguments.add("--spring.datasource.hikari.minimum-idle=" + poolSize);
+            arguments.add("--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+            arguments.add("--ski.excursions.durability=ASYNC");
+            return arguments.toArray(new String[0]);
+        }
+    }
+
+    @Benchmark
+    public int addRegistration(Server server) throws IOException {
+        long n = server.next();
+        return Http.send("PUT", server.baseUrl() + "/registration/addAndAssignToSkierAndCourse/"
+                        + server.skierFor(n) + "/" + server.courseFor(n), "application/json",
+                ("{\"numWeek\":" + server.weekFor(n) + "}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public int addSkier(Server server) throws IOException {
+        long n = server.next();
+        return Http.send("POST", server.baseUrl() + "/skier/add", "application/json", skier(n).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public int importSkiers(Server server) throws IOException {
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < IMPORT_ROWS; i++) {
+            rows.append(importRow(server.next())).append('\n');
+        }
+        return Http.send("POST", server.baseUrl() + "/skier/import", "application/x-ndjson",
+                rows.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String skier(long n) {
+        return "{\"firstName\":\"first-" + n + "\",\"lastName\":\"last-" + n + "\",\"dateOfBirth\":\"1990-01-01\","
+                + "\"city\":\"city-" + n % 50 + "\",\"subscription\":{\"startDate\":\"2024-01-01\",\"price\":300,\"typeSub\":\"ANNUAL\"}}";
+    }
+
+    private static String importRow(long n) {
+        return "{\"firstName\":\"first-" + n + "\",\"lastName\":\"last-" + n + "\",\"dateOfBirth\":\"1990-01-01\","
+                + "\"city\":\"city-" + n % 50 + "\",\"typeSub\":\"ANNUAL\",\"startDate\":\"2024-01-01\",\"price\":300}";
+    }
+}
@@ -0,0 +1,30 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.services.IRegistrationServices;
+
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RegistrationBenchmark {
+
+    @Benchmark
+    public Registration addRegistrationAndAssignToSkierAndCourse(StationSkiState state) {
+        long n = state.next();
+        Registration registration = new Registration();
+        registration.setNumWeek(state.weekFor(n));
+        return state.bean(IRegistrationServices.class).addRegistrationAndAssignToSkierAndCourse(registration,
+                state.skierFor(n), state.courseFor(n));
+    }
+}
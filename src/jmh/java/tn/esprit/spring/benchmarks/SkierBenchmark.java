@@ -0,0 +1,37 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.services.ISkierServices;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SkierBenchmark {
+
+    @Benchmark
+    public Skier addSkier(StationSkiState state) {
+        Random random = ThreadLocalRandom.current();
+        return state.bean(ISkierServices.class).addSkier(StationSkiState.newSkier(random, state.next()));
+    }
+
+    @Benchmark
+    public Skier assignSkierToPiste(StationSkiState state) {
+        Random random = ThreadLocalRandom.current();
+        Long numSkier = state.skierIds.get(random.nextInt(state.skierIds.size()));
+        Long numPiste = state.pisteIds.get(random.nextInt(state.pisteIds.size()));
+        return state.bean(ISkierServices.class).assignSkierToPiste(numSkier, numPiste);
+    }
+}
@@ -0,0 +1,56 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.dto.SkierImportFormat;
+import tn.esprit.spring.dto.SkierImportReport;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.services.ISkierImportServices;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/* Throughput is reported per imported row */
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class SkierImportBenchmark {
+
+    private static final int ROWS = 5_000;
+
+    private byte[] csv;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        StringBuilder content = new StringBuilder("firstName,lastName,dateOfBirth,city,typeSub,startDate,price\n");
+        LocalDate startDate = LocalDate.now();
+        for (int i = 0; i < ROWS; i++) {
+            content.append("first-").append(i).append(",last-").append(i).append(",1990-01-01,city-").append(i % 50)
+                    .append(',').append(TypeSubscription.values()[i % TypeSubscription.values().length])
+                    .append(',').append(startDate).append(',').append(100 + i % 900).append('\n');
+        }
+        csv = content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public SkierImportReport importCsv(StationSkiState state) throws IOException {
+        return state.bean(ISkierImportServices.class).importSkiers(new ByteArrayInputStream(csv), SkierImportFormat.CSV);
+    }
+}
@@ -0,0 +1,73 @@
+package tn.esprit.spring.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes a page of fully loaded Skier graphs, as the /skier endpoints do, without touching the database.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class SkierSerializationBenchmark {
+
+    @Param({"100"})
+    public int skiers;
+
+    @Param({"0", "10", "50"})
+    public int registrationsPerSkier;
+
+    private ObjectMapper objectMapper;
+    private List<Skier> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        Random random = new Random(42);
+        Course course = new Course(1L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 120f, 1, null, null);
+        page = new ArrayList<>();
+        for (int i = 0; i < skiers; i++) {
+            Skier skier = StationSkiState.newSkier(random, i);
+            skier.setNumSkier((long) i);
+            Set<Registration> registrations = new HashSet<>();
+            for (int week = 1; week <= registrationsPerSkier; week++) {
+                registrations.add(new Registration((long) i * 1000 + week, week, null, skier, course));
+            }
+            skier.setRegistrations(registrations);
+            page.add(skier);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeSkierPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,139 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import tn.esprit.spring.GestionStationSkiApplication;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IPisteRepository;
+import tn.esprit.spring.repositories.ISkierRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Boots the application against an in-memory H2 database in MySQL mode and seeds
+ * {@code datasetSize} skiers, with courses and pistes in proportion.
+ */
+@State(Scope.Benchmark)
+public class StationSkiState {
+
+    @Param("1000")
+    public int datasetSize;
+
+    private ConfigurableApplicationContext context;
+
+    List<Long> skierIds;
+    List<Long> courseIds;
+    List<Long> pisteIds;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void boot() {
+        context = new SpringApplicationBuilder(GestionStationSkiApplication.class)
+                .web(webApplicationType())
+                .run(applicationArguments());
+        seed(new Random(42));
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public long next() {
+        return sequence.getAndIncrement();
+    }
+
+    /* Walks every (skier, course) pair before moving to the next week, so bookings are never duplicates */
+    Long skierFor(long n) {
+        return skierIds.get((int) (n % skierIds.size()));
+    }
+
+    Long courseFor(long n) {
+        return courseIds.get((int) (n / skierIds.size() % courseIds.size()));
+    }
+
+    int weekFor(long n) {
+        return (int) (n / ((long) skierIds.size() * courseIds.size())) + 1;
+    }
+
+    protected WebApplicationType webApplicationType() {
+        return WebApplicationType.NONE;
+    }
+
+    protected String[] applicationArguments() {
+        return new String[]{
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--ski.catalog.enabled=false",
+                "--ski.excursions.wal-directory=target/benchmark-wal",
+                "--ski.admission.enabled=false",
+                "--logging.level.root=warn"
+        };
+    }
+
+    private void seed(Random random) {
+        List<Piste> pistes = new ArrayList<>();
+        for (int i = 0; i < Math.max(10, datasetSize / 100); i++) {
+            pistes.add(new Piste(null, "piste-" + i, Color.values()[i % Color.values().length],
+                    500 + random.nextInt(3000), 5 + random.nextInt(40)));
+        }
+        pisteIds = bean(IPisteRepository.class).saveAll(pistes).stream()
+                .map(Piste::getNumPiste).collect(Collectors.toList());
+
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < Math.max(10, datasetSize / 50); i++) {
+            courses.add(new Course(null, 1 + random.nextInt(5), TypeCourse.values()[i % TypeCourse.values().length],
+                    Support.values()[i % Support.values().length], 50f + random.nextInt(200), 1 + random.nextInt(4), null, null));
+        }
+        courseIds = bean(ICourseRepository.class).saveAll(courses).stream()
+                .map(Course::getNumCourse).collect(Collectors.toList());
+
+        List<Skier> skiers = new ArrayList<>();
+        for (int i = 0; i < datasetSize; i++) {
+            skiers.add(newSkier(random, i));
+        }
+        skierIds = bean(ISkierRepository.class).saveAll(skiers).stream()
+                .map(Skier::getNumSkier).collect(Collectors.toList());
+    }
+
+    static Skier newSkier(Random random, long i) {
+        TypeSubscription typeSub = TypeSubscription.values()[(int) (i % TypeSubscription.values().length)];
+        LocalDate startDate = LocalDate.now().minusDays(random.nextInt(400));
+        Subscription subscription = new Subscription(null, startDate, null, 100f + random.nextInt(900), typeSub, null);
+        Skier skier = new Skier();
+        skier.setFirstName("first-" + i);
+        skier.setLastName("last-" + i);
+        skier.setCity("city-" + (i % 50));
+        skier.setDateOfBirth(LocalDate.now().minusYears(6 + random.nextInt(60)).minusDays(random.nextInt(365)));
+        skier.setSubscription(subscription);
+        return skier;
+    }
+}
@@ -0,0 +1,66 @@
+package tn.esprit.spring.aspects;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import tn.esprit.spring.services.AdmissionControl;
+
+import java.util.Collection;
+
+/**
+ * Puts the {@link AdmissionControl} in front of the IRegistrationServices writes. Runs first, so a queued
+ * call holds neither a transaction nor a connection. Clients are told apart by remote address.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class RegistrationAdmissionAspect {
+
+    private static final String LOCAL_CLIENT = "local";
+
+    private final AdmissionControl admissionControl;
+
+    @Around("execution(* tn.esprit.spring.services.IRegistrationServices.add*(..))"
+            + " || execution(* tn.esprit.spring.services.IRegistrationServices.assign*(..))")
+    public Object admit(ProceedingJoinPoint joinPoint) throws Throwable {
+        AdmissionControl.Permit permit = admissionControl.admit(client(), weight(joinPoint.getArgs()));
+        boolean overloaded = false;
+        try {
+            return joinPoint.proceed();
+        } catch (CannotCreateTransactionException | DataAccessResourceFailureException | TransientDataAccessException e) {
+            overloaded = true;
+            throw e;
+        } finally {
+            permit.release(overloaded);
+        }
+    }
+
+    private static String client() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            return ((ServletRequestAttributes) attributes).getRequest().getRemoteAddr();
+        }
+        return LOCAL_CLIENT;
+    }
+
+    /* A bulk call weighs as many tokens as it books registrations */
+    private static int weight(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof Collection) {
+                return ((Collection<?>) arg).size();
+            }
+        }
+        return 1;
+    }
+}
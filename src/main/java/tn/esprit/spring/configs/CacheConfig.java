@@ -0,0 +1,21 @@
+package tn.esprit.spring.configs;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+
+@EnableCaching
+@Configuration
+public class CacheConfig {
+
+    /* One JCache manager for the second-level cache and @Cacheable, instead of two built from ehcache.xml */
+    @Bean
+    public HibernatePropertiesCustomizer jCacheManagerCustomizer(ObjectProvider<CacheManager> cacheManager) {
+        return properties -> cacheManager.ifAvailable(manager -> properties.put(ConfigSettings.CACHE_MANAGER, manager));
+    }
+}
@@ -0,0 +1,69 @@
+package tn.esprit.spring.configs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+import tn.esprit.spring.controllers.CatalogHandler;
+
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Serves the read-only catalog on its own Netty server and event loops, next to the servlet
+ * container that keeps serving every other endpoint (Boot runs one web stack per application). Off unless
+ * {@code ski.catalog.enabled=true}, so tests and local runs don't bind its port.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ski.catalog.enabled", havingValue = "true")
+public class CatalogServerConfig {
+
+    @Bean
+    public RouterFunction<ServerResponse> catalogRoutes(CatalogHandler handler) {
+        return route()
+                .GET("/api/course/all", handler::allCourses)
+                .GET("/api/course/all/page", handler::coursesPage)
+                .GET("/api/course/all/stream", handler::streamCourses)
+                .GET("/api/course/get/{id-course}", handler::course)
+                .GET("/api/piste/all", handler::allPistes)
+                .GET("/api/piste/all/page", handler::pistesPage)
+                .GET("/api/piste/all/stream", handler::streamPistes)
+                .GET("/api/piste/get/{id-piste}", handler::piste)
+                .GET("/api/subscription/get/{id-subscription}", handler::subscription)
+                .GET("/api/subscription/all/{typeSub}", handler::subscriptionsByType)
+                .GET("/api/subscription/all/{date1}/{date2}", handler::subscriptionsByDates)
+                .build();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public LoopResources catalogLoopResources(@Value("${ski.catalog.event-loop-threads:4}") int threads) {
+        return LoopResources.create("catalog-http", threads, true);
+    }
+
+    @Bean(destroyMethod = "disposeNow")
+    public DisposableServer catalogServer(RouterFunction<ServerResponse> catalogRoutes, LoopResources catalogLoopResources,
+                                          ObjectMapper objectMapper, @Value("${ski.catalog.port:8090}") int port) {
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        ReactorHttpHandlerAdapter adapter = new ReactorHttpHandlerAdapter(RouterFunctions.toHttpHandler(catalogRoutes, strategies));
+        return HttpServer.create()
+                .port(port)
+                .runOn(catalogLoopResources)
+                .handle(adapter)
+                .bindNow();
+    }
+}
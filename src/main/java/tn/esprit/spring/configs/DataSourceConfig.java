@@ -0,0 +1,42 @@
+package tn.esprit.spring.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class DataSourceConfig {
+
+    /* Boot's DataSourceAutoConfiguration backs off once the R2DBC ConnectionFactory exists; JPA still needs the JDBC pool */
+    @Primary
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /* Same database and settings, a few connections reserved to DedicatedPoolTableGenerator */
+    @Bean
+    public HikariDataSource idGeneratorDataSource(HikariDataSource dataSource,
+                                                  @Value("${ski.id-generator.pool-size:2}") int poolSize) {
+        HikariDataSource pool = new HikariDataSource();
+        dataSource.copyStateTo(pool);
+        pool.setPoolName("id-generator");
+        pool.setMaximumPoolSize(poolSize);
+        pool.setMinimumIdle(1);
+        return pool;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer idGeneratorDataSourceCustomizer(@Qualifier("idGeneratorDataSource") HikariDataSource pool) {
+        return properties -> properties.put(DedicatedPoolTableGenerator.DATA_SOURCE, pool);
+    }
+}
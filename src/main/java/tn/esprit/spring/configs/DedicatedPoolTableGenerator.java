@@ -0,0 +1,126 @@
+package tn.esprit.spring.configs;
+
+import org.hibernate.MappingException;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import javax.sql.DataSource;
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * Hibernate's table generator, taking its blocks of ids through the data source found under
+ * {@link #DATA_SOURCE} in the hibernate settings. Hibernate's own generator updates the table on a second
+ * connection of the pool the calling transaction already holds one of, so a pool full of inserting
+ * transactions waits on itself until the connection timeout. Without the setting (slice tests) it falls
+ * back to hibernate's behaviour. Values stored in the table and handed out are the same as hibernate's.
+ */
+public class DedicatedPoolTableGenerator extends TableGenerator {
+
+    public static final String DATA_SOURCE = "ski.id-generator.data-source";
+
+    private DataSource dataSource;
+    private boolean storeLastUsedValue;
+    private String selectQuery;
+    private String insertQuery;
+    private String updateQuery;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        super.configure(type, params, serviceRegistry);
+        ConfigurationService configuration = serviceRegistry.getService(ConfigurationService.class);
+        dataSource = (DataSource) configuration.getSettings().get(DATA_SOURCE);
+        storeLastUsedValue = configuration.getSetting(AvailableSettings.TABLE_GENERATOR_STORE_LAST_USED,
+                StandardConverters.BOOLEAN, true);
+        selectQuery = "select " + getValueColumnName() + " from " + getTableName()
+                + " where " + getSegmentColumnName() + " = ? for update";
+        insertQuery = "insert into " + getTableName() + " (" + getSegmentColumnName() + ", " + getValueColumnName()
+                + ") values (?, ?)";
+        updateQuery = "update " + getTableName() + " set " + getValueColumnName() + " = ? where "
+                + getValueColumnName() + " = ? and " + getSegmentColumnName() + " = ?";
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object obj) {
+        if (dataSource == null) {
+            return super.generate(session, obj);
+        }
+        return getOptimizer().generate(new AccessCallback() {
+            @Override
+            public IntegralDataTypeHolder getNextValue() {
+                try {
+                    return nextValue();
+                } catch (SQLException e) {
+                    throw session.getJdbcServices().getSqlExceptionHelper()
+                            .convert(e, "could not get or update next value", selectQuery);
+                }
+            }
+
+            @Override
+            public String getTenantIdentifier() {
+                return session.getTenantIdentifier();
+            }
+        });
+    }
+
+    private IntegralDataTypeHolder nextValue() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                IntegralDataTypeHolder value = IdentifierGeneratorHelper.getIntegralDataTypeHolder(
+                        getIdentifierType().getReturnedClass());
+                int rows;
+                do {
+                    readOrInsert(connection, value);
+                    IntegralDataTypeHolder updated = value.copy();
+                    if (getOptimizer().applyIncrementSizeToSourceValues()) {
+                        updated.add(getIncrementSize());
+                    } else {
+                        updated.increment();
+                    }
+                    try (PreparedStatement update = connection.prepareStatement(updateQuery)) {
+                        updated.bind(update, 1);
+                        value.bind(update, 2);
+                        update.setString(3, getSegmentValue());
+                        rows = update.executeUpdate();
+                    }
+                } while (rows == 0);
+                connection.commit();
+                return storeLastUsedValue ? value.increment() : value;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private void readOrInsert(Connection connection, IntegralDataTypeHolder value) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(selectQuery)) {
+            select.setString(1, getSegmentValue());
+            try (ResultSet row = select.executeQuery()) {
+                if (row.next()) {
+                    value.initialize(row, storeLastUsedValue ? 0 : 1);
+                    return;
+                }
+            }
+        }
+        value.initialize(storeLastUsedValue ? getInitialValue() - 1 : getInitialValue());
+        try (PreparedStatement insert = connection.prepareStatement(insertQuery)) {
+            insert.setString(1, getSegmentValue());
+            value.bind(insert, 2);
+            insert.executeUpdate();
+        }
+    }
+}
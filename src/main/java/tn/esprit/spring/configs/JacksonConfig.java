@@ -0,0 +1,16 @@
+package tn.esprit.spring.configs;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    /* Open-in-view is off: entities returned by write endpoints render unloaded lazy associations as null */
+    @Bean
+    public Module hibernate5Module() {
+        return new Hibernate5Module();
+    }
+}
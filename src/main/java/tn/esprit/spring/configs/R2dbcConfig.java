@@ -0,0 +1,44 @@
+package tn.esprit.spring.configs;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.util.Arrays;
+
+@Configuration
+public class R2dbcConfig {
+
+    /* Subscription.typeSub is mapped by JPA as an ordinal, R2DBC would read and bind enums by name */
+    @Bean
+    public R2dbcCustomConversions r2dbcCustomConversions(ConnectionFactory connectionFactory) {
+        return R2dbcCustomConversions.of(DialectResolver.getDialect(connectionFactory),
+                Arrays.asList(TypeSubscriptionReader.INSTANCE, TypeSubscriptionWriter.INSTANCE));
+    }
+
+    @ReadingConverter
+    enum TypeSubscriptionReader implements Converter<Integer, TypeSubscription> {
+        INSTANCE;
+
+        @Override
+        public TypeSubscription convert(Integer ordinal) {
+            return TypeSubscription.values()[ordinal];
+        }
+    }
+
+    @WritingConverter
+    enum TypeSubscriptionWriter implements Converter<TypeSubscription, Integer> {
+        INSTANCE;
+
+        @Override
+        public Integer convert(TypeSubscription typeSub) {
+            return typeSub.ordinal();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package tn.esprit.spring.configs;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets through one statement in {@code sampleRate} on the SQL logger, and at most {@code maxPerSecond} of
+ * those, once the logger has been switched on (e.g. {@code POST /actuator/loggers/org.hibernate.SQL}).
+ * Level checks and every other logger are left to the normal configuration.
+ */
+public class SqlSamplingTurboFilter extends TurboFilter {
+
+    private String loggerName = "org.hibernate.SQL";
+    private int sampleRate = 100;
+    private int maxPerSecond = 50;
+
+    private final AtomicLong seen = new AtomicLong();
+    private final AtomicLong window = new AtomicLong();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (format == null || !logger.getName().startsWith(loggerName) || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        if (seen.incrementAndGet() % sampleRate != 0) {
+            return FilterReply.DENY;
+        }
+        return admit(System.currentTimeMillis() / 1000) ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    /* window packs the current second in the high bits and the events admitted during it in the low 20 bits */
+    private boolean admit(long second) {
+        while (true) {
+            long current = window.get();
+            long next = (current >>> 20) == second ? current + 1 : (second << 20) | 1;
+            if ((next & 0xFFFFF) > maxPerSecond) {
+                return false;
+            }
+            if (window.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    public void setLoggerName(String loggerName) {
+        this.loggerName = loggerName;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = Math.max(0, Math.min(maxPerSecond, 0xFFFFF));
+    }
+}
@@ -0,0 +1,40 @@
+package tn.esprit.spring.configs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.task.TaskSchedulerCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in mode (profile {@code virtual-threads}) where Tomcat runs each request, and the scheduler each
+ * {@code @Scheduled} job, on its own virtual thread. Request concurrency is then bounded by
+ * {@code server.tomcat.max-connections} and the Hikari pool instead of the Tomcat worker pool.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "ski.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /* Tomcat does not shut down an executor it did not create; Spring calls shutdown() on context close */
+    @Bean
+    public ExecutorService virtualThreadRequestExecutor() {
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory());
+        log.info("Serving requests on virtual threads");
+        return executor;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadRequestExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadRequestExecutor);
+    }
+
+    @Bean
+    public TaskSchedulerCustomizer virtualThreadTaskSchedulerCustomizer() {
+        return taskScheduler -> taskScheduler.setThreadFactory(Thread.ofVirtual().name("scheduling-vt-", 0).factory());
+    }
+}
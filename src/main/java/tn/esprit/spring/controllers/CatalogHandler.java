@@ -0,0 +1,123 @@
+package tn.esprit.spring.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tn.esprit.spring.dto.CourseView;
+import tn.esprit.spring.dto.PisteView;
+import tn.esprit.spring.dto.SubscriptionView;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ICourseViewRepository;
+import tn.esprit.spring.repositories.IPisteViewRepository;
+import tn.esprit.spring.repositories.ISubscriptionViewRepository;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking reads of courses, pistes and subscriptions over R2DBC, routed by CatalogServerConfig.
+ * Writes stay on the JPA controllers. Malformed path variables and query parameters are a 400.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogHandler {
+
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_PREFETCH = 100;
+
+    private final ICourseViewRepository courseViewRepository;
+    private final IPisteViewRepository pisteViewRepository;
+    private final ISubscriptionViewRepository subscriptionViewRepository;
+
+    public Mono<ServerResponse> allCourses(ServerRequest request) {
+        return list(courseViewRepository.findAllByOrderByNumCourseAsc(), CourseView.class);
+    }
+
+    public Mono<ServerResponse> coursesPage(ServerRequest request) {
+        return parsed(() -> list(courseViewRepository.findByNumCourseGreaterThanOrderByNumCourseAsc(after(request), page(request)), CourseView.class));
+    }
+
+    public Mono<ServerResponse> streamCourses(ServerRequest request) {
+        return stream(courseViewRepository.findAllByOrderByNumCourseAsc(), CourseView.class);
+    }
+
+    public Mono<ServerResponse> course(ServerRequest request) {
+        return parsed(() -> single(courseViewRepository.findById(Long.valueOf(request.pathVariable("id-course")))));
+    }
+
+    public Mono<ServerResponse> allPistes(ServerRequest request) {
+        return list(pisteViewRepository.findAllByOrderByNumPisteAsc(), PisteView.class);
+    }
+
+    public Mono<ServerResponse> pistesPage(ServerRequest request) {
+        return parsed(() -> list(pisteViewRepository.findByNumPisteGreaterThanOrderByNumPisteAsc(after(request), page(request)), PisteView.class));
+    }
+
+    public Mono<ServerResponse> streamPistes(ServerRequest request) {
+        return stream(pisteViewRepository.findAllByOrderByNumPisteAsc(), PisteView.class);
+    }
+
+    public Mono<ServerResponse> piste(ServerRequest request) {
+        return parsed(() -> single(pisteViewRepository.findById(Long.valueOf(request.pathVariable("id-piste")))));
+    }
+
+    public Mono<ServerResponse> subscription(ServerRequest request) {
+        return parsed(() -> single(subscriptionViewRepository.findById(Long.valueOf(request.pathVariable("id-subscription")))));
+    }
+
+    public Mono<ServerResponse> subscriptionsByType(ServerRequest request) {
+        return parsed(() -> {
+            TypeSubscription typeSub = TypeSubscription.valueOf(request.pathVariable("typeSub"));
+            return list(subscriptionViewRepository.findByTypeSubOrderByStartDateAsc(typeSub), SubscriptionView.class);
+        });
+    }
+
+    public Mono<ServerResponse> subscriptionsByDates(ServerRequest request) {
+        return parsed(() -> {
+            LocalDate startDate = LocalDate.parse(request.pathVariable("date1"));
+            LocalDate endDate = LocalDate.parse(request.pathVariable("date2"));
+            return list(subscriptionViewRepository.findByStartDateBetween(startDate, endDate), SubscriptionView.class);
+        });
+    }
+
+    private static Long after(ServerRequest request) {
+        return request.queryParam("after").map(Long::valueOf).orElse(0L);
+    }
+
+    private static PageRequest page(ServerRequest request) {
+        int size = request.queryParam("size").map(Integer::parseInt).orElse(100);
+        return PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+    }
+
+    /* Parameters are parsed on the calling thread, before any publisher exists to carry the error */
+    private static Mono<ServerResponse> parsed(Supplier<Mono<ServerResponse>> handler) {
+        try {
+            return handler.get();
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ServerResponse.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(Collections.singletonMap("message", "Malformed request: " + e.getMessage()));
+        }
+    }
+
+    /* Encoded as one JSON array, written as rows arrive */
+    private static <T> Mono<ServerResponse> list(Flux<T> rows, Class<T> type) {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(rows, type);
+    }
+
+    /* One JSON document per line, flushed per row; demand from the connection is passed on to the driver */
+    private static <T> Mono<ServerResponse> stream(Flux<T> rows, Class<T> type) {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).body(rows.limitRate(STREAM_PREFETCH), type);
+    }
+
+    private static <T> Mono<ServerResponse> single(Mono<T> row) {
+        return row.flatMap(view -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(view))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+}
@@ -0,0 +1,36 @@
+package tn.esprit.spring.controllers;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import tn.esprit.spring.services.CourseTypeConflictException;
+import tn.esprit.spring.services.VersionConflictException;
+
+import java.util.Collections;
+import java.util.Map;
+
+/* Stale versions, the client has to read the entity again before changing it, and changes the current state forbids */
+@RestControllerAdvice
+public class ConflictExceptionHandler {
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<Map<String, String>> versionConflict(VersionConflictException e) {
+        return conflict(e.getMessage());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> concurrentUpdate(OptimisticLockingFailureException e) {
+        return conflict("Changed by another request in the meantime, read it again and retry");
+    }
+
+    @ExceptionHandler(CourseTypeConflictException.class)
+    public ResponseEntity<Map<String, String>> courseTypeConflict(CourseTypeConflictException e) {
+        return conflict(e.getMessage());
+    }
+
+    private static ResponseEntity<Map<String, String>> conflict(String message) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Collections.singletonMap("message", message));
+    }
+}
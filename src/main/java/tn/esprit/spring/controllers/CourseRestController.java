@@ -2,13 +2,22 @@ package tn.esprit.spring.controllers;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.dto.CourseAvailability;
+import tn.esprit.spring.dto.CoursePatch;
+import tn.esprit.spring.dto.CourseView;
 import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.entities.TypeCourse;
 import tn.esprit.spring.services.ICourseServices;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Tag(name = "\uD83D\uDCDA Course Management")
 @RestController
@@ -17,6 +26,7 @@ import java.util.List;
 public class CourseRestController {
     
     private final ICourseServices courseServices;
+    private final ObjectMapper objectMapper;
 
     @Operation(description = "Add Course")
     @PostMapping("/add")
@@ -26,8 +36,23 @@ public class CourseRestController {
 
     @Operation(description = "Retrieve all Courses")
     @GetMapping("/all")
-    public List<Course> getAllCourses(){
-        return courseServices.retrieveAllCourses();
+    public List<CourseView> getAllCourses(){
+        return courseServices.retrieveAllCourses().stream()
+                .map(CourseView::of).collect(Collectors.toList());
+    }
+
+    @Operation(description = "Retrieve Courses after a given id (keyset pagination)")
+    @GetMapping("/all/page")
+    public List<CourseView> getCoursesPage(@RequestParam(value = "after", defaultValue = "0") Long after,
+                                        @RequestParam(value = "size", defaultValue = "100") int size){
+        return courseServices.retrieveCoursesAfter(after, size).stream()
+                .map(CourseView::of).collect(Collectors.toList());
+    }
+
+    @Operation(description = "Stream all Courses as NDJSON")
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllCourses(){
+        return NdjsonResponses.stream(objectMapper, courseServices::streamAllCourses, CourseView::of);
     }
 
     @Operation(description = "Update Course ")
@@ -36,10 +61,26 @@ public class CourseRestController {
         return  courseServices.updateCourse(course);
     }
 
+    @Operation(description = "Change some fields of a Course, at a given version if one is sent")
+    @PatchMapping("/{numCourse}")
+    public CourseView patchCourse(@PathVariable("numCourse") Long numCourse, @RequestBody CoursePatch patch){
+        return CourseView.of(courseServices.patchCourse(numCourse, patch));
+    }
+
     @Operation(description = "Retrieve Course by Id")
     @GetMapping("/get/{id-course}")
-    public Course getById(@PathVariable("id-course") Long numCourse){
-        return courseServices.retrieveCourse(numCourse);
+    public CourseView getById(@PathVariable("id-course") Long numCourse){
+        return CourseView.of(courseServices.retrieveCourse(numCourse));
+    }
+
+    @Operation(description = "Retrieve seat availability of collective Courses for a week or a range of weeks")
+    @GetMapping("/availability")
+    public List<CourseAvailability> getAvailability(@RequestParam("fromWeek") int fromWeek,
+                                                    @RequestParam(value = "toWeek", required = false) Integer toWeek,
+                                                    @RequestParam(value = "typeCourse", required = false) TypeCourse typeCourse,
+                                                    @RequestParam(value = "support", required = false) Support support,
+                                                    @RequestParam(value = "onlyAvailable", defaultValue = "false") boolean onlyAvailable){
+        return courseServices.retrieveAvailability(fromWeek, toWeek == null ? fromWeek : toWeek, typeCourse, support, onlyAvailable);
     }
 
 }
@@ -0,0 +1,47 @@
+package tn.esprit.spring.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.dto.ExportFormat;
+import tn.esprit.spring.dto.ExportedFile;
+import tn.esprit.spring.dto.RegistrationExportFilter;
+import tn.esprit.spring.services.IExportServices;
+
+import java.io.IOException;
+
+@Tag(name = "\uD83D\uDCE4 Export")
+@RestController
+@RequestMapping("/export")
+@RequiredArgsConstructor
+public class ExportRestController {
+
+    private static final MediaType APPLICATION_GZIP = MediaType.parseMediaType("application/gzip");
+
+    private final IExportServices exportServices;
+
+    @Operation(description = "Stream Registrations with their Course, Skier and Subscription as gzip-compressed CSV or NDJSON")
+    @GetMapping("/registrations")
+    public ResponseEntity<StreamingResponseBody> exportRegistrations(RegistrationExportFilter filter,
+                                                                     @RequestParam(value = "format", defaultValue = "CSV") ExportFormat format) {
+        StreamingResponseBody body = out -> exportServices.exportRegistrations(filter, format, out);
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_GZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(format.fileName("registrations")).build().toString())
+                .body(body);
+    }
+
+    @Operation(description = "Export Registrations with their Course, Skier and Subscription to a file in the export directory")
+    @PostMapping("/registrations/file")
+    public ExportedFile exportRegistrationsToFile(RegistrationExportFilter filter,
+                                                  @RequestParam(value = "format", defaultValue = "CSV") ExportFormat format) throws IOException {
+        return exportServices.exportRegistrationsToFile(filter, format);
+    }
+}
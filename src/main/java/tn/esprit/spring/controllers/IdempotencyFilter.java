@@ -0,0 +1,213 @@
+package tn.esprit.spring.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import tn.esprit.spring.services.IdempotencyStore;
+import tn.esprit.spring.services.IdempotencyStore.StoredResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Idempotency-Key support on the writes under {@code ski.idempotency.paths}. The first request with a key
+ * runs and, when it succeeds (2xx), its response is kept in the {@link IdempotencyStore} with a SHA-256
+ * fingerprint of the method, URI and body. A retry with the same key and request gets that response back
+ * with an Idempotent-Replayed header, without reaching the controller; the same key on another request is
+ * rejected (422), and while the first request still runs, so is the retry (409). Failed requests release
+ * the key so the client can retry them.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String REPLAYED = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+    private final List<String> paths;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore, ObjectMapper objectMapper,
+                             @Value("${ski.idempotency.paths:/registration/,/skier/}") List<String> paths) {
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
+        this.paths = paths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        HttpMethod method = HttpMethod.resolve(request.getMethod());
+        if (method == null || method == HttpMethod.GET || method == HttpMethod.HEAD
+                || method == HttpMethod.OPTIONS || method == HttpMethod.TRACE
+                || request.getHeader(IDEMPOTENCY_KEY) == null) {
+            return true;
+        }
+        String path = request.getServletPath();
+        return paths.stream().noneMatch(path::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST, IDEMPOTENCY_KEY + " must have 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        FingerprintingRequest fingerprinting = new FingerprintingRequest(request);
+        StoredResponse stored = idempotencyStore.claim(key);
+        if (stored == StoredResponse.IN_PROGRESS) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            reject(response, HttpStatus.CONFLICT, "A request with this " + IDEMPOTENCY_KEY + " is still being processed");
+        } else if (stored != null) {
+            replay(fingerprinting, response, stored);
+        } else {
+            runOnce(key, fingerprinting, response, chain);
+        }
+    }
+
+    private void runOnce(String key, FingerprintingRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper caching = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            chain.doFilter(request, caching);
+            if (HttpStatus.Series.resolve(caching.getStatus()) == HttpStatus.Series.SUCCESSFUL) {
+                idempotencyStore.complete(key, new StoredResponse(request.fingerprint(), caching.getStatus(),
+                        caching.getContentType(), caching.getContentAsByteArray()));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyStore.release(key);
+            }
+            caching.copyBodyToResponse();
+        }
+    }
+
+    private void replay(FingerprintingRequest request, HttpServletResponse response, StoredResponse stored)
+            throws IOException {
+        if (!request.fingerprint().equals(stored.getFingerprint())) {
+            reject(response, HttpStatus.UNPROCESSABLE_ENTITY, IDEMPOTENCY_KEY + " was already used for another request");
+            return;
+        }
+        response.setStatus(stored.getStatus());
+        response.setHeader(REPLAYED, "true");
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        response.setContentLength(stored.getBody().length);
+        response.getOutputStream().write(stored.getBody());
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Collections.singletonMap("message", message));
+    }
+
+    /* Hashes the body as the controller reads it, so a streamed import is not buffered */
+    private static final class FingerprintingRequest extends HttpServletRequestWrapper {
+
+        private final MessageDigest digest;
+        private ServletInputStream inputStream;
+        private String fingerprint;
+
+        FingerprintingRequest(HttpServletRequest request) {
+            super(request);
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            digest.update((request.getMethod() + ' ' + request.getRequestURI() + '?'
+                    + (request.getQueryString() == null ? "" : request.getQueryString()) + '\n')
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new DigestingInputStream(super.getInputStream(), digest);
+            }
+            return inputStream;
+        }
+
+        /* Reads what is left of the body, once the controller is done with it */
+        String fingerprint() throws IOException {
+            if (fingerprint == null) {
+                StreamUtils.drain(getInputStream());
+                StringBuilder hex = new StringBuilder(64);
+                for (byte b : digest.digest()) {
+                    hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+                }
+                fingerprint = hex.toString();
+            }
+            return fingerprint;
+        }
+    }
+
+    private static final class DigestingInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        private final MessageDigest digest;
+
+        DigestingInputStream(ServletInputStream delegate, MessageDigest digest) {
+            this.delegate = delegate;
+            this.digest = digest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                digest.update((byte) b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = delegate.read(buffer, offset, length);
+            if (read > 0) {
+                digest.update(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+    }
+}
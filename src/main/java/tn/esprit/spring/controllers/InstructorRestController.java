@@ -2,12 +2,21 @@ package tn.esprit.spring.controllers;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.dto.CourseAssignment;
+import tn.esprit.spring.dto.InstructorPatch;
+import tn.esprit.spring.dto.InstructorView;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.services.IInstructorServices;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Tag(name = "\uD83D\uDC69\u200D\uD83C\uDFEB Instructor Management")
 @RestController
@@ -16,6 +25,7 @@ import java.util.List;
 public class InstructorRestController {
 
     private final IInstructorServices instructorServices;
+    private final ObjectMapper objectMapper;
 
     @Operation(description = "Add Instructor")
     @PostMapping("/add")
@@ -27,10 +37,43 @@ public class InstructorRestController {
     public Instructor addAndAssignToInstructor(@RequestBody Instructor instructor, @PathVariable("numCourse")Long numCourse){
         return  instructorServices.addInstructorAndAssignToCourse(instructor,numCourse);
     }
+    @Operation(description = "Assign Courses to an Instructor, on top of the courses it already teaches")
+    @PutMapping("/{numInstructor}/courses")
+    public int assignCourses(@PathVariable("numInstructor") Long numInstructor, @RequestBody Set<Long> numCourses){
+        return instructorServices.assignCourses(numInstructor, numCourses);
+    }
+
+    @Operation(description = "Unassign Courses from an Instructor")
+    @DeleteMapping("/{numInstructor}/courses")
+    public int unassignCourses(@PathVariable("numInstructor") Long numInstructor, @RequestParam("numCourse") Set<Long> numCourses){
+        return instructorServices.unassignCourses(numInstructor, numCourses);
+    }
+
+    @Operation(description = "Assign Courses to Instructors in one transaction")
+    @PutMapping("/courses")
+    public int assignCourses(@RequestBody List<CourseAssignment> assignments){
+        return instructorServices.assignCourses(assignments);
+    }
+
     @Operation(description = "Retrieve all Instructors")
     @GetMapping("/all")
-    public List<Instructor> getAllInstructors(){
-        return instructorServices.retrieveAllInstructors();
+    public List<InstructorView> getAllInstructors(){
+        return instructorServices.retrieveAllInstructors().stream()
+                .map(InstructorView::of).collect(Collectors.toList());
+    }
+
+    @Operation(description = "Retrieve Instructors after a given id (keyset pagination)")
+    @GetMapping("/all/page")
+    public List<InstructorView> getInstructorsPage(@RequestParam(value = "after", defaultValue = "0") Long after,
+                                        @RequestParam(value = "size", defaultValue = "100") int size){
+        return instructorServices.retrieveInstructorsAfter(after, size).stream()
+                .map(InstructorView::of).collect(Collectors.toList());
+    }
+
+    @Operation(description = "Stream all Instructors as NDJSON")
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllInstructors(){
+        return NdjsonResponses.stream(objectMapper, instructorServices::streamAllInstructors, InstructorView::of);
     }
 
     @Operation(description = "Update Instructor ")
@@ -39,10 +82,16 @@ public class InstructorRestController {
         return  instructorServices.updateInstructor(Instructor);
     }
 
+    @Operation(description = "Change some fields of an Instructor, at a given version if one is sent")
+    @PatchMapping("/{numInstructor}")
+    public InstructorView patchInstructor(@PathVariable("numInstructor") Long numInstructor, @RequestBody InstructorPatch patch){
+        return InstructorView.of(instructorServices.patchInstructor(numInstructor, patch));
+    }
+
     @Operation(description = "Retrieve Instructor by Id")
     @GetMapping("/get/{id-instructor}")
-    public Instructor getById(@PathVariable("id-instructor") Long numInstructor){
-        return instructorServices.retrieveInstructor(numInstructor);
+    public InstructorView getById(@PathVariable("id-instructor") Long numInstructor){
+        return InstructorView.of(instructorServices.retrieveInstructor(numInstructor));
     }
 
 }
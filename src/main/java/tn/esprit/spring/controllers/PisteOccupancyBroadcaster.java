@@ -0,0 +1,76 @@
+package tn.esprit.spring.controllers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tn.esprit.spring.dto.PisteOccupancy;
+import tn.esprit.spring.services.PisteOccupancyTracker;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes one occupancy snapshot per interval to every subscribed SSE client. Runs on its own thread so a
+ * slow client never holds up the application's scheduled jobs.
+ */
+@Slf4j
+@Component
+public class PisteOccupancyBroadcaster {
+
+    private static final long EMITTER_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private final PisteOccupancyTracker occupancyTracker;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "piste-occupancy-sse");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PisteOccupancyBroadcaster(PisteOccupancyTracker occupancyTracker,
+                                     @Value("${ski.pistes.occupancy.push-interval-ms:1000}") long pushIntervalMillis) {
+        this.occupancyTracker = occupancyTracker;
+        scheduler.scheduleAtFixedRate(this::push, pushIntervalMillis, pushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(error -> emitters.remove(emitter));
+        emitters.add(emitter);
+        scheduler.execute(() -> send(emitter, occupancyTracker.snapshot()));
+        return emitter;
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+    }
+
+    private void push() {
+        if (!emitters.isEmpty()) {
+            PisteOccupancy snapshot = occupancyTracker.snapshot();
+            emitters.forEach(emitter -> send(emitter, snapshot));
+        }
+    }
+
+    private void send(SseEmitter emitter, PisteOccupancy snapshot) {
+        try {
+            emitter.send(SseEmitter.event().name("occupancy").data(snapshot, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping occupancy subscriber: {}", e.getMessage());
+            emitters.remove(emitter);
+        }
+    }
+}
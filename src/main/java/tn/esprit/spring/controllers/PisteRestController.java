@@ -2,10 +2,17 @@ package tn.esprit.spring.controllers;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.dto.PisteOccupancy;
 import tn.esprit.spring.entities.Piste;
 import tn.esprit.spring.services.IPisteServices;
+import tn.esprit.spring.services.PisteOccupancyTracker;
 
 import java.util.List;
 
@@ -16,6 +23,9 @@ import java.util.List;
 public class PisteRestController {
 
     private final IPisteServices pisteServices;
+    private final ObjectMapper objectMapper;
+    private final PisteOccupancyTracker occupancyTracker;
+    private final PisteOccupancyBroadcaster occupancyBroadcaster;
 
     @Operation(description = "Add Piste")
     @PostMapping("/add")
@@ -28,12 +38,37 @@ public class PisteRestController {
         return pisteServices.retrieveAllPistes();
     }
 
+    @Operation(description = "Retrieve Pistes after a given id (keyset pagination)")
+    @GetMapping("/all/page")
+    public List<Piste> getPistesPage(@RequestParam(value = "after", defaultValue = "0") Long after,
+                                        @RequestParam(value = "size", defaultValue = "100") int size){
+        return pisteServices.retrievePistesAfter(after, size);
+    }
+
+    @Operation(description = "Stream all Pistes as NDJSON")
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPistes(){
+        return NdjsonResponses.stream(objectMapper, pisteServices::streamAllPistes);
+    }
+
     @Operation(description = "Retrieve Piste by Id")
     @GetMapping("/get/{id-piste}")
     public Piste getById(@PathVariable("id-piste") Long numPiste){
         return pisteServices.retrievePiste(numPiste);
     }
 
+    @Operation(description = "Skiers assigned over the last minute, per Piste and per Color")
+    @GetMapping("/occupancy")
+    public PisteOccupancy getOccupancy(){
+        return occupancyTracker.snapshot();
+    }
+
+    @Operation(description = "Live Piste occupancy as Server-Sent Events")
+    @GetMapping(value = "/occupancy/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOccupancy(){
+        return occupancyBroadcaster.subscribe();
+    }
+
     @Operation(description = "Delete Piste by Id")
     @DeleteMapping("/delete/{id-piste}")
     public void deleteById(@PathVariable("id-piste") Long numPiste){
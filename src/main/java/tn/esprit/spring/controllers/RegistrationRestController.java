@@ -4,6 +4,8 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import tn.esprit.spring.dto.RegistrationRequest;
+import tn.esprit.spring.dto.RegistrationResult;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.entities.Registration;
 import tn.esprit.spring.entities.Support;
@@ -43,6 +45,13 @@ public class RegistrationRestController {
         return  registrationServices.addRegistrationAndAssignToSkierAndCourse(registration,numSkieur,numCourse);
     }
 
+    @Operation(description = "Add a batch of Registrations, each assigned to a Skier and a Course")
+    @PostMapping("/addAndAssignToSkierAndCourse/bulk")
+    public List<RegistrationResult> addAndAssignToSkiersAndCoursesInBulk(@RequestBody List<RegistrationRequest> requests)
+    {
+        return  registrationServices.addRegistrationsAndAssignToSkiersAndCourses(requests);
+    }
+
     @Operation(description = "Numbers of the weeks when an instructor has given lessons in a given support")
     @GetMapping("/numWeeks/{numInstructor}/{support}")
     public List<Integer> numWeeksCourseOfInstructorBySupport(@PathVariable("numInstructor")Long numInstructor,
@@ -2,13 +2,25 @@ package tn.esprit.spring.controllers;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.dto.SkierImportFormat;
+import tn.esprit.spring.dto.SkierImportReport;
+import tn.esprit.spring.dto.SkierView;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.services.ISkierImportServices;
 import tn.esprit.spring.services.ISkierServices;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Tag(name = "\uD83C\uDFC2 Skier Management")
 @RestController
@@ -17,6 +29,8 @@ import java.util.List;
 public class SkierRestController {
 
     private final ISkierServices skierServices;
+    private final ISkierImportServices skierImportServices;
+    private final ObjectMapper objectMapper;
 
     @Operation(description = "Add Skier")
     @PostMapping("/add")
@@ -24,6 +38,13 @@ public class SkierRestController {
         return  skierServices.addSkier(skier);
     }
 
+    @Operation(description = "Import Skiers with their Subscription from CSV (with a header line) or NDJSON")
+    @PostMapping(value = "/import", consumes = {SkierImportFormat.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public SkierImportReport importSkiers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                         InputStream body) throws IOException {
+        return skierImportServices.importSkiers(body, SkierImportFormat.of(contentType));
+    }
+
     @Operation(description = "Add Skier And Assign To Course")
     @PostMapping("/addAndAssign/{numCourse}")
     public Skier addSkierAndAssignToCourse(@RequestBody Skier skier,
@@ -45,13 +66,14 @@ public class SkierRestController {
     }
     @Operation(description = "retrieve Skiers By Subscription Type")
     @GetMapping("/getSkiersBySubscription")
-    public List<Skier> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription) {
-        return skierServices.retrieveSkiersBySubscriptionType(typeSubscription);
+    public List<SkierView> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription) {
+        return skierServices.retrieveSkiersBySubscriptionType(typeSubscription).stream()
+                .map(SkierView::of).collect(Collectors.toList());
     }
     @Operation(description = "Retrieve Skier by Id")
     @GetMapping("/get/{id-skier}")
-    public Skier getById(@PathVariable("id-skier") Long numSkier){
-        return skierServices.retrieveSkier(numSkier);
+    public SkierView getById(@PathVariable("id-skier") Long numSkier){
+        return SkierView.of(skierServices.retrieveSkier(numSkier));
     }
 
     @Operation(description = "Delete Skier by Id")
@@ -62,8 +84,23 @@ public class SkierRestController {
 
     @Operation(description = "Retrieve all Skiers")
     @GetMapping("/all")
-    public List<Skier> getAllSkiers(){
-        return skierServices.retrieveAllSkiers();
+    public List<SkierView> getAllSkiers(){
+        return skierServices.retrieveAllSkiers().stream()
+                .map(SkierView::of).collect(Collectors.toList());
+    }
+
+    @Operation(description = "Retrieve Skiers after a given id (keyset pagination)")
+    @GetMapping("/all/page")
+    public List<SkierView> getSkiersPage(@RequestParam(value = "after", defaultValue = "0") Long after,
+                                        @RequestParam(value = "size", defaultValue = "100") int size){
+        return skierServices.retrieveSkiersAfter(after, size).stream()
+                .map(SkierView::of).collect(Collectors.toList());
+    }
+
+    @Operation(description = "Stream all Skiers as NDJSON")
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllSkiers(){
+        return NdjsonResponses.stream(objectMapper, skierServices::streamAllSkiers, SkierView::of);
     }
 
 }
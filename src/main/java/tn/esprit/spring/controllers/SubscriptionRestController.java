@@ -4,13 +4,16 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import tn.esprit.spring.dto.ExpiringSubscription;
+import tn.esprit.spring.dto.SubscriptionPatch;
+import tn.esprit.spring.dto.SubscriptionView;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 import tn.esprit.spring.services.ISubscriptionServices;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Set;
+import java.util.stream.Collectors;
 
 @Tag(name = "\uD83D\uDC65 Subscription Management")
 @RestController
@@ -27,25 +30,44 @@ public class SubscriptionRestController {
     }
     @Operation(description = "Retrieve Subscription by Id")
     @GetMapping("/get/{id-subscription}")
-    public Subscription getById(@PathVariable("id-subscription") Long numSubscription){
-        return subscriptionServices.retrieveSubscriptionById(numSubscription);
+    public SubscriptionView getById(@PathVariable("id-subscription") Long numSubscription){
+        return SubscriptionView.of(subscriptionServices.retrieveSubscriptionById(numSubscription));
     }
     
     @Operation(description = "Retrieve Subscriptions by Type")
     @GetMapping("/all/{typeSub}")
-    public Set<Subscription> getSubscriptionsByType(@PathVariable("typeSub")TypeSubscription typeSubscription){
-        return subscriptionServices.getSubscriptionByType(typeSubscription);
+    public List<SubscriptionView> getSubscriptionsByType(@PathVariable("typeSub")TypeSubscription typeSubscription){
+        return subscriptionServices.getSubscriptionByType(typeSubscription).stream()
+                .map(SubscriptionView::of).collect(Collectors.toList());
     }
     @Operation(description = "Update Subscription ")
     @PutMapping("/update")
     public Subscription updateSubscription(@RequestBody Subscription subscription){
         return  subscriptionServices.updateSubscription(subscription);
     }
+    @Operation(description = "Change some fields of a Subscription, at a given version if one is sent")
+    @PatchMapping("/{numSub}")
+    public SubscriptionView patchSubscription(@PathVariable("numSub") Long numSub, @RequestBody SubscriptionPatch patch){
+        return SubscriptionView.of(subscriptionServices.patchSubscription(numSub, patch));
+    }
     @Operation(description = "Retrieve Subscriptions created between two dates")
     @GetMapping("/all/{date1}/{date2}")
-    public List<Subscription> getSubscriptionsByDates(@PathVariable("date1") LocalDate startDate,
+    public List<SubscriptionView> getSubscriptionsByDates(@PathVariable("date1") LocalDate startDate,
                                                       @PathVariable("date2") LocalDate endDate){
-        return subscriptionServices.retrieveSubscriptionsByDates(startDate, endDate);
+        return subscriptionServices.retrieveSubscriptionsByDates(startDate, endDate).stream()
+                .map(SubscriptionView::of).collect(Collectors.toList());
+    }
+
+    @Operation(description = "Retrieve Subscriptions whose last valid day is within the next days, today included")
+    @GetMapping("/expiring")
+    public List<ExpiringSubscription> getSubscriptionsExpiring(@RequestParam(value = "days", defaultValue = "7") int days){
+        return subscriptionServices.retrieveSubscriptionsExpiringWithin(days);
+    }
+
+    @Operation(description = "Retrieve Subscriptions that expired today (valid until yesterday)")
+    @GetMapping("/expired/today")
+    public List<ExpiringSubscription> getSubscriptionsExpiredToday(){
+        return subscriptionServices.retrieveSubscriptionsExpiredToday();
     }
 
 }
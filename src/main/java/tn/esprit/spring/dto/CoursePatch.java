@@ -0,0 +1,31 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+
+/**
+ * Fields of a course to change, null ones are left as they are. With a version, the change only applies
+ * to that version of the course; without one, it applies to the version it reads.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CoursePatch {
+
+    Integer level;
+    TypeCourse typeCourse;
+    Support support;
+    Float price;
+    Integer timeSlot;
+    Long version;
+}
@@ -0,0 +1,41 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Table("course")
+public class CourseView {
+
+    @Id
+    Long numCourse;
+    int level;
+    TypeCourse typeCourse;
+    Support support;
+    Float price;
+    int timeSlot;
+    long version;
+
+    public static CourseView of(Course course) {
+        if (course == null) {
+            return null;
+        }
+        return new CourseView(course.getNumCourse(), course.getLevel(), course.getTypeCourse(), course.getSupport(),
+                course.getPrice(), course.getTimeSlot(), course.getVersion());
+    }
+}
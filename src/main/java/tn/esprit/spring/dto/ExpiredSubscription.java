@@ -0,0 +1,14 @@
+package tn.esprit.spring.dto;
+
+import java.time.LocalDate;
+
+public interface ExpiredSubscription {
+
+    Long getNumSub();
+
+    LocalDate getEndDate();
+
+    String getFirstName();
+
+    String getLastName();
+}
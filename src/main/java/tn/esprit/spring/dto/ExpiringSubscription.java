@@ -0,0 +1,28 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.time.LocalDate;
+
+/* A subscription with its last valid day and the skier holding it, if any */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ExpiringSubscription implements ExpiredSubscription {
+
+    Long numSub;
+    LocalDate endDate;
+    TypeSubscription typeSub;
+    String firstName;
+    String lastName;
+}
@@ -0,0 +1,16 @@
+package tn.esprit.spring.dto;
+
+public enum ExportFormat {
+    CSV("csv"), NDJSON("ndjson");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /* Exports are always gzip-compressed */
+    public String fileName(String name) {
+        return name + "." + extension + ".gz";
+    }
+}
@@ -0,0 +1,26 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDate;
+
+/* Fields of an instructor to change, see CoursePatch */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class InstructorPatch {
+
+    String firstName;
+    String lastName;
+    LocalDate dateOfHire;
+    Long version;
+}
@@ -0,0 +1,48 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Instructor;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Read-side shape of an instructor, built from an Instructor whose courses were fetched by the query.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class InstructorView {
+
+    Long numInstructor;
+    String firstName;
+    String lastName;
+    LocalDate dateOfHire;
+    List<CourseView> courses;
+    long version;
+
+    public static InstructorView of(Instructor instructor) {
+        if (instructor == null) {
+            return null;
+        }
+        List<CourseView> courses = instructor.getCourses() == null ? Collections.emptyList()
+                : instructor.getCourses().stream()
+                        .map(CourseView::of)
+                        .sorted(Comparator.comparing(CourseView::getNumCourse, Comparator.nullsLast(Comparator.naturalOrder())))
+                        .collect(Collectors.toList());
+        return new InstructorView(instructor.getNumInstructor(), instructor.getFirstName(), instructor.getLastName(),
+                instructor.getDateOfHire(), courses, instructor.getVersion());
+    }
+}
@@ -0,0 +1,10 @@
+package tn.esprit.spring.dto;
+
+public interface OccupiedSeat {
+
+    Long getNumCourse();
+
+    int getNumWeek();
+
+    Integer getSeat();
+}
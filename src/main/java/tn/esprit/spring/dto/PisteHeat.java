@@ -0,0 +1,25 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Color;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class PisteHeat {
+
+    Long numPiste;
+    String namePiste;
+    Color color;
+    long skiersPerMinute;
+    long totalSkiers;
+}
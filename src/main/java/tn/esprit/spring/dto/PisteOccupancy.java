@@ -0,0 +1,28 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Color;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/* Skiers assigned over the last minute per piste and per color, as of {@code at} */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class PisteOccupancy {
+
+    Instant at;
+    List<PisteHeat> pistes;
+    Map<Color, Long> skiersPerMinuteByColor;
+}
@@ -0,0 +1,37 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Piste;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Table("piste")
+public class PisteView {
+
+    @Id
+    Long numPiste;
+    String namePiste;
+    Color color;
+    int length;
+    int slope;
+
+    public static PisteView of(Piste piste) {
+        if (piste == null) {
+            return null;
+        }
+        return new PisteView(piste.getNumPiste(), piste.getNamePiste(), piste.getColor(), piste.getLength(), piste.getSlope());
+    }
+}
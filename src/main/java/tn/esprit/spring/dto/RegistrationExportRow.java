@@ -0,0 +1,45 @@
+package tn.esprit.spring.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.time.LocalDate;
+
+/**
+ * One registration joined with its course, skier and the skier's subscription, selected as scalars
+ * so streaming the export never puts entities in the persistence context.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonPropertyOrder({"numRegistration", "numWeek", "numCourse", "typeCourse", "support", "coursePrice",
+        "numSkier", "firstName", "lastName", "numSub", "typeSub", "subscriptionPrice", "startDate", "endDate"})
+public class RegistrationExportRow {
+
+    Long numRegistration;
+    int numWeek;
+    Long numCourse;
+    TypeCourse typeCourse;
+    Support support;
+    Float coursePrice;
+    Long numSkier;
+    String firstName;
+    String lastName;
+    Long numSub;
+    TypeSubscription typeSub;
+    Float subscriptionPrice;
+    LocalDate startDate;
+    LocalDate endDate;
+}
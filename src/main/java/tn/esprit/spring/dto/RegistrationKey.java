@@ -0,0 +1,10 @@
+package tn.esprit.spring.dto;
+
+public interface RegistrationKey {
+
+    Long getNumSkier();
+
+    Long getNumCourse();
+
+    int getNumWeek();
+}
@@ -0,0 +1,5 @@
+package tn.esprit.spring.dto;
+
+public enum RegistrationOutcome {
+    ACCEPTED, FULL, AGE_REJECTED, DUPLICATE, NOT_FOUND
+}
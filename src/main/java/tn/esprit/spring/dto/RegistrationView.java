@@ -0,0 +1,26 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Registration;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class RegistrationView {
+
+    Long numRegistration;
+    int numWeek;
+
+    public static RegistrationView of(Registration registration) {
+        return new RegistrationView(registration.getNumRegistration(), registration.getNumWeek());
+    }
+}
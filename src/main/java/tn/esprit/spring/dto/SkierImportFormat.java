@@ -0,0 +1,13 @@
+package tn.esprit.spring.dto;
+
+import org.springframework.http.MediaType;
+
+public enum SkierImportFormat {
+    CSV, NDJSON;
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    public static SkierImportFormat of(MediaType contentType) {
+        return contentType != null && contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE)) ? CSV : NDJSON;
+    }
+}
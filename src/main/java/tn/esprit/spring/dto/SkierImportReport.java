@@ -0,0 +1,30 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * Outcome of a skier import. Only the first rejected lines are listed in {@code errors};
+ * {@code rejected} counts all of them.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SkierImportReport {
+
+    long imported;
+    long rejected;
+    List<SkierImportError> errors;
+    long elapsedMillis;
+    long rowsPerSecond;
+}
@@ -0,0 +1,33 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.time.LocalDate;
+
+/**
+ * One line of a skier import: the skier and the subscription created with it. The end date is
+ * not part of the input, it follows from {@link TypeSubscription#endDate}.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SkierImportRow {
+
+    String firstName;
+    String lastName;
+    LocalDate dateOfBirth;
+    String city;
+    TypeSubscription typeSub;
+    LocalDate startDate;
+    Float price;
+}
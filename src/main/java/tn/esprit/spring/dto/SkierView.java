@@ -0,0 +1,50 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Skier;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Read-side shape of a skier. Built from a Skier whose subscription and registrations were fetched by the
+ * query, so mapping never triggers a lazy load.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SkierView {
+
+    Long numSkier;
+    String firstName;
+    String lastName;
+    LocalDate dateOfBirth;
+    String city;
+    SubscriptionView subscription;
+    List<RegistrationView> registrations;
+
+    public static SkierView of(Skier skier) {
+        if (skier == null) {
+            return null;
+        }
+        List<RegistrationView> registrations = skier.getRegistrations() == null ? Collections.emptyList()
+                : skier.getRegistrations().stream()
+                        .map(RegistrationView::of)
+                        .sorted(Comparator.comparing(RegistrationView::getNumRegistration, Comparator.nullsLast(Comparator.naturalOrder())))
+                        .collect(Collectors.toList());
+        return new SkierView(skier.getNumSkier(), skier.getFirstName(), skier.getLastName(), skier.getDateOfBirth(),
+                skier.getCity(), SubscriptionView.of(skier.getSubscription()), registrations);
+    }
+}
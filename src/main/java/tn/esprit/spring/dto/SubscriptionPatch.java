@@ -0,0 +1,28 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.time.LocalDate;
+
+/* Fields of a subscription to change, see CoursePatch; a new start date or type without an end date moves it */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SubscriptionPatch {
+
+    LocalDate startDate;
+    LocalDate endDate;
+    Float price;
+    TypeSubscription typeSub;
+    Long version;
+}
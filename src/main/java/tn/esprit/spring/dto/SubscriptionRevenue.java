@@ -0,0 +1,12 @@
+package tn.esprit.spring.dto;
+
+import tn.esprit.spring.entities.TypeSubscription;
+
+public interface SubscriptionRevenue {
+
+    TypeSubscription getTypeSub();
+
+    Double getTotal();
+
+    Long getSubscriptions();
+}
@@ -0,0 +1,41 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Table("subscription")
+public class SubscriptionView {
+
+    @Id
+    Long numSub;
+    LocalDate startDate;
+    LocalDate endDate;
+    Float price;
+    TypeSubscription typeSub;
+    long version;
+
+    public static SubscriptionView of(Subscription subscription) {
+        if (subscription == null) {
+            return null;
+        }
+        return new SubscriptionView(subscription.getNumSub(), subscription.getStartDate(), subscription.getEndDate(),
+                subscription.getPrice(), subscription.getTypeSub(), subscription.getVersion());
+    }
+}
@@ -0,0 +1,47 @@
+package tn.esprit.spring.entities;
+
+import java.io.Serializable;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Registered seats per collective course and week, incremented in the same transaction as each
+ * registration so availability can be read without counting registrations.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+@Entity
+@IdClass(CourseWeek.class)
+@Table(indexes = @Index(name = "idx_course_occupancy_week_type_support", columnList = "numWeek, typeCourse, support"))
+public class CourseOccupancy implements Serializable {
+
+	@Id
+	Long numCourse;
+	@Id
+	int numWeek;
+	@Enumerated(EnumType.STRING)
+	TypeCourse typeCourse;
+	@Enumerated(EnumType.STRING)
+	Support support;
+	int registered;
+	int capacity;
+
+}
@@ -1,11 +1,11 @@
 package tn.esprit.spring.entities;
 
 import java.io.Serializable;
-import java.util.Set;
 
 import javax.persistence.*;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -19,6 +19,8 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Piste implements Serializable {
 
 	@Id
@@ -29,8 +31,4 @@ public class Piste implements Serializable {
 	Color color;
 	int length;
 	int slope;
-
-	@ManyToMany(mappedBy= "pistes")
-	Set<Skier> skiers;
-	
 }
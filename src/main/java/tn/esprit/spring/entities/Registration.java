@@ -3,10 +3,14 @@ package tn.esprit.spring.entities;
 import java.io.Serializable;
 
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AccessLevel;
@@ -23,17 +27,26 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+@Table(uniqueConstraints = {
+		@UniqueConstraint(name = "uk_registration_skier_course_week", columnNames = {"skier_num_skier", "course_num_course", "numWeek"}),
+		@UniqueConstraint(name = "uk_registration_course_week_seat", columnNames = {"course_num_course", "numWeek", "seat"})})
 public class Registration implements Serializable {
 
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(generator="registration_generator")
+	@GenericGenerator(name="registration_generator", strategy="tn.esprit.spring.configs.DedicatedPoolTableGenerator", parameters = {
+			@Parameter(name="table_name", value="id_generator"), @Parameter(name="segment_column_name", value="sequence_name"),
+			@Parameter(name="value_column_name", value="next_val"), @Parameter(name="segment_value", value="registration"),
+			@Parameter(name="increment_size", value="50")})
 	Long numRegistration;
 	int numWeek;
+	@JsonIgnore
+	Integer seat;
 
 	@JsonIgnore
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
     Skier skier;
 	@JsonIgnore
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	Course course;
 }
@@ -6,8 +6,9 @@ import java.util.List;
 import java.util.Set;
 
 import javax.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -26,7 +27,11 @@ import lombok.ToString;
 public class Skier implements Serializable {
 
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(generator="skier_generator")
+	@GenericGenerator(name="skier_generator", strategy="tn.esprit.spring.configs.DedicatedPoolTableGenerator", parameters = {
+			@Parameter(name="table_name", value="id_generator"), @Parameter(name="segment_column_name", value="sequence_name"),
+			@Parameter(name="value_column_name", value="next_val"), @Parameter(name="segment_value", value="skier"),
+			@Parameter(name="increment_size", value="50")})
 	Long numSkier;
 	String firstName;
 	String lastName;
@@ -36,21 +41,6 @@ public class Skier implements Serializable {
 	@OneToOne(cascade = {CascadeType.PERSIST, CascadeType.REMOVE})
 	Subscription subscription;
 
-	@JsonIgnore
-	@ManyToMany
-	@JoinTable(
-			name = "excursion",
-			joinColumns = @JoinColumn(name = "numSkier"),
-			inverseJoinColumns = @JoinColumn(name = "numPiste"))
-	private Set<Piste> pistes;
-
-
 	@OneToMany(mappedBy = "skier")
 	Set<Registration> registrations;
-
-
-
-
-
-
 }
@@ -5,6 +5,10 @@ import java.time.LocalDate;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -19,10 +23,15 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+@DynamicUpdate
 public class Subscription implements Serializable {
 
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(generator="subscription_generator")
+	@GenericGenerator(name="subscription_generator", strategy="tn.esprit.spring.configs.DedicatedPoolTableGenerator", parameters = {
+			@Parameter(name="table_name", value="id_generator"), @Parameter(name="segment_column_name", value="sequence_name"),
+			@Parameter(name="value_column_name", value="next_val"), @Parameter(name="segment_value", value="subscription"),
+			@Parameter(name="increment_size", value="50")})
 	Long numSub;
 	LocalDate startDate;
 	LocalDate endDate;
@@ -30,4 +39,7 @@ public class Subscription implements Serializable {
 //	@Enumerated(EnumType.STRING)
 	TypeSubscription typeSub;
 
+	@Version
+	Long version;
+
 }
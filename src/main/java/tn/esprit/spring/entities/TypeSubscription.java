@@ -1,5 +1,18 @@
 package tn.esprit.spring.entities;
 
+import java.time.LocalDate;
+import java.time.Period;
+
 public enum TypeSubscription {
-	ANNUAL, MONTHLY, SEMESTRIEL
+	ANNUAL(Period.ofYears(1)), MONTHLY(Period.ofMonths(1)), SEMESTRIEL(Period.ofMonths(6));
+
+	private final Period duration;
+
+	TypeSubscription(Period duration) {
+		this.duration = duration;
+	}
+
+	public LocalDate endDate(LocalDate startDate) {
+		return startDate.plus(duration);
+	}
 }
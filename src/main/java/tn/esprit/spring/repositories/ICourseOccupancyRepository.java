@@ -0,0 +1,55 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.entities.CourseOccupancy;
+import tn.esprit.spring.entities.CourseWeek;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+
+/* The native writes only touch course_occupancy, they leave the other second-level cache regions alone */
+public interface ICourseOccupancyRepository extends CrudRepository<CourseOccupancy, CourseWeek> {
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "course_occupancy"))
+    @Query(value = "insert into course_occupancy (num_course, num_week, type_course, support, registered, capacity) " +
+            "values (:numCourse, :numWeek, :typeCourse, :support, :count, :capacity) " +
+            "on duplicate key update registered = registered + :count", nativeQuery = true)
+    int increment(@Param("numCourse") Long numCourse, @Param("numWeek") int numWeek, @Param("typeCourse") String typeCourse,
+                  @Param("support") String support, @Param("count") int count, @Param("capacity") int capacity);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "course_occupancy"))
+    @Query(value = "update course_occupancy set registered = registered - :count " +
+            "where num_course = :numCourse and num_week = :numWeek and registered >= :count", nativeQuery = true)
+    int decrement(@Param("numCourse") Long numCourse, @Param("numWeek") int numWeek, @Param("count") int count);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "course_occupancy"))
+    @Query(value = "update course_occupancy set type_course = :typeCourse, support = :support where num_course = :numCourse",
+            nativeQuery = true)
+    int updateCourse(@Param("numCourse") Long numCourse, @Param("typeCourse") String typeCourse, @Param("support") String support);
+
+    @Query("select o from CourseOccupancy o where o.numWeek between :fromWeek and :toWeek " +
+            "and (:typeCourse is null or o.typeCourse = :typeCourse) and (:support is null or o.support = :support)")
+    List<CourseOccupancy> findByWeeks(@Param("fromWeek") int fromWeek, @Param("toWeek") int toWeek,
+                                      @Param("typeCourse") TypeCourse typeCourse, @Param("support") Support support);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "course_occupancy"))
+    @Query(value = "insert into course_occupancy (num_course, num_week, type_course, support, registered, capacity) " +
+            "select c.num_course, r.num_week, c.type_course, c.support, count(*), :capacity " +
+            "from registration r join course c on c.num_course = r.course_num_course " +
+            "where c.type_course <> 'INDIVIDUAL' " +
+            "group by c.num_course, r.num_week, c.type_course, c.support", nativeQuery = true)
+    int backfill(@Param("capacity") int capacity);
+
+}
@@ -0,0 +1,14 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import tn.esprit.spring.dto.CourseView;
+import reactor.core.publisher.Flux;
+
+public interface ICourseViewRepository extends R2dbcRepository<CourseView, Long> {
+
+    Flux<CourseView> findAllByOrderByNumCourseAsc();
+
+    Flux<CourseView> findByNumCourseGreaterThanOrderByNumCourseAsc(Long numCourse, Pageable pageable);
+
+}
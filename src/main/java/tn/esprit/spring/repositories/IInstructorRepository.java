@@ -1,11 +1,66 @@
 package tn.esprit.spring.repositories;
 
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import tn.esprit.spring.entities.Instructor;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
 
 
 public interface IInstructorRepository extends JpaRepository<Instructor, Long> {
 
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select distinct i from Instructor i left join fetch i.courses order by i.numInstructor")
+    List<Instructor> findAll();
+
+    @Query("select distinct i from Instructor i left join fetch i.courses where i.numInstructor = :numInstructor")
+    Optional<Instructor> findWithCoursesByNumInstructor(@Param("numInstructor") Long numInstructor);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select i.numInstructor from Instructor i join i.courses c where c.numCourse = :numCourse")
+    List<Long> findNumInstructorsByCourse(@Param("numCourse") Long numCourse);
+
+    List<Instructor> findByNumInstructorGreaterThanOrderByNumInstructorAsc(Long numInstructor, Pageable pageable);
+
+    /* Initializes the courses of instructors already loaded in the current persistence context */
+    @Query("select distinct i from Instructor i left join fetch i.courses where i in :instructors")
+    List<Instructor> fetchCourses(@Param("instructors") Collection<Instructor> instructors);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select i from Instructor i order by i.numInstructor")
+    Stream<Instructor> streamAllByOrderByNumInstructorAsc();
+
+    /*
+     * Links the given courses that exist and are not taught yet, by anyone (a course has at most one
+     * instructor). Without a declared query space hibernate clears the whole second-level cache after a
+     * native update; with it, only the cached queries reading instructor_courses. The cached courses of
+     * the instructor are left to the caller to evict.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "instructor_courses"))
+    @Query(value = "insert into instructor_courses (instructor_num_instructor, courses_num_course) " +
+            "select :numInstructor, c.num_course from course c where c.num_course in :numCourses " +
+            "and not exists (select 1 from instructor_courses ic where ic.courses_num_course = c.num_course)", nativeQuery = true)
+    int linkCourses(@Param("numInstructor") Long numInstructor, @Param("numCourses") Collection<Long> numCourses);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "instructor_courses"))
+    @Query(value = "delete from instructor_courses where instructor_num_instructor = :numInstructor " +
+            "and courses_num_course in :numCourses", nativeQuery = true)
+    int unlinkCourses(@Param("numInstructor") Long numInstructor, @Param("numCourses") Collection<Long> numCourses);
+
 }
@@ -0,0 +1,8 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.repository.CrudRepository;
+import tn.esprit.spring.entities.JobCheckpoint;
+
+public interface IJobCheckpointRepository extends CrudRepository<JobCheckpoint, String> {
+
+}
@@ -0,0 +1,14 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import tn.esprit.spring.dto.PisteView;
+import reactor.core.publisher.Flux;
+
+public interface IPisteViewRepository extends R2dbcRepository<PisteView, Long> {
+
+    Flux<PisteView> findAllByOrderByNumPisteAsc();
+
+    Flux<PisteView> findByNumPisteGreaterThanOrderByNumPisteAsc(Long numPiste, Pageable pageable);
+
+}
@@ -1,26 +1,60 @@
 package tn.esprit.spring.repositories;
 
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
 import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.OccupiedSeat;
+import tn.esprit.spring.dto.RegistrationExportRow;
+import tn.esprit.spring.dto.RegistrationKey;
 import tn.esprit.spring.entities.*;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface IRegistrationRepository extends CrudRepository<Registration, Long> {
 
     Integer countByCourseAndNumWeek(Course course, int numWeek);
-    @Query("select reg.numWeek from Registration reg " +
-            "join Instructor ins " +
-            "on reg.course member ins.courses " +
-            "where ins.numInstructor = :idIns and reg.course.support = :support")
+
+    boolean existsByCourse_NumCourse(Long numCourse);
+
+    @Query("select distinct reg.numWeek from Instructor ins " +
+            "join ins.courses c " +
+            "join c.registrations reg " +
+            "where ins.numInstructor = :idIns and c.support = :support " +
+            "order by reg.numWeek")
     List<Integer> numWeeksCourseOfInstructorBySupport(@Param("idIns") Long numInstructor, @Param("support") Support support);
 
     @Query("select count(distinct r) from Registration r " +
             "where r.numWeek = ?1 and r.skier.numSkier = ?2 and r.course.numCourse = ?3")
     Integer countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(int numWeek, Long numSkier, Long numCourse);
 
+    @Query("select r.course.numCourse as numCourse, r.numWeek as numWeek, r.seat as seat from Registration r " +
+            "where r.course.typeCourse <> :excluded")
+    List<OccupiedSeat> findOccupiedSeats(@Param("excluded") TypeCourse excluded);
+
+    @Query("select r.skier.numSkier as numSkier, r.course.numCourse as numCourse, r.numWeek as numWeek from Registration r " +
+            "where r.skier.numSkier in :numSkiers and r.course.numCourse in :numCourses")
+    List<RegistrationKey> findKeysBySkiersAndCourses(@Param("numSkiers") Collection<Long> numSkiers,
+                                                     @Param("numCourses") Collection<Long> numCourses);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select new tn.esprit.spring.dto.RegistrationExportRow(r.numRegistration, r.numWeek, c.numCourse, c.typeCourse, " +
+            "c.support, c.price, s.numSkier, s.firstName, s.lastName, sub.numSub, sub.typeSub, sub.price, sub.startDate, sub.endDate) " +
+            "from Registration r join r.course c join r.skier s left join s.subscription sub " +
+            "where r.numWeek between :fromWeek and :toWeek " +
+            "and (:typeCourse is null or c.typeCourse = :typeCourse) and (:typeSub is null or sub.typeSub = :typeSub) " +
+            "order by r.numRegistration")
+    Stream<RegistrationExportRow> streamForExport(@Param("fromWeek") int fromWeek, @Param("toWeek") int toWeek,
+                                                  @Param("typeCourse") TypeCourse typeCourse,
+                                                  @Param("typeSub") TypeSubscription typeSub);
+
 
 
 
@@ -1,17 +1,55 @@
 package tn.esprit.spring.repositories;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
 
 public interface ISkierRepository extends JpaRepository<Skier, Long> {
-   List<Skier> findBySubscription_TypeSub(TypeSubscription typeSubscription);
+
+   @Override
+   @Query("select distinct s from Skier s left join fetch s.subscription left join fetch s.registrations order by s.numSkier")
+   List<Skier> findAll();
+
+   @Query("select distinct s from Skier s left join fetch s.subscription left join fetch s.registrations where s.numSkier = :numSkier")
+   Optional<Skier> findWithRegistrationsByNumSkier(@Param("numSkier") Long numSkier);
+
+   @Query("select distinct s from Skier s join fetch s.subscription sub left join fetch s.registrations where sub.typeSub = :typeSub")
+   List<Skier> findBySubscription_TypeSub(@Param("typeSub") TypeSubscription typeSubscription);
+
    Skier findBySubscription(Subscription subscription);
 
+   @EntityGraph(attributePaths = "subscription")
+   List<Skier> findByNumSkierGreaterThanOrderByNumSkierAsc(Long numSkier, Pageable pageable);
+
+   /* Initializes the registrations of skiers already loaded in the current persistence context */
+   @Query("select distinct s from Skier s left join fetch s.registrations where s in :skiers")
+   List<Skier> fetchRegistrations(@Param("skiers") Collection<Skier> skiers);
+
+   @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+   @Query("select s from Skier s left join fetch s.subscription order by s.numSkier")
+   Stream<Skier> streamAllByOrderByNumSkierAsc();
+
+   /* The excursion log is only written by ExcursionWriter; a skier's rows go with the skier */
+   @Modifying
+   @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "excursion"))
+   @Query(value = "delete from excursion where num_skier = :numSkier", nativeQuery = true)
+   int deleteExcursions(@Param("numSkier") Long numSkier);
 
 }
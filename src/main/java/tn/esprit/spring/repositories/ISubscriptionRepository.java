@@ -1,9 +1,13 @@
 package tn.esprit.spring.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.ExpiredSubscription;
+import tn.esprit.spring.dto.ExpiringSubscription;
+import tn.esprit.spring.dto.SubscriptionRevenue;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 
@@ -18,12 +22,27 @@ public interface ISubscriptionRepository extends CrudRepository<Subscription, Lo
 
     List<Subscription> getSubscriptionsByStartDateBetween(LocalDate date1, LocalDate date2);
 
-    @Query("select distinct s from Subscription s where s.endDate <= CURRENT_TIME order by s.endDate")
+    @Query("select distinct s from Subscription s where s.endDate <= CURRENT_DATE order by s.endDate")
     List<Subscription> findDistinctOrderByEndDateAsc();
 
+    @Query("select sub.numSub as numSub, sub.endDate as endDate, s.firstName as firstName, s.lastName as lastName " +
+            "from Subscription sub left join Skier s on s.subscription = sub " +
+            "where sub.endDate > :since and sub.endDate <= :until and sub.numSub > :afterNumSub " +
+            "order by sub.numSub")
+    List<ExpiredSubscription> findExpiredSubscriptions(@Param("since") LocalDate since, @Param("until") LocalDate until,
+                                                       @Param("afterNumSub") Long afterNumSub, Pageable pageable);
+
+    @Query("select new tn.esprit.spring.dto.ExpiringSubscription(sub.numSub, sub.endDate, sub.typeSub, s.firstName, s.lastName) " +
+            "from Subscription sub left join Skier s on s.subscription = sub " +
+            "where sub.endDate between :from and :to order by sub.endDate, sub.numSub")
+    List<ExpiringSubscription> findExpiringBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
 
     @Query("select (sum(s.price))/(count(s)) from Subscription s where s.typeSub = ?1")
     Float recurringRevenueByTypeSubEquals(TypeSubscription typeSub);
 
+    @Query("select s.typeSub as typeSub, sum(s.price) as total, count(s) as subscriptions " +
+            "from Subscription s group by s.typeSub")
+    List<SubscriptionRevenue> revenueByTypeSub();
+
 
 }
@@ -0,0 +1,16 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import tn.esprit.spring.dto.SubscriptionView;
+import tn.esprit.spring.entities.TypeSubscription;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+
+public interface ISubscriptionViewRepository extends R2dbcRepository<SubscriptionView, Long> {
+
+    Flux<SubscriptionView> findByTypeSubOrderByStartDateAsc(TypeSubscription typeSub);
+
+    Flux<SubscriptionView> findByStartDateBetween(LocalDate startDate, LocalDate endDate);
+
+}
@@ -0,0 +1,101 @@
+package tn.esprit.spring.services;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the calls in flight with an AIMD limit: each call that completes under the target latency while the
+ * limit is in use raises it by 1/limit (about +1 per round of calls), a slow or failed call cuts it by 10%,
+ * at most once per target latency so one slow round only counts once. Calls over the limit wait in a
+ * bounded FIFO queue for at most the given time.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    enum Outcome {
+        ADMITTED, QUEUE_FULL, TIMED_OUT
+    }
+
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final int queueCapacity;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition released = lock.newCondition();
+    /* Written under lock, volatile for the gauges */
+    private volatile double limit;
+    private volatile int inFlight;
+    private volatile int queued;
+    private long lastDecrease = Long.MIN_VALUE;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetLatencyMillis, int queueCapacity) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.queueCapacity = queueCapacity;
+    }
+
+    Outcome acquire(long maxWaitNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            if (queued == 0 && inFlight < (int) limit) {
+                inFlight++;
+                return Outcome.ADMITTED;
+            }
+            if (queued >= queueCapacity) {
+                return Outcome.QUEUE_FULL;
+            }
+            queued++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return Outcome.TIMED_OUT;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return Outcome.ADMITTED;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(long latencyNanos, boolean overloaded, long now) {
+        lock.lock();
+        try {
+            boolean limitInUse = inFlight >= (int) limit / 2;
+            inFlight--;
+            if (overloaded || latencyNanos > targetLatencyNanos) {
+                if (lastDecrease == Long.MIN_VALUE || now - lastDecrease >= targetLatencyNanos) {
+                    limit = Math.max(minLimit, limit * BACKOFF);
+                    lastDecrease = now;
+                }
+            } else if (limitInUse) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight;
+    }
+
+    int queued() {
+        return queued;
+    }
+}
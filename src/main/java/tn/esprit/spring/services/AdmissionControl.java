@@ -0,0 +1,169 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission in front of the registration writes, cheapest check first: a token bucket per client, a global
+ * token bucket (both rejected with 429 and the time until enough tokens are back), then an adaptive
+ * concurrency limit whose bounded queue rejects with 503 when full or after the maximum wait. A burst beyond
+ * what the database absorbs then waits a bounded time or fails fast, instead of holding request threads
+ * until the connection pool times out.
+ */
+@Component
+public class AdmissionControl {
+
+    enum Outcome {
+        ADMITTED, CLIENT_RATE_LIMITED, GLOBAL_RATE_LIMITED, QUEUE_FULL, QUEUE_TIMEOUT
+    }
+
+    private final boolean enabled;
+    private final double clientRate;
+    private final double clientBurst;
+    private final int maxClients;
+    private final long maxWaitNanos;
+    private final TokenBucket global;
+    private final double globalBurst;
+    private final AdaptiveConcurrencyLimit concurrency;
+    private final LongSupplier nanoTime;
+
+    private final ConcurrentMap<String, TokenBucket> clients = new ConcurrentHashMap<>();
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+
+    @Autowired
+    public AdmissionControl(MeterRegistry meterRegistry,
+                            @Value("${ski.admission.enabled:true}") boolean enabled,
+                            @Value("${ski.admission.client.rate-per-second:20}") double clientRate,
+                            @Value("${ski.admission.client.burst:40}") double clientBurst,
+                            @Value("${ski.admission.client.max-tracked:10000}") int maxClients,
+                            @Value("${ski.admission.global.rate-per-second:500}") double globalRate,
+                            @Value("${ski.admission.global.burst:1000}") double globalBurst,
+                            @Value("${ski.admission.concurrency.initial:8}") int initialLimit,
+                            @Value("${ski.admission.concurrency.min:2}") int minLimit,
+                            @Value("${ski.admission.concurrency.max:64}") int maxLimit,
+                            @Value("${ski.admission.concurrency.target-latency-ms:250}") long targetLatencyMillis,
+                            @Value("${ski.admission.queue.capacity:200}") int queueCapacity,
+                            @Value("${ski.admission.queue.max-wait-ms:1000}") long maxWaitMillis) {
+        this(meterRegistry, enabled, clientRate, clientBurst, maxClients, globalRate, globalBurst,
+                new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, targetLatencyMillis, queueCapacity),
+                maxWaitMillis, System::nanoTime);
+    }
+
+    AdmissionControl(MeterRegistry meterRegistry, boolean enabled, double clientRate, double clientBurst, int maxClients,
+                     double globalRate, double globalBurst, AdaptiveConcurrencyLimit concurrency, long maxWaitMillis,
+                     LongSupplier nanoTime) {
+        this.enabled = enabled;
+        this.clientRate = clientRate;
+        this.clientBurst = clientBurst;
+        this.maxClients = maxClients;
+        this.global = new TokenBucket(globalRate, globalBurst, nanoTime.getAsLong());
+        this.globalBurst = globalBurst;
+        this.concurrency = concurrency;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.nanoTime = nanoTime;
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("ski.admission.requests")
+                    .description("Registration writes by admission outcome")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("ski.admission.concurrency.limit", concurrency, AdaptiveConcurrencyLimit::limit)
+                .description("Registration writes allowed in flight").register(meterRegistry);
+        Gauge.builder("ski.admission.concurrency.in.flight", concurrency, AdaptiveConcurrencyLimit::inFlight)
+                .description("Registration writes in flight").register(meterRegistry);
+        Gauge.builder("ski.admission.queue.size", concurrency, AdaptiveConcurrencyLimit::queued)
+                .description("Registration writes waiting for a slot").register(meterRegistry);
+        Gauge.builder("ski.admission.global.tokens", this, control -> control.global.available(control.nanoTime.getAsLong()))
+                .description("Tokens left in the global bucket").register(meterRegistry);
+        Gauge.builder("ski.admission.clients", clients, Map::size)
+                .description("Clients with a rate limit bucket").register(meterRegistry);
+    }
+
+    /**
+     * Admits a call worth {@code weight} tokens (a bulk call weighs its size, capped at the bursts), or throws
+     * {@link AdmissionRejectedException}. An admitted call must {@link Permit#release} its permit.
+     */
+    public Permit admit(String client, int weight) {
+        if (!enabled) {
+            return Permit.NONE;
+        }
+        long now = nanoTime.getAsLong();
+        double clientTokens = Math.min(Math.max(1, weight), clientBurst);
+        TokenBucket bucket = clientBucket(client, now);
+        if (!bucket.tryTake(clientTokens, now)) {
+            throw reject(Outcome.CLIENT_RATE_LIMITED, HttpStatus.TOO_MANY_REQUESTS, bucket.nanosUntil(clientTokens, now),
+                    "Too many registration requests from " + client);
+        }
+        double globalTokens = Math.min(Math.max(1, weight), globalBurst);
+        if (!global.tryTake(globalTokens, now)) {
+            throw reject(Outcome.GLOBAL_RATE_LIMITED, HttpStatus.TOO_MANY_REQUESTS, global.nanosUntil(globalTokens, now),
+                    "Too many registration requests");
+        }
+        AdaptiveConcurrencyLimit.Outcome outcome;
+        try {
+            outcome = concurrency.acquire(maxWaitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject(Outcome.QUEUE_TIMEOUT, HttpStatus.SERVICE_UNAVAILABLE, maxWaitNanos, "Interrupted while queued");
+        }
+        if (outcome == AdaptiveConcurrencyLimit.Outcome.QUEUE_FULL) {
+            throw reject(Outcome.QUEUE_FULL, HttpStatus.SERVICE_UNAVAILABLE, maxWaitNanos, "Registration queue is full");
+        }
+        if (outcome == AdaptiveConcurrencyLimit.Outcome.TIMED_OUT) {
+            throw reject(Outcome.QUEUE_TIMEOUT, HttpStatus.SERVICE_UNAVAILABLE, maxWaitNanos, "No registration slot within the maximum wait");
+        }
+        outcomes.get(Outcome.ADMITTED).increment();
+        return new Permit(this, nanoTime.getAsLong());
+    }
+
+    private TokenBucket clientBucket(String client, long now) {
+        TokenBucket bucket = clients.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (clients.size() >= maxClients) {
+            // A full bucket is the same as no bucket: forget the clients that went quiet
+            clients.values().removeIf(idle -> idle.isFull(now));
+        }
+        return clients.computeIfAbsent(client, key -> new TokenBucket(clientRate, clientBurst, now));
+    }
+
+    private AdmissionRejectedException reject(Outcome outcome, HttpStatus status, long retryAfterNanos, String message) {
+        outcomes.get(outcome).increment();
+        return new AdmissionRejectedException(status, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999)), message);
+    }
+
+    public static final class Permit {
+
+        static final Permit NONE = new Permit(null, 0);
+
+        private final AdmissionControl control;
+        private final long admittedAt;
+
+        private Permit(AdmissionControl control, long admittedAt) {
+            this.control = control;
+            this.admittedAt = admittedAt;
+        }
+
+        /* overloaded: the call failed because a downstream resource (connection, lock) was exhausted */
+        public void release(boolean overloaded) {
+            if (control != null) {
+                long now = control.nanoTime.getAsLong();
+                control.concurrency.release(now - admittedAt, overloaded, now);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package tn.esprit.spring.services;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/* TOO_MANY_REQUESTS when a rate limit is exceeded, SERVICE_UNAVAILABLE when the service is saturated */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(HttpStatus status, long retryAfterSeconds, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
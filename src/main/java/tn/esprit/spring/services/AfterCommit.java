@@ -0,0 +1,25 @@
+package tn.esprit.spring.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/* Defers work on in-memory state (caches, indexes, seats) until the write it mirrors is committed */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /* Runs right away when there is no transaction to wait for */
+    static void run(Runnable work) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            work.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                work.run();
+            }
+        });
+    }
+}
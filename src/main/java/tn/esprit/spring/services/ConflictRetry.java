@@ -0,0 +1,75 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write of versioned entities in its own transaction, and again when its UPDATE lost
+ * against a concurrent one: at most {@code max-attempts} times, after a random pause of up to
+ * {@code backoff-ms} times the attempt number. Inside a running transaction it only runs once, a retry
+ * would reuse the transaction that failed.
+ */
+@Component
+public class ConflictRetry {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final Counter retried;
+    private final Counter exhausted;
+
+    public ConflictRetry(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                         @Value("${ski.updates.conflict.max-attempts:3}") int maxAttempts,
+                         @Value("${ski.updates.conflict.backoff-ms:5}") long backoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+        this.retried = Counter.builder("ski.updates.conflicts")
+                .description("Versioned updates that lost against a concurrent one")
+                .tag("outcome", "retried")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("ski.updates.conflicts")
+                .description("Versioned updates that lost against a concurrent one")
+                .tag("outcome", "exhausted")
+                .register(meterRegistry);
+    }
+
+    public <T> T run(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    throw e;
+                }
+                retried.increment();
+                pause(attempt, e);
+            }
+        }
+    }
+
+    private void pause(int attempt, OptimisticLockingFailureException conflict) {
+        if (backoffMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMillis * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
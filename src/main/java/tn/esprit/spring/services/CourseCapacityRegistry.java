@@ -0,0 +1,156 @@
+package tn.esprit.spring.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tn.esprit.spring.dto.OccupiedSeat;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Seat occupancy of collective courses per (numCourse, numWeek). Each slot is a bit mask of taken
+ * seats updated with compare-and-set, so admission never needs a count query and two concurrent
+ * bookings can't both take the last seat. The seat number is stored on the Registration, where the
+ * (course, week, seat) unique key guards against other instances booking the same seat.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CourseCapacityRegistry {
+
+    public static final int COLLECTIVE_CAPACITY = 6;
+    public static final int FULL = -1;
+
+    private static final int ALL_SEATS = (1 << COLLECTIVE_CAPACITY) - 1;
+
+    private final ConcurrentMap<Slot, AtomicInteger> slots = new ConcurrentHashMap<>();
+
+    private final IRegistrationRepository registrationRepository;
+
+    @PostConstruct
+    public void warmUp() {
+        List<OccupiedSeat> occupiedSeats = registrationRepository.findOccupiedSeats(TypeCourse.INDIVIDUAL);
+        // seated registrations first, so legacy rows without a seat only fill what is left
+        occupiedSeats.stream().filter(seat -> seat.getSeat() != null)
+                .forEach(seat -> occupy(seat.getNumCourse(), seat.getNumWeek(), seat.getSeat()));
+        occupiedSeats.stream().filter(seat -> seat.getSeat() == null)
+                .forEach(seat -> reserve(seat.getNumCourse(), seat.getNumWeek()));
+        log.info("Capacity registry warmed with {} registrations over {} course weeks", occupiedSeats.size(), slots.size());
+    }
+
+    /**
+     * @return the reserved seat number (1 to {@link #COLLECTIVE_CAPACITY}), or {@link #FULL}
+     */
+    public int reserve(Long numCourse, int numWeek) {
+        AtomicInteger taken = slot(numCourse, numWeek);
+        while (true) {
+            int mask = taken.get();
+            if (mask == ALL_SEATS) {
+                return FULL;
+            }
+            int free = Integer.numberOfTrailingZeros(~mask);
+            if (taken.compareAndSet(mask, mask | (1 << free))) {
+                return free + 1;
+            }
+        }
+    }
+
+    public void release(Long numCourse, int numWeek, int seat) {
+        int bit = 1 << (seat - 1);
+        slot(numCourse, numWeek).getAndUpdate(mask -> mask & ~bit);
+    }
+
+    /**
+     * Gives the seat back if the surrounding transaction rolls back, or immediately when
+     * {@code write} fails outside of a transaction.
+     */
+    public <T> T holdUntilCommit(Long numCourse, int numWeek, int seat, Supplier<T> write) {
+        if (releaseOnRollback(numCourse, numWeek, seat)) {
+            return write.get();
+        }
+        try {
+            return write.get();
+        } catch (RuntimeException e) {
+            release(numCourse, numWeek, seat);
+            throw e;
+        }
+    }
+
+    /**
+     * @return false when there is no transaction to attach to
+     */
+    public boolean releaseOnRollback(Long numCourse, int numWeek, int seat) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    release(numCourse, numWeek, seat);
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Gives the seat back once the surrounding transaction commits, or immediately without one: the
+     * seat stays taken while the registration may still keep it.
+     */
+    public void releaseAfterCommit(Long numCourse, int numWeek, int seat) {
+        AfterCommit.run(() -> release(numCourse, numWeek, seat));
+    }
+
+    public int registered(Long numCourse, int numWeek) {
+        AtomicInteger taken = slots.get(new Slot(numCourse, numWeek));
+        return taken == null ? 0 : Integer.bitCount(taken.get());
+    }
+
+    private void occupy(Long numCourse, int numWeek, int seat) {
+        int bit = 1 << (seat - 1);
+        slot(numCourse, numWeek).getAndUpdate(mask -> mask | bit);
+    }
+
+    private AtomicInteger slot(Long numCourse, int numWeek) {
+        return slots.computeIfAbsent(new Slot(numCourse, numWeek), key -> new AtomicInteger());
+    }
+
+    private static final class Slot {
+
+        private final Long numCourse;
+        private final int numWeek;
+
+        Slot(Long numCourse, int numWeek) {
+            this.numCourse = numCourse;
+            this.numWeek = numWeek;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Slot)) {
+                return false;
+            }
+            Slot slot = (Slot) o;
+            return numWeek == slot.numWeek && Objects.equals(numCourse, slot.numCourse);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(numCourse) + numWeek;
+        }
+    }
+}
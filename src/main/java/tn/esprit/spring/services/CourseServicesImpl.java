@@ -1,31 +1,133 @@
 package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.CourseAvailability;
+import tn.esprit.spring.dto.CoursePatch;
 import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.CourseOccupancy;
+import tn.esprit.spring.entities.CourseWeek;
+import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.ICourseOccupancyRepository;
 import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Slf4j
 @AllArgsConstructor
 @Service
 public class CourseServicesImpl implements  ICourseServices{
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_CLEAR_INTERVAL = 500;
+    private static final int MAX_AVAILABILITY_WEEKS = 53;
+
     private ICourseRepository courseRepository;
+    private ICourseOccupancyRepository occupancyRepository;
+    private IRegistrationRepository registrationRepository;
+    private EntityManager entityManager;
+    private InstructorWeeksCache instructorWeeksCache;
+    private ConflictRetry conflictRetry;
 
     @Override
     public List<Course> retrieveAllCourses() {
         return courseRepository.findAll();
     }
 
+    @Override
+    public List<Course> retrieveCoursesAfter(Long numCourse, int size) {
+        return courseRepository.findByNumCourseGreaterThanOrderByNumCourseAsc(numCourse == null ? 0L : numCourse,
+                PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE))));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAllCourses(Consumer<Course> consumer) {
+        try (Stream<Course> courses = courseRepository.streamAllByOrderByNumCourseAsc()) {
+            Iterator<Course> iterator = courses.iterator();
+            for (int row = 1; iterator.hasNext(); row++) {
+                consumer.accept(iterator.next());
+                if (row % STREAM_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
     @Override
     public Course addCourse(Course course) {
         return courseRepository.save(course);
     }
 
+    /* Without a version the update applies to the stored one, as before courses were versioned */
+    @Transactional
     @Override
     public Course updateCourse(Course course) {
-        return courseRepository.save(course);
+        if (course != null && course.getNumCourse() != null) {
+            Course current = courseRepository.findById(course.getNumCourse()).orElse(null);
+            if (current != null) {
+                checkTypeChange(course.getNumCourse(), current.getTypeCourse(), course.getTypeCourse());
+            }
+            if (course.getVersion() == null) {
+                course.setVersion(current == null ? Long.valueOf(0L) : current.getVersion());
+            }
+        }
+        Course saved = courseRepository.save(course);
+        updateOccupancy(saved);
+        instructorWeeksCache.evictCourse(saved.getNumCourse());
+        return saved;
+    }
+
+    /* Dirty checking writes only the changed columns, in an UPDATE checked against the version read */
+    @Override
+    public Course patchCourse(Long numCourse, CoursePatch patch) {
+        return conflictRetry.run(() -> {
+            Course course = courseRepository.findById(numCourse).orElse(null);
+            if (course == null) {
+                return null;
+            }
+            VersionConflictException.check(Course.class, numCourse, patch.getVersion(), course.getVersion());
+            if (patch.getLevel() != null) {
+                course.setLevel(patch.getLevel());
+            }
+            boolean occupancyChanged = false;
+            if (patch.getTypeCourse() != null && patch.getTypeCourse() != course.getTypeCourse()) {
+                checkTypeChange(numCourse, course.getTypeCourse(), patch.getTypeCourse());
+                course.setTypeCourse(patch.getTypeCourse());
+                occupancyChanged = true;
+            }
+            if (patch.getSupport() != null && patch.getSupport() != course.getSupport()) {
+                course.setSupport(patch.getSupport());
+                instructorWeeksCache.evictCourse(numCourse);
+                occupancyChanged = true;
+            }
+            if (occupancyChanged) {
+                updateOccupancy(course);
+            }
+            if (patch.getPrice() != null) {
+                course.setPrice(patch.getPrice());
+            }
+            if (patch.getTimeSlot() != null) {
+                course.setTimeSlot(patch.getTimeSlot());
+            }
+            return course;
+        });
     }
 
     @Override
@@ -33,5 +135,63 @@ public class CourseServicesImpl implements  ICourseServices{
         return courseRepository.findById(numCourse).orElse(null);
     }
 
+    /* One range query on the occupancy table; courses without a row for a week have no registrations yet */
+    @Override
+    public List<CourseAvailability> retrieveAvailability(int fromWeek, int toWeek, TypeCourse typeCourse, Support support,
+                                                         boolean onlyAvailable) {
+        int lastWeek = Math.min(Math.max(fromWeek, toWeek), fromWeek + MAX_AVAILABILITY_WEEKS - 1);
+        Map<CourseWeek, CourseOccupancy> occupancies = occupancyRepository.findByWeeks(fromWeek, lastWeek, typeCourse, support).stream()
+                .collect(Collectors.toMap(o -> new CourseWeek(o.getNumCourse(), o.getNumWeek()), Function.identity()));
+        List<Course> courses = courseRepository.findAll().stream()
+                .filter(course -> course.getTypeCourse() != TypeCourse.INDIVIDUAL)
+                .filter(course -> typeCourse == null || course.getTypeCourse() == typeCourse)
+                .filter(course -> support == null || course.getSupport() == support)
+                .sorted(Comparator.comparing(Course::getNumCourse))
+                .collect(Collectors.toList());
+
+        List<CourseAvailability> availabilities = new ArrayList<>();
+        for (int week = fromWeek; week <= lastWeek; week++) {
+            for (Course course : courses) {
+                CourseOccupancy occupancy = occupancies.get(new CourseWeek(course.getNumCourse(), week));
+                int registered = occupancy == null ? 0 : occupancy.getRegistered();
+                int capacity = occupancy == null ? CourseCapacityRegistry.COLLECTIVE_CAPACITY : occupancy.getCapacity();
+                int available = Math.max(0, capacity - registered);
+                if (!onlyAvailable || available > 0) {
+                    availabilities.add(new CourseAvailability(course.getNumCourse(), week, course.getTypeCourse(),
+                            course.getSupport(), registered, capacity, available));
+                }
+            }
+        }
+        return availabilities;
+    }
+
+    /* Fills the occupancy table from existing registrations the first time the application starts with it */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillOccupancy() {
+        if (occupancyRepository.count() == 0) {
+            int rows = occupancyRepository.backfill(CourseCapacityRegistry.COLLECTIVE_CAPACITY);
+            log.info("Course occupancy backfilled with {} course weeks", rows);
+        }
+    }
+
+    /*
+     * Seats and occupancy rows only exist for collective courses; between the two collective types they
+     * carry over as they are, so only a change to or from INDIVIDUAL is refused once registrations exist.
+     */
+    private void checkTypeChange(Long numCourse, TypeCourse current, TypeCourse requested) {
+        if ((current == TypeCourse.INDIVIDUAL) != (requested == TypeCourse.INDIVIDUAL)
+                && registrationRepository.existsByCourse_NumCourse(numCourse)) {
+            throw new CourseTypeConflictException(numCourse, current, requested);
+        }
+    }
+
+    /* The occupancy rows keep a copy of the type and support the availability search filters on */
+    private void updateOccupancy(Course course) {
+        occupancyRepository.updateCourse(course.getNumCourse(),
+                course.getTypeCourse() == null ? null : course.getTypeCourse().name(),
+                course.getSupport() == null ? null : course.getSupport().name());
+    }
+
 
 }
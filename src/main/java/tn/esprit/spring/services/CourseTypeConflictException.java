@@ -0,0 +1,11 @@
+package tn.esprit.spring.services;
+
+import tn.esprit.spring.entities.TypeCourse;
+
+/* Only collective courses hold seats: a course with registrations can't switch between individual and collective */
+public class CourseTypeConflictException extends RuntimeException {
+
+    public CourseTypeConflictException(Long numCourse, TypeCourse current, TypeCourse requested) {
+        super("Course " + numCourse + " has registrations, it can't change from " + current + " to " + requested);
+    }
+}
@@ -0,0 +1,113 @@
+package tn.esprit.spring.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead log of the excursions queued in {@link ExcursionWriter}: fixed-size records (skier, piste,
+ * epoch millis) appended to numbered segment files. The writer rotates the segment each time it drains
+ * the queue and deletes it once the drained excursions are committed, so segments found on startup hold
+ * excursions a previous run may not have written. Not thread-safe, callers hold the writer's lock.
+ */
+final class ExcursionWal implements Closeable {
+
+    private static final int RECORD_SIZE = 3 * Long.BYTES;
+    private static final String PREFIX = "excursions-";
+    private static final String SUFFIX = ".wal";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final List<Path> recoveredSegments;
+
+    private long sequence;
+    private Path segment;
+    private FileChannel channel;
+    private long records;
+
+    ExcursionWal(Path directory, boolean fsync) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.fsync = fsync;
+        try (Stream<Path> files = Files.list(directory)) {
+            recoveredSegments = files.filter(file -> file.getFileName().toString().startsWith(PREFIX)
+                            && file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        sequence = recoveredSegments.stream().mapToLong(ExcursionWal::sequenceOf).max().orElse(0);
+        open();
+    }
+
+    /* Segments left by a previous run, oldest first */
+    List<Path> recoveredSegments() {
+        return Collections.unmodifiableList(recoveredSegments);
+    }
+
+    /* A record torn by a crash mid-write is ignored */
+    static List<long[]> read(Path segment) throws IOException {
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(segment));
+        List<long[]> excursions = new ArrayList<>(content.remaining() / RECORD_SIZE);
+        while (content.remaining() >= RECORD_SIZE) {
+            excursions.add(new long[]{content.getLong(), content.getLong(), content.getLong()});
+        }
+        return excursions;
+    }
+
+    void append(long[] excursion) throws IOException {
+        record.clear();
+        record.putLong(excursion[0]).putLong(excursion[1]).putLong(excursion[2]).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        records++;
+    }
+
+    /* Starts a new segment and returns the previous one, or null when it holds nothing */
+    Path rotate() throws IOException {
+        if (records == 0) {
+            return null;
+        }
+        channel.close();
+        Path closed = segment;
+        open();
+        return closed;
+    }
+
+    void delete(Path segment) throws IOException {
+        Files.deleteIfExists(segment);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        if (records == 0) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    private void open() throws IOException {
+        sequence++;
+        segment = directory.resolve(String.format("%s%012d%s", PREFIX, sequence, SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        records = 0;
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
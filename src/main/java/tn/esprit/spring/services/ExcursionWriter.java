@@ -0,0 +1,325 @@
+package tn.esprit.spring.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends (skier, piste, time) excursions to the excursion table from a background thread, in JDBC
+ * batches of up to {@code batch-size} rows at least every {@code flush-interval-ms}. The queue is bounded:
+ * a full queue makes producers wait for the writer up to {@code offer-timeout-ms}, then fails them with a
+ * 503 so a stalled database can't hold every request thread. What an accepted excursion survives depends
+ * on the durability mode:
+ * <ul>
+ *     <li>ASYNC: nothing, queued excursions are lost if the process dies;</li>
+ *     <li>WAL: a process crash, each excursion is appended to a local log before it is queued and the
+ *     log is replayed on startup (at least once); {@code wal-fsync} extends this to a machine crash;</li>
+ *     <li>SYNC: everything, {@link #enqueue} returns once the batch holding the excursion committed and
+ *     throws when that batch could not be written or the database rejected the excursion. Without an
+ *     answer within {@code commit-timeout-ms} it fails with a 503, the excursion may still be written.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ExcursionWriter {
+
+    public enum Durability {
+        ASYNC, WAL, SYNC
+    }
+
+    private static final String INSERT = "insert into excursion (num_skier, num_piste, scanned_at) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+    private final long commitTimeoutNanos;
+    private final Durability durability;
+    private final Path walDirectory;
+    private final boolean walFsync;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<long[]> queue = new ArrayDeque<>();
+    /* Guarded by lock: the drain that will pick up newly queued excursions */
+    private Drain next = new Drain();
+    private boolean flushRequested;
+    private boolean running;
+    private ExcursionWal wal;
+
+    private Thread writer;
+
+    @Autowired
+    public ExcursionWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           @Value("${ski.excursions.queue-capacity:10000}") int capacity,
+                           @Value("${ski.excursions.batch-size:500}") int batchSize,
+                           @Value("${ski.excursions.flush-interval-ms:200}") long flushIntervalMillis,
+                           @Value("${ski.excursions.offer-timeout-ms:1000}") long offerTimeoutMillis,
+                           @Value("${ski.excursions.commit-timeout-ms:5000}") long commitTimeoutMillis,
+                           @Value("${ski.excursions.durability:WAL}") Durability durability,
+                           @Value("${ski.excursions.wal-directory:wal}") String walDirectory,
+                           @Value("${ski.excursions.wal-fsync:false}") boolean walFsync) {
+        this(jdbcTemplate, transactionManager, Clock.systemUTC(), capacity, batchSize, flushIntervalMillis,
+                offerTimeoutMillis, commitTimeoutMillis, durability, Paths.get(walDirectory), walFsync);
+    }
+
+    ExcursionWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, Clock clock,
+                    int capacity, int batchSize, long flushIntervalMillis, long offerTimeoutMillis,
+                    long commitTimeoutMillis, Durability durability, Path walDirectory, boolean walFsync) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+        this.commitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(commitTimeoutMillis);
+        this.durability = durability;
+        this.walDirectory = walDirectory;
+        this.walFsync = walFsync;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (durability == Durability.WAL) {
+            wal = new ExcursionWal(walDirectory, walFsync);
+            for (Path segment : wal.recoveredSegments()) {
+                List<long[]> excursions = ExcursionWal.read(segment);
+                if (write(excursions, new Drain())) {
+                    wal.delete(segment);
+                }
+                log.info("Replayed {} excursions from {}", excursions.size(), segment);
+            }
+        }
+        running = true;
+        writer = new Thread(this::run, "excursion-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void enqueue(Long numSkier, Long numPiste) {
+        long[] excursion = {numSkier, numPiste, clock.millis()};
+        Drain drain;
+        synchronized (lock) {
+            long deadline = System.nanoTime() + offerTimeoutNanos;
+            while (running && queue.size() >= capacity) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw saturated("Excursion queue is full", offerTimeoutNanos);
+                }
+                lock.notifyAll();
+                waitOn(lock, Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+            }
+            if (!running) {
+                throw new IllegalStateException("Excursion writer is stopped");
+            }
+            if (wal != null) {
+                try {
+                    wal.append(excursion);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            queue.add(excursion);
+            if (queue.size() >= batchSize) {
+                lock.notifyAll();
+            }
+            drain = next;
+        }
+        if (durability == Durability.SYNC) {
+            awaitCommitted(drain);
+            drain.check(excursion);
+        }
+    }
+
+    /* Writes everything queued so far and waits for it; rejected excursions are only logged */
+    public void flush() {
+        Drain drain;
+        synchronized (lock) {
+            flushRequested = true;
+            drain = next;
+            lock.notifyAll();
+        }
+        awaitCommitted(drain);
+        drain.check(null);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException, IOException {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        writer.join();
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            List<long[]> batch;
+            Path segment = null;
+            Drain drain;
+            synchronized (lock) {
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                long remaining;
+                while (running && !flushRequested && queue.size() < batchSize
+                        && (remaining = deadline - System.nanoTime()) > 0) {
+                    waitOn(lock, Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+                }
+                if (!running && queue.isEmpty()) {
+                    next.complete();
+                    return;
+                }
+                batch = new ArrayList<>(queue);
+                queue.clear();
+                flushRequested = false;
+                drain = next;
+                next = new Drain();
+                if (wal != null) {
+                    try {
+                        segment = wal.rotate();
+                    } catch (IOException e) {
+                        log.error("Could not rotate the excursion log, its excursions will be replayed on restart", e);
+                    }
+                }
+                lock.notifyAll();
+            }
+            boolean written = write(batch, drain);
+            if (segment != null && written) {
+                try {
+                    wal.delete(segment);
+                } catch (IOException e) {
+                    log.warn("Could not delete excursion log segment {}", segment, e);
+                }
+            }
+            drain.complete();
+        }
+    }
+
+    /**
+     * Writes batch by batch. A batch the database rejected is replayed row by row and the rejected rows are
+     * dropped; any other failure (database unavailable) fails the whole drain at once, without a connection
+     * attempt per row. Both outcomes are recorded on the drain. Returns false when the drain failed.
+     */
+    private boolean write(List<long[]> excursions, Drain drain) {
+        try {
+            for (int from = 0; from < excursions.size(); from += batchSize) {
+                List<long[]> batch = excursions.subList(from, Math.min(from + batchSize, excursions.size()));
+                try {
+                    insert(batch);
+                } catch (DataIntegrityViolationException batchRejected) {
+                    for (long[] excursion : batch) {
+                        try {
+                            insert(Collections.singletonList(excursion));
+                        } catch (DataIntegrityViolationException e) {
+                            log.warn("Dropped excursion of skier {} on piste {}: {}", excursion[0], excursion[1],
+                                    e.getMostSpecificCause().getMessage());
+                            drain.rejected.put(excursion, e);
+                        }
+                    }
+                }
+            }
+        } catch (DataAccessException | TransactionException e) {
+            log.error("Could not write {} excursions", excursions.size(), e);
+            drain.failure = e;
+        }
+        return drain.failure == null;
+    }
+
+    private void insert(List<long[]> excursions) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT, excursions, excursions.size(),
+                (statement, excursion) -> {
+                    statement.setLong(1, excursion[0]);
+                    statement.setLong(2, excursion[1]);
+                    statement.setTimestamp(3, new Timestamp(excursion[2]));
+                }));
+    }
+
+    private void awaitCommitted(Drain drain) {
+        if (!drain.await(commitTimeoutNanos)) {
+            throw saturated("Excursion writer did not commit in time", commitTimeoutNanos);
+        }
+    }
+
+    private static AdmissionRejectedException saturated(String message, long waitedNanos) {
+        return new AdmissionRejectedException(HttpStatus.SERVICE_UNAVAILABLE,
+                Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitedNanos + 999_999_999)), message);
+    }
+
+    /* The excursions taken from the queue at once, and how their write ended */
+    private static final class Drain {
+
+        /* Written by the writer thread before complete(), read by waiters after await() */
+        private RuntimeException failure;
+        private final Map<long[], DataIntegrityViolationException> rejected = new IdentityHashMap<>();
+        private boolean done;
+
+        synchronized void complete() {
+            done = true;
+            notifyAll();
+        }
+
+        /* False when the drain did not complete within the timeout */
+        synchronized boolean await(long timeoutNanos) {
+            long deadline = System.nanoTime() + timeoutNanos;
+            while (!done) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                waitOn(this, Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+            }
+            return true;
+        }
+
+        /* Throws if the drain failed or, given one, if the database rejected this excursion */
+        synchronized void check(long[] excursion) {
+            if (failure != null) {
+                throw new DataAccessResourceFailureException("Excursions were not written", failure);
+            }
+            DataIntegrityViolationException rejection = excursion == null ? null : rejected.get(excursion);
+            if (rejection != null) {
+                throw new DataIntegrityViolationException("Excursion of skier " + excursion[0] + " on piste "
+                        + excursion[1] + " was rejected", rejection);
+            }
+        }
+    }
+
+    private static void waitOn(Object monitor, long timeoutMillis) {
+        try {
+            monitor.wait(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the excursion writer", e);
+        }
+    }
+}
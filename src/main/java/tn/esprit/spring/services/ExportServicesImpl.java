@@ -0,0 +1,105 @@
+package tn.esprit.spring.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.ExportFormat;
+import tn.esprit.spring.dto.ExportedFile;
+import tn.esprit.spring.dto.RegistrationExportFilter;
+import tn.esprit.spring.dto.RegistrationExportRow;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the registrations joined with their course, skier and subscription as gzip-compressed CSV
+ * or NDJSON. Rows come from a forward-only cursor (fetch size 500, useCursorFetch on MySQL) and are
+ * written as they arrive, so memory use does not depend on the number of rows exported.
+ */
+@Slf4j
+@Service
+public class ExportServicesImpl implements IExportServices {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final IRegistrationRepository registrationRepository;
+
+    private final ObjectWriter ndjsonWriter;
+
+    private final ObjectWriter csvWriter;
+
+    private final Path exportDirectory;
+
+    public ExportServicesImpl(IRegistrationRepository registrationRepository, ObjectMapper objectMapper,
+                              @Value("${ski.export.directory:exports}") String exportDirectory) {
+        this.registrationRepository = registrationRepository;
+        this.ndjsonWriter = objectMapper.writerFor(RegistrationExportRow.class)
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        CsvMapper csvMapper = new CsvMapper();
+        csvMapper.registerModule(new JavaTimeModule());
+        csvMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.csvWriter = csvMapper.writerFor(RegistrationExportRow.class)
+                .with(csvMapper.schemaFor(RegistrationExportRow.class).withHeader())
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.exportDirectory = Paths.get(exportDirectory);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public long exportRegistrations(RegistrationExportFilter filter, ExportFormat format, OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+        long rows = 0;
+        try (Stream<RegistrationExportRow> stream = registrationRepository.streamForExport(filter.getFromWeek(),
+                filter.getToWeek(), filter.getTypeCourse(), filter.getTypeSub());
+             SequenceWriter writer = (format == ExportFormat.CSV ? csvWriter : ndjsonWriter).writeValues(gzip)) {
+            Iterator<RegistrationExportRow> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                rows++;
+            }
+        }
+        gzip.finish();
+        gzip.flush();
+        return rows;
+    }
+
+    /* Written under a temporary name and moved into place, so a reader never sees a partial export */
+    @Transactional(readOnly = true)
+    @Override
+    public ExportedFile exportRegistrationsToFile(RegistrationExportFilter filter, ExportFormat format) throws IOException {
+        Files.createDirectories(exportDirectory);
+        Path target = exportDirectory.resolve(format.fileName("registrations-" + LocalDateTime.now().format(FILE_TIMESTAMP)));
+        Path partial = Files.createTempFile(exportDirectory, "registrations-", ".partial");
+        long rows;
+        try {
+            try (OutputStream out = Files.newOutputStream(partial)) {
+                rows = exportRegistrations(filter, format, out);
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        log.info("Exported {} registrations to {}", rows, target);
+        return new ExportedFile(target.toString(), rows);
+    }
+}
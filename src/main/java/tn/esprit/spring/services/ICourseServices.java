@@ -1,19 +1,32 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.CourseAvailability;
+import tn.esprit.spring.dto.CoursePatch;
 import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.entities.TypeCourse;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ICourseServices {
 
     List<Course> retrieveAllCourses();
 
+    List<Course> retrieveCoursesAfter(Long numCourse, int size);
+
+    void streamAllCourses(Consumer<Course> consumer);
+
     Course  addCourse(Course  course);
 
     Course updateCourse(Course course);
 
+    Course patchCourse(Long numCourse, CoursePatch patch);
+
     Course retrieveCourse(Long numCourse);
 
+    List<CourseAvailability> retrieveAvailability(int fromWeek, int toWeek, TypeCourse typeCourse, Support support,
+                                                  boolean onlyAvailable);
+
 
 }
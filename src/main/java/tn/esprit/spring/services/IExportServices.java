@@ -0,0 +1,16 @@
+package tn.esprit.spring.services;
+
+import tn.esprit.spring.dto.ExportFormat;
+import tn.esprit.spring.dto.ExportedFile;
+import tn.esprit.spring.dto.RegistrationExportFilter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface IExportServices {
+
+    long exportRegistrations(RegistrationExportFilter filter, ExportFormat format, OutputStream out) throws IOException;
+
+    ExportedFile exportRegistrationsToFile(RegistrationExportFilter filter, ExportFormat format) throws IOException;
+
+}
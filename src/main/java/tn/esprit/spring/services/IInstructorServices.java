@@ -1,10 +1,14 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.CourseAssignment;
+import tn.esprit.spring.dto.InstructorPatch;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.entities.Support;
 
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface IInstructorServices {
 
@@ -12,10 +16,22 @@ public interface IInstructorServices {
 
     List<Instructor> retrieveAllInstructors();
 
+    List<Instructor> retrieveInstructorsAfter(Long numInstructor, int size);
+
+    void streamAllInstructors(Consumer<Instructor> consumer);
+
     Instructor updateInstructor(Instructor instructor);
 
+    Instructor patchInstructor(Long numInstructor, InstructorPatch patch);
+
     Instructor retrieveInstructor(Long numInstructor);
 
     Instructor addInstructorAndAssignToCourse(Instructor instructor, Long numCourse);
 
+    int assignCourses(Long numInstructor, Set<Long> numCourses);
+
+    int unassignCourses(Long numInstructor, Set<Long> numCourses);
+
+    int assignCourses(List<CourseAssignment> assignments);
+
 }
@@ -3,11 +3,16 @@ package tn.esprit.spring.services;
 import tn.esprit.spring.entities.Piste;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IPisteServices {
 
     List<Piste> retrieveAllPistes();
 
+    List<Piste> retrievePistesAfter(Long numPiste, int size);
+
+    void streamAllPistes(Consumer<Piste> consumer);
+
     Piste  addPiste(Piste  piste);
 
     void removePiste (Long numPiste);
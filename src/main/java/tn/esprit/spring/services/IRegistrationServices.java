@@ -1,5 +1,7 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.RegistrationRequest;
+import tn.esprit.spring.dto.RegistrationResult;
 import tn.esprit.spring.entities.*;
 
 import java.util.List;
@@ -9,6 +11,7 @@ public interface IRegistrationServices {
 	Registration addRegistrationAndAssignToSkier(Registration registration, Long numSkier);
 	Registration assignRegistrationToCourse(Long numRegistration, Long numCourse);
 	Registration addRegistrationAndAssignToSkierAndCourse(Registration registration, Long numSkieur, Long numCours);
+	List<RegistrationResult> addRegistrationsAndAssignToSkiersAndCourses(List<RegistrationRequest> requests);
 	List<Integer> numWeeksCourseOfInstructorBySupport(Long numInstructor, Support support);
 }
 
@@ -0,0 +1,13 @@
+package tn.esprit.spring.services;
+
+import tn.esprit.spring.dto.SkierImportFormat;
+import tn.esprit.spring.dto.SkierImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ISkierImportServices {
+
+	SkierImportReport importSkiers(InputStream input, SkierImportFormat format) throws IOException;
+
+}
@@ -4,11 +4,16 @@ import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.TypeSubscription;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ISkierServices {
 
 	List<Skier> retrieveAllSkiers();
 
+	List<Skier> retrieveSkiersAfter(Long numSkier, int size);
+
+	void streamAllSkiers(Consumer<Skier> consumer);
+
 	Skier  addSkier(Skier  skier);
 
 	Skier assignSkierToSubscription(Long numSkier, Long numSubscription);
@@ -4,6 +4,8 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Set;
 
+import tn.esprit.spring.dto.ExpiringSubscription;
+import tn.esprit.spring.dto.SubscriptionPatch;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 
@@ -13,11 +15,17 @@ public interface ISubscriptionServices {
 
 	Subscription updateSubscription(Subscription subscription);
 
+	Subscription patchSubscription(Long numSub, SubscriptionPatch patch);
+
 	Subscription retrieveSubscriptionById(Long numSubscription);
 
 	Set<Subscription> getSubscriptionByType(TypeSubscription type);
 
 	List<Subscription> retrieveSubscriptionsByDates(LocalDate startDate, LocalDate endDate);
 
+	List<ExpiringSubscription> retrieveSubscriptionsExpiringWithin(int days);
+
+	List<ExpiringSubscription> retrieveSubscriptionsExpiredToday();
+
 	void retrieveSubscriptions();
 }
@@ -0,0 +1,206 @@
+package tn.esprit.spring.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Responses of the writes sent with an Idempotency-Key, so a retry gets the first response back without
+ * running the write again. Kept in memory for {@code ttl-ms}, at most {@code max-entries} keys (oldest
+ * first out, insertion order is expiry order). When {@code persistent} is set, keys are also claimed and
+ * stored in the idempotency_key table: they survive a restart and are shared between instances, and the
+ * table is only read on a memory miss. A claim whose request did not finish within
+ * {@code claim-timeout-ms} (crashed instance) can be taken over.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final String INSERT = "insert into idempotency_key (idem_key, created_at) values (?, ?)";
+    private static final String SELECT = "select created_at, fingerprint, status, content_type, body from idempotency_key where idem_key = ?";
+    private static final String TAKE_OVER = "update idempotency_key set created_at = ?, fingerprint = null, status = null,"
+            + " content_type = null, body = null where idem_key = ? and created_at = ?";
+    private static final String COMPLETE = "update idempotency_key set fingerprint = ?, status = ?, content_type = ?, body = ?"
+            + " where idem_key = ?";
+    private static final String RELEASE = "delete from idempotency_key where idem_key = ? and status is null";
+    private static final String PURGE = "delete from idempotency_key where created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final boolean persistent;
+    private final long claimTimeoutMillis;
+
+    /* Guarded by this */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    @Autowired
+    public IdempotencyStore(JdbcTemplate jdbcTemplate,
+                            @Value("${ski.idempotency.ttl-ms:86400000}") long ttlMillis,
+                            @Value("${ski.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${ski.idempotency.persistent:false}") boolean persistent,
+                            @Value("${ski.idempotency.claim-timeout-ms:60000}") long claimTimeoutMillis) {
+        this(jdbcTemplate, Clock.systemUTC(), ttlMillis, maxEntries, persistent, claimTimeoutMillis);
+    }
+
+    IdempotencyStore(JdbcTemplate jdbcTemplate, Clock clock, long ttlMillis, int maxEntries, boolean persistent,
+                     long claimTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.persistent = persistent;
+        this.claimTimeoutMillis = claimTimeoutMillis;
+    }
+
+    /**
+     * Null when the caller now holds the key and must {@link #complete} or {@link #release} it, else the
+     * stored response, or {@link StoredResponse#IN_PROGRESS} while another request holds the key.
+     */
+    public StoredResponse claim(String key) {
+        long now = clock.millis();
+        synchronized (this) {
+            expire(now);
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.createdAt < ttlMillis) {
+                return entry.response == null ? StoredResponse.IN_PROGRESS : entry.response;
+            }
+            entries.remove(key);
+            entries.put(key, new Entry(now, null));
+            while (entries.size() > maxEntries) {
+                Iterator<Entry> eldest = entries.values().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        if (!persistent) {
+            return null;
+        }
+        StoredResponse stored;
+        try {
+            stored = claimRow(key, now);
+        } catch (RuntimeException e) {
+            forget(key);
+            throw e;
+        }
+        if (stored == StoredResponse.IN_PROGRESS) {
+            forget(key);
+        } else if (stored != null) {
+            synchronized (this) {
+                entries.put(key, new Entry(now, stored));
+            }
+        }
+        return stored;
+    }
+
+    public void complete(String key, StoredResponse response) {
+        synchronized (this) {
+            Entry claimed = entries.get(key);
+            entries.put(key, new Entry(claimed == null ? clock.millis() : claimed.createdAt, response));
+        }
+        if (persistent) {
+            jdbcTemplate.update(COMPLETE, response.getFingerprint(), response.getStatus(), response.getContentType(),
+                    response.getBody(), key);
+        }
+    }
+
+    /* The request failed: the next one with this key runs again */
+    public void release(String key) {
+        forget(key);
+        if (persistent) {
+            jdbcTemplate.update(RELEASE, key);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ski.idempotency.purge-interval-ms:600000}")
+    public void purge() {
+        synchronized (this) {
+            expire(clock.millis());
+        }
+        if (persistent) {
+            jdbcTemplate.update(PURGE, new Timestamp(clock.millis() - ttlMillis));
+        }
+    }
+
+    private StoredResponse claimRow(String key, long now) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                jdbcTemplate.update(INSERT, key, new Timestamp(now));
+                return null;
+            } catch (DuplicateKeyException e) {
+                List<Row> rows = jdbcTemplate.query(SELECT, (rs, i) -> new Row(rs.getTimestamp(1),
+                        new StoredResponse(rs.getString(2), rs.getInt(3), rs.getString(4), rs.getBytes(5))), key);
+                if (rows.isEmpty()) {
+                    /* Released or purged in between */
+                    continue;
+                }
+                Row row = rows.get(0);
+                boolean claimed = row.response.getFingerprint() == null;
+                long age = now - row.createdAt.getTime();
+                if (claimed ? age < claimTimeoutMillis : age < ttlMillis) {
+                    return claimed ? StoredResponse.IN_PROGRESS : row.response;
+                }
+                return jdbcTemplate.update(TAKE_OVER, new Timestamp(now), key, row.createdAt) == 1
+                        ? null : StoredResponse.IN_PROGRESS;
+            }
+        }
+        return StoredResponse.IN_PROGRESS;
+    }
+
+    private synchronized void forget(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.response == null) {
+            entries.remove(key);
+        }
+    }
+
+    private void expire(long now) {
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (oldest.hasNext() && now - oldest.next().createdAt >= ttlMillis) {
+            oldest.remove();
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /* What the first request with a key got back, and the fingerprint of that request */
+    @Getter
+    @AllArgsConstructor
+    public static final class StoredResponse {
+
+        public static final StoredResponse IN_PROGRESS = new StoredResponse(null, 0, null, new byte[0]);
+
+        private final String fingerprint;
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+    }
+
+    @AllArgsConstructor
+    private static final class Entry {
+
+        final long createdAt;
+        /* Null while the first request runs */
+        final StoredResponse response;
+    }
+
+    @AllArgsConstructor
+    private static final class Row {
+
+        final Timestamp createdAt;
+        final StoredResponse response;
+    }
+}
@@ -2,26 +2,47 @@ package tn.esprit.spring.services;
 
 import java.util.Optional;
 import lombok.AllArgsConstructor;
+import org.hibernate.Cache;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.CourseAssignment;
+import tn.esprit.spring.dto.InstructorPatch;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.repositories.ICourseRepository;
 import tn.esprit.spring.repositories.IInstructorRepository;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @AllArgsConstructor
 @Service
 public class InstructorServicesImpl implements IInstructorServices{
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_CLEAR_INTERVAL = 500;
+    private static final int STREAM_CHUNK_SIZE = 100;
+    private static final String COURSES_ROLE = Instructor.class.getName() + ".courses";
+
     private IInstructorRepository instructorRepository;
     private ICourseRepository courseRepository;
+    private EntityManager entityManager;
+    private InstructorWeeksCache instructorWeeksCache;
+    private ConflictRetry conflictRetry;
 
     @Override
     public Instructor addInstructor(Instructor instructor) {
-        return instructorRepository.save(instructor);
+        Instructor saved = instructorRepository.save(instructor);
+        instructorWeeksCache.evictInstructor(saved.getNumInstructor());
+        return saved;
     }
 
     @Override
@@ -29,24 +50,138 @@ public class InstructorServicesImpl implements IInstructorServices{
         return instructorRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<Instructor> retrieveInstructorsAfter(Long numInstructor, int size) {
+        List<Instructor> instructors = instructorRepository.findByNumInstructorGreaterThanOrderByNumInstructorAsc(numInstructor == null ? 0L : numInstructor,
+                PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE))));
+        if (!instructors.isEmpty()) {
+            instructorRepository.fetchCourses(instructors);
+        }
+        return instructors;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAllInstructors(Consumer<Instructor> consumer) {
+        try (Stream<Instructor> instructors = instructorRepository.streamAllByOrderByNumInstructorAsc()) {
+            List<Instructor> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            Iterator<Instructor> iterator = instructors.iterator();
+            for (int row = 1; iterator.hasNext(); row++) {
+                chunk.add(iterator.next());
+                if (chunk.size() == STREAM_CHUNK_SIZE || !iterator.hasNext()) {
+                    instructorRepository.fetchCourses(chunk);
+                    chunk.forEach(consumer);
+                    chunk.clear();
+                }
+                if (row % STREAM_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    /* A body without a version overwrites whatever version is stored, like the update did before versioning */
+    @Transactional
     @Override
     public Instructor updateInstructor(Instructor instructor) {
-        return instructorRepository.save(instructor);
+        if (instructor != null && instructor.getNumInstructor() != null && instructor.getVersion() == null) {
+            instructor.setVersion(instructorRepository.findById(instructor.getNumInstructor())
+                    .map(Instructor::getVersion).orElse(0L));
+        }
+        Instructor saved = instructorRepository.save(instructor);
+        instructorWeeksCache.evictInstructor(saved.getNumInstructor());
+        return saved;
+    }
+
+    /* Names and hire date only, the weeks taught don't change */
+    @Override
+    public Instructor patchInstructor(Long numInstructor, InstructorPatch patch) {
+        return conflictRetry.run(() -> {
+            Instructor instructor = instructorRepository.findWithCoursesByNumInstructor(numInstructor).orElse(null);
+            if (instructor == null) {
+                return null;
+            }
+            VersionConflictException.check(Instructor.class, numInstructor, patch.getVersion(), instructor.getVersion());
+            if (patch.getFirstName() != null) {
+                instructor.setFirstName(patch.getFirstName());
+            }
+            if (patch.getLastName() != null) {
+                instructor.setLastName(patch.getLastName());
+            }
+            if (patch.getDateOfHire() != null) {
+                instructor.setDateOfHire(patch.getDateOfHire());
+            }
+            return instructor;
+        });
     }
 
     @Override
     public Instructor retrieveInstructor(Long numInstructor) {
-        return instructorRepository.findById(numInstructor).orElse(null);
+        return instructorRepository.findWithCoursesByNumInstructor(numInstructor).orElse(null);
     }
 
+    /* An existing instructor keeps its courses, the course is linked on top of them */
+    @Transactional
     @Override
     public Instructor addInstructorAndAssignToCourse(Instructor instructor, Long numCourse) {
+        if (instructor.getNumInstructor() != null && instructorRepository.existsById(instructor.getNumInstructor())) {
+            assignCourses(instructor.getNumInstructor(), Collections.singleton(numCourse));
+            return instructorRepository.findWithCoursesByNumInstructor(instructor.getNumInstructor()).orElse(null);
+        }
         Optional<Course> course = courseRepository.findById(numCourse);
         Set<Course> courseSet = new HashSet<>();
-	course.ifPresent(courseSet::add);
+        course.ifPresent(courseSet::add);
         instructor.setCourses(courseSet);
-        return instructorRepository.save(instructor);
+        Instructor saved = instructorRepository.save(instructor);
+        instructorWeeksCache.evictInstructor(saved.getNumInstructor());
+        return saved;
     }
 
+    /* One insert of the new links, whatever the number of courses the instructor already teaches */
+    @Transactional
+    @Override
+    public int assignCourses(Long numInstructor, Set<Long> numCourses) {
+        if (numCourses == null || numCourses.isEmpty()) {
+            return 0;
+        }
+        int linked = instructorRepository.linkCourses(numInstructor, numCourses);
+        if (linked > 0) {
+            evictCourses(numInstructor);
+        }
+        return linked;
+    }
+
+    @Transactional
+    @Override
+    public int unassignCourses(Long numInstructor, Set<Long> numCourses) {
+        if (numCourses == null || numCourses.isEmpty()) {
+            return 0;
+        }
+        int unlinked = instructorRepository.unlinkCourses(numInstructor, numCourses);
+        if (unlinked > 0) {
+            evictCourses(numInstructor);
+        }
+        return unlinked;
+    }
 
+    @Transactional
+    @Override
+    public int assignCourses(List<CourseAssignment> assignments) {
+        int linked = 0;
+        for (CourseAssignment assignment : assignments) {
+            linked += assignCourses(assignment.getNumInstructor(), assignment.getNumCourses());
+        }
+        return linked;
+    }
+
+    /*
+     * The native link updates bypass the second-level cache: hibernate only invalidates the cached queries
+     * on instructor_courses, so the cached courses of this one instructor are evicted here, once committed.
+     */
+    private void evictCourses(Long numInstructor) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        AfterCommit.run(() -> cache.evictCollectionData(COURSES_ROLE, numInstructor));
+        instructorWeeksCache.evictInstructor(numInstructor);
+    }
 }
@@ -0,0 +1,83 @@
+package tn.esprit.spring.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.repositories.IInstructorRepository;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evicts the cached weeks of {@link IRegistrationServices#numWeeksCourseOfInstructorBySupport} once the
+ * write that changes them commits, then once more after a short delay.
+ * <p>
+ * Evicting on commit alone leaves a window: a read that queried the database before the commit can still
+ * put its stale result into the cache after the eviction. The second eviction drops what such reads wrote
+ * back, as long as they finish within the delay; a slower one stays until the next change of that
+ * instructor or the cache's TTL (ehcache.xml).
+ */
+@Component
+public class InstructorWeeksCache {
+
+    public static final String CACHE = "instructorWeeks";
+
+    private final CacheManager cacheManager;
+    private final IInstructorRepository instructorRepository;
+    private final long reEvictDelayMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "instructor-weeks-evict");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public InstructorWeeksCache(CacheManager cacheManager, IInstructorRepository instructorRepository,
+                                @Value("${ski.instructor-weeks.re-evict-delay-ms:500}") long reEvictDelayMillis) {
+        this.cacheManager = cacheManager;
+        this.instructorRepository = instructorRepository;
+        this.reEvictDelayMillis = reEvictDelayMillis;
+    }
+
+    /* Registrations of a course, or the course itself, changed */
+    public void evictCourse(Long numCourse) {
+        if (numCourse != null) {
+            instructorRepository.findNumInstructorsByCourse(numCourse).forEach(this::evictInstructor);
+        }
+    }
+
+    /* The courses of an instructor changed */
+    public void evictInstructor(Long numInstructor) {
+        if (numInstructor == null) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            evict(numInstructor);
+            try {
+                scheduler.schedule(() -> evict(numInstructor), reEvictDelayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException shuttingDown) {
+                // Nothing left to serve from the cache
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void evict(Long numInstructor) {
+        Cache cache = cacheManager.getCache(CACHE);
+        if (cache != null) {
+            for (Support support : Support.values()) {
+                cache.evict(new SimpleKey(numInstructor, support));
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.PisteHeat;
+import tn.esprit.spring.dto.PisteOccupancy;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Piste;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live piste activity fed by skier assignments, without locks or database reads: a {@link LongAdder}
+ * per piste for the total, and a one-minute sliding window of per-second buckets for the rate.
+ */
+@Component
+public class PisteOccupancyTracker {
+
+    static final int WINDOW_SECONDS = 60;
+
+    private final ConcurrentMap<Long, PisteActivity> pistes = new ConcurrentHashMap<>();
+
+    private final Clock clock;
+
+    @Autowired
+    public PisteOccupancyTracker(MeterRegistry meterRegistry) {
+        this(meterRegistry, Clock.systemUTC());
+    }
+
+    PisteOccupancyTracker(MeterRegistry meterRegistry, Clock clock) {
+        this.clock = clock;
+        for (Color color : Color.values()) {
+            Gauge.builder("ski.pistes.skiers.per.minute", this, tracker -> tracker.skiersPerMinute(color))
+                    .description("Skiers assigned to a piste of this color over the last minute")
+                    .tag("color", color.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    public void record(Piste piste) {
+        pistes.computeIfAbsent(piste.getNumPiste(), numPiste -> new PisteActivity(piste))
+                .record(clock.millis() / 1000);
+    }
+
+    /* A piste saved again keeps its counts but shows its new name and color */
+    public void update(Piste piste) {
+        PisteActivity activity = pistes.get(piste.getNumPiste());
+        if (activity != null) {
+            activity.describe(piste);
+        }
+    }
+
+    public void forget(Long numPiste) {
+        pistes.remove(numPiste);
+    }
+
+    public PisteOccupancy snapshot() {
+        long now = clock.millis() / 1000;
+        List<PisteHeat> heat = new ArrayList<>(pistes.size());
+        Map<Color, Long> byColor = new EnumMap<>(Color.class);
+        for (Color color : Color.values()) {
+            byColor.put(color, 0L);
+        }
+        for (PisteActivity activity : pistes.values()) {
+            long perMinute = activity.lastMinute(now);
+            Color color = activity.color;
+            heat.add(new PisteHeat(activity.numPiste, activity.namePiste, color, perMinute, activity.total.sum()));
+            if (color != null) {
+                byColor.merge(color, perMinute, Long::sum);
+            }
+        }
+        heat.sort(Comparator.comparingLong(PisteHeat::getSkiersPerMinute).reversed()
+                .thenComparing(PisteHeat::getNumPiste));
+        return new PisteOccupancy(Instant.ofEpochSecond(now), heat, byColor);
+    }
+
+    private double skiersPerMinute(Color color) {
+        long now = clock.millis() / 1000;
+        return pistes.values().stream()
+                .filter(activity -> activity.color == color)
+                .mapToLong(activity -> activity.lastMinute(now))
+                .sum();
+    }
+
+    /**
+     * Each bucket packs the second it counts (high bits) with its count (low {@link #COUNT_BITS} bits),
+     * so moving a bucket to a new second and counting in it is a single CAS.
+     */
+    private static final class PisteActivity {
+
+        private static final int COUNT_BITS = 24;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+        private final Long numPiste;
+        private volatile String namePiste;
+        private volatile Color color;
+        private final LongAdder total = new LongAdder();
+        private final AtomicLongArray buckets = new AtomicLongArray(WINDOW_SECONDS);
+
+        private PisteActivity(Piste piste) {
+            this.numPiste = piste.getNumPiste();
+            describe(piste);
+        }
+
+        private void describe(Piste piste) {
+            namePiste = piste.getNamePiste();
+            color = piste.getColor();
+        }
+
+        private void record(long second) {
+            total.increment();
+            int index = (int) (second % WINDOW_SECONDS);
+            long current;
+            long next;
+            do {
+                current = buckets.get(index);
+                /* A bucket already moved past this second (a late writer) keeps the count */
+                next = (current >>> COUNT_BITS) >= second ? current + 1 : (second << COUNT_BITS) | 1;
+            } while (!buckets.compareAndSet(index, current, next));
+        }
+
+        private long lastMinute(long now) {
+            long sum = 0;
+            for (int i = 0; i < WINDOW_SECONDS; i++) {
+                long bucket = buckets.get(i);
+                if (now - (bucket >>> COUNT_BITS) < WINDOW_SECONDS) {
+                    sum += bucket & COUNT_MASK;
+                }
+            }
+            return sum;
+        }
+    }
+}
@@ -1,30 +1,65 @@
 package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import tn.esprit.spring.entities.Piste;
 import tn.esprit.spring.repositories.IPisteRepository;
 
+import javax.persistence.EntityManager;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
 @AllArgsConstructor
 @Service
 public class PisteServicesImpl implements  IPisteServices{
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_CLEAR_INTERVAL = 500;
+
     private IPisteRepository pisteRepository;
+    private EntityManager entityManager;
+    private PisteOccupancyTracker occupancyTracker;
 
     @Override
     public List<Piste> retrieveAllPistes() {
         return pisteRepository.findAll();
     }
 
+    @Override
+    public List<Piste> retrievePistesAfter(Long numPiste, int size) {
+        return pisteRepository.findByNumPisteGreaterThanOrderByNumPisteAsc(numPiste == null ? 0L : numPiste,
+                PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE))));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAllPistes(Consumer<Piste> consumer) {
+        try (Stream<Piste> pistes = pisteRepository.streamAllByOrderByNumPisteAsc()) {
+            Iterator<Piste> iterator = pistes.iterator();
+            for (int row = 1; iterator.hasNext(); row++) {
+                consumer.accept(iterator.next());
+                if (row % STREAM_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
     @Override
     public Piste addPiste(Piste piste) {
-        return pisteRepository.save(piste);
+        Piste saved = pisteRepository.save(piste);
+        occupancyTracker.update(saved);
+        return saved;
     }
 
     @Override
     public void removePiste(Long numPiste) {
         pisteRepository.deleteById(numPiste);
+        occupancyTracker.forget(numPiste);
     }
 
     @Override
@@ -0,0 +1,48 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.RegistrationOutcome;
+import tn.esprit.spring.dto.RegistrationResult;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Counts registration attempts by {@link RegistrationOutcome}, for single and bulk bookings alike.
+ */
+@Component
+public class RegistrationMetrics {
+
+    private final Map<RegistrationOutcome, Counter> outcomes = new EnumMap<>(RegistrationOutcome.class);
+
+    private final DistributionSummary bulkSize;
+
+    public RegistrationMetrics(MeterRegistry meterRegistry) {
+        for (RegistrationOutcome outcome : RegistrationOutcome.values()) {
+            outcomes.put(outcome, Counter.builder("ski.registrations")
+                    .description("Registration attempts by outcome")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        bulkSize = DistributionSummary.builder("ski.registrations.bulk.size")
+                .description("Registrations requested per bulk call")
+                .baseUnit("registrations")
+                .register(meterRegistry);
+    }
+
+    public void record(RegistrationOutcome outcome) {
+        outcomes.get(outcome).increment();
+    }
+
+    public void recordBulk(List<RegistrationResult> results) {
+        bulkSize.record(results.size());
+        for (RegistrationResult result : results) {
+            record(result.getOutcome());
+        }
+    }
+}
@@ -2,15 +2,29 @@ package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import tn.esprit.spring.dto.RegistrationKey;
+import tn.esprit.spring.dto.RegistrationOutcome;
+import tn.esprit.spring.dto.RegistrationRequest;
+import tn.esprit.spring.dto.RegistrationResult;
 import tn.esprit.spring.entities.*;
+import tn.esprit.spring.repositories.ICourseOccupancyRepository;
 import tn.esprit.spring.repositories.ICourseRepository;
 import tn.esprit.spring.repositories.IRegistrationRepository;
 import tn.esprit.spring.repositories.ISkierRepository;
 import javax.transaction.Transactional;
 import java.time.LocalDate;
 import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @AllArgsConstructor
@@ -20,6 +34,10 @@ public class RegistrationServicesImpl implements  IRegistrationServices{
     private IRegistrationRepository registrationRepository;
     private ISkierRepository skierRepository;
     private ICourseRepository courseRepository;
+    private CourseCapacityRegistry capacityRegistry;
+    private ICourseOccupancyRepository occupancyRepository;
+    private RegistrationMetrics registrationMetrics;
+    private InstructorWeeksCache instructorWeeksCache;
 
 
     @Override
@@ -29,13 +47,52 @@ public class RegistrationServicesImpl implements  IRegistrationServices{
         return registrationRepository.save(registration);
     }
 
+    /* Moves the registration: its seat in the previous course is given back and one is taken in the new one */
+    @Transactional
     @Override
     public Registration assignRegistrationToCourse(Long numRegistration, Long numCourse) {
         Registration registration = registrationRepository.findById(numRegistration).orElse(null);
 	if(registration == null) {return null;}
         Course course = courseRepository.findById(numCourse).orElse(null);
+        Course previous = registration.getCourse();
+        if (previous != null && course != null && previous.getNumCourse().equals(course.getNumCourse())) {
+            return registration;
+        }
+        if (course != null && registration.getSkier() != null
+                && registrationRepository.countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(
+                        registration.getNumWeek(), registration.getSkier().getNumSkier(), course.getNumCourse()) >= 1) {
+            log.info("Skier {} already registered to course {} for week {}", registration.getSkier().getNumSkier(), numCourse, registration.getNumWeek());
+            return null;
+        }
+
+        Integer previousSeat = registration.getSeat();
+        Integer seat = null;
+        if (course != null && course.getTypeCourse() != TypeCourse.INDIVIDUAL) {
+            seat = capacityRegistry.reserve(course.getNumCourse(), registration.getNumWeek());
+            if (seat == CourseCapacityRegistry.FULL) {
+                log.info("Course {} is full for week {}", course.getNumCourse(), registration.getNumWeek());
+                return null;
+            }
+            capacityRegistry.releaseOnRollback(course.getNumCourse(), registration.getNumWeek(), seat);
+        }
         registration.setCourse(course);
-        return registrationRepository.save(registration);
+        registration.setSeat(seat);
+        Registration saved = registrationRepository.save(registration);
+        if (seat != null) {
+            incrementOccupancy(course, registration.getNumWeek(), 1);
+        }
+        if (previous != null && previous.getTypeCourse() != TypeCourse.INDIVIDUAL) {
+            // rows from before seat numbers hold whichever seat the warm-up gave them, so only the count moves
+            if (previousSeat != null) {
+                capacityRegistry.releaseAfterCommit(previous.getNumCourse(), registration.getNumWeek(), previousSeat);
+            }
+            occupancyRepository.decrement(previous.getNumCourse(), registration.getNumWeek(), 1);
+        }
+        if (previous != null) {
+            instructorWeeksCache.evictCourse(previous.getNumCourse());
+        }
+        instructorWeeksCache.evictCourse(numCourse);
+        return saved;
     }
 
     @Transactional
@@ -45,61 +102,166 @@ public class RegistrationServicesImpl implements  IRegistrationServices{
         Course course = courseRepository.findById(numCours).orElse(null);
 
         if (skier == null || course == null) {
+            registrationMetrics.record(RegistrationOutcome.NOT_FOUND);
             return null;
         }
 
         if(registrationRepository.countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(registration.getNumWeek(), skier.getNumSkier(), course.getNumCourse()) >=1){
-            log.info("Sorry, you're already register to this course of the week :" + registration.getNumWeek());
+            log.info("Skier {} already registered to course {} for week {}", skier.getNumSkier(), course.getNumCourse(), registration.getNumWeek());
+            registrationMetrics.record(RegistrationOutcome.DUPLICATE);
             return null;
         }
 
 
         int ageSkieur = Period.between(skier.getDateOfBirth(), LocalDate.now()).getYears();
-        log.info("Age " + ageSkieur);
+        log.debug("Skier {} is {} years old", skier.getNumSkier(), ageSkieur);
 
         switch (course.getTypeCourse()) {
             case INDIVIDUAL:
-                log.info("add without tests");
-                return assignRegistration(registration, skier, course);
+                log.debug("Individual course {}: no age or capacity check", course.getNumCourse());
+                Registration saved = assignRegistration(registration, skier, course);
+                registrationMetrics.record(RegistrationOutcome.ACCEPTED);
+                return saved;
 
             case COLLECTIVE_CHILDREN:
                 if (ageSkieur < 16) {
-                    log.info("Ok CHILD !");
-                    if (registrationRepository.countByCourseAndNumWeek(course, registration.getNumWeek()) < 6) {
-                        log.info("Course successfully added !");
-                        return assignRegistration(registration, skier, course);
-                    } else {
-                        log.info("Full Course ! Please choose another week to register !");
-                        return null;
-                    }
+                    log.debug("Skier {} admitted to children course {}", skier.getNumSkier(), course.getNumCourse());
+                    return assignCollectiveRegistration(registration, skier, course);
                 }
                 else{
-                    log.info("Sorry, your age doesn't allow you to register for this course ! \n Try to Register to a Collective Adult Course...");
+                    log.info("Skier {} aged {} rejected from children course {}", skier.getNumSkier(), ageSkieur, course.getNumCourse());
                 }
                 break;
 
             default:
                 if (ageSkieur >= 16) {
-                    log.info("Ok ADULT !");
-                    if (registrationRepository.countByCourseAndNumWeek(course, registration.getNumWeek()) < 6) {
-                        log.info("Course successfully added !");
-                        return assignRegistration(registration, skier, course);
-                    } else {
-                        log.info("Full Course ! Please choose another week to register !");
-                        return null;
-                    }
+                    log.debug("Skier {} admitted to adult course {}", skier.getNumSkier(), course.getNumCourse());
+                    return assignCollectiveRegistration(registration, skier, course);
                 }
-                log.info("Sorry, your age doesn't allow you to register for this course ! \n Try to Register to a Collective Child Course...");
+                log.info("Skier {} aged {} rejected from adult course {}", skier.getNumSkier(), ageSkieur, course.getNumCourse());
         }
+        registrationMetrics.record(RegistrationOutcome.AGE_REJECTED);
         return registration;
 
     }
+    @Transactional
+    @Override
+    public List<RegistrationResult> addRegistrationsAndAssignToSkiersAndCourses(List<RegistrationRequest> requests) {
+        Set<Long> numSkiers = requests.stream().map(RegistrationRequest::getNumSkier).collect(Collectors.toSet());
+        Set<Long> numCourses = requests.stream().map(RegistrationRequest::getNumCourse).collect(Collectors.toSet());
+        Map<Long, Skier> skiers = skierRepository.findAllById(numSkiers).stream()
+                .collect(Collectors.toMap(Skier::getNumSkier, Function.identity()));
+        Map<Long, Course> courses = courseRepository.findAllById(numCourses).stream()
+                .collect(Collectors.toMap(Course::getNumCourse, Function.identity()));
+        Set<List<Object>> registered = new HashSet<>();
+        if (!skiers.isEmpty() && !courses.isEmpty()) {
+            for (RegistrationKey key : registrationRepository.findKeysBySkiersAndCourses(skiers.keySet(), courses.keySet())) {
+                registered.add(Arrays.asList(key.getNumSkier(), key.getNumCourse(), key.getNumWeek()));
+            }
+        }
+
+        List<RegistrationResult> results = new ArrayList<>(requests.size());
+        List<Registration> accepted = new ArrayList<>();
+        for (int index = 0; index < requests.size(); index++) {
+            RegistrationRequest request = requests.get(index);
+            Skier skier = skiers.get(request.getNumSkier());
+            Course course = courses.get(request.getNumCourse());
+            RegistrationResult result = new RegistrationResult(index, null, RegistrationOutcome.NOT_FOUND);
+            results.add(result);
+            if (skier == null || course == null) {
+                continue;
+            }
+            List<Object> key = Arrays.asList(skier.getNumSkier(), course.getNumCourse(), request.getNumWeek());
+            if (registered.contains(key)) {
+                result.setOutcome(RegistrationOutcome.DUPLICATE);
+                continue;
+            }
+
+            Registration registration = new Registration();
+            registration.setNumWeek(request.getNumWeek());
+            registration.setSkier(skier);
+            registration.setCourse(course);
+            if (course.getTypeCourse() != TypeCourse.INDIVIDUAL) {
+                if (!isAgeAllowed(skier, course.getTypeCourse())) {
+                    result.setOutcome(RegistrationOutcome.AGE_REJECTED);
+                    continue;
+                }
+                int seat = capacityRegistry.reserve(course.getNumCourse(), request.getNumWeek());
+                if (seat == CourseCapacityRegistry.FULL) {
+                    result.setOutcome(RegistrationOutcome.FULL);
+                    continue;
+                }
+                capacityRegistry.releaseOnRollback(course.getNumCourse(), request.getNumWeek(), seat);
+                registration.setSeat(seat);
+            }
+            registered.add(key);
+            result.setOutcome(RegistrationOutcome.ACCEPTED);
+            accepted.add(registration);
+        }
+
+        registrationRepository.saveAll(accepted);
+        Map<CourseWeek, Integer> seated = new HashMap<>();
+        Map<Long, Course> seatedCourses = new HashMap<>();
+        for (Registration registration : accepted) {
+            if (registration.getSeat() != null) {
+                seated.merge(new CourseWeek(registration.getCourse().getNumCourse(), registration.getNumWeek()), 1, Integer::sum);
+                seatedCourses.put(registration.getCourse().getNumCourse(), registration.getCourse());
+            }
+        }
+        seated.forEach((courseWeek, count) -> incrementOccupancy(seatedCourses.get(courseWeek.getNumCourse()), courseWeek.getNumWeek(), count));
+        accepted.stream().map(registration -> registration.getCourse().getNumCourse()).distinct()
+                .forEach(instructorWeeksCache::evictCourse);
+        int next = 0;
+        for (RegistrationResult result : results) {
+            if (result.getOutcome() == RegistrationOutcome.ACCEPTED) {
+                result.setNumRegistration(accepted.get(next++).getNumRegistration());
+            }
+        }
+        log.info("Bulk registration: {} requested, {} accepted", requests.size(), accepted.size());
+        registrationMetrics.recordBulk(results);
+        return results;
+    }
+
+    private boolean isAgeAllowed(Skier skier, TypeCourse typeCourse) {
+        if (skier.getDateOfBirth() == null) {
+            return false;
+        }
+        int age = Period.between(skier.getDateOfBirth(), LocalDate.now()).getYears();
+        return typeCourse == TypeCourse.COLLECTIVE_CHILDREN ? age < 16 : age >= 16;
+    }
+
+    private Registration assignCollectiveRegistration(Registration registration, Skier skier, Course course) {
+        int seat = capacityRegistry.reserve(course.getNumCourse(), registration.getNumWeek());
+        if (seat == CourseCapacityRegistry.FULL) {
+            log.info("Course {} is full for week {}", course.getNumCourse(), registration.getNumWeek());
+            registrationMetrics.record(RegistrationOutcome.FULL);
+            return null;
+        }
+        registration.setSeat(seat);
+        log.debug("Seat {} reserved on course {} for week {}", seat, course.getNumCourse(), registration.getNumWeek());
+        Registration saved = capacityRegistry.holdUntilCommit(course.getNumCourse(), registration.getNumWeek(), seat, () -> {
+            Registration assigned = assignRegistration(registration, skier, course);
+            incrementOccupancy(course, registration.getNumWeek(), 1);
+            return assigned;
+        });
+        registrationMetrics.record(RegistrationOutcome.ACCEPTED);
+        return saved;
+    }
+
+    private void incrementOccupancy(Course course, int numWeek, int count) {
+        occupancyRepository.increment(course.getNumCourse(), numWeek, course.getTypeCourse().name(),
+                course.getSupport() == null ? null : course.getSupport().name(), count, CourseCapacityRegistry.COLLECTIVE_CAPACITY);
+    }
+
     private Registration assignRegistration (Registration registration, Skier skier, Course course){
         registration.setSkier(skier);
         registration.setCourse(course);
-        return registrationRepository.save(registration);
+        Registration saved = registrationRepository.save(registration);
+        instructorWeeksCache.evictCourse(course.getNumCourse());
+        return saved;
     }
 
+    @Cacheable(InstructorWeeksCache.CACHE)
     @Override
     public List<Integer> numWeeksCourseOfInstructorBySupport(Long numInstructor, Support support) {
         return registrationRepository.numWeeksCourseOfInstructorBySupport(numInstructor, support);
@@ -0,0 +1,238 @@
+package tn.esprit.spring.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dto.SkierImportError;
+import tn.esprit.spring.dto.SkierImportFormat;
+import tn.esprit.spring.dto.SkierImportReport;
+import tn.esprit.spring.dto.SkierImportRow;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Subscription;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streams skiers with their subscription from CSV (header line first) or NDJSON, one line at a time.
+ * Valid lines are persisted in chunks, one transaction per chunk, so only a chunk of entities is held
+ * in memory and hibernate sends them as JDBC batches. A chunk that fails is replayed line by line to
+ * find the rejected lines; the other lines of the chunk are still imported.
+ */
+@Slf4j
+@Service
+public class SkierImportServicesImpl implements ISkierImportServices {
+
+    static final int CHUNK_SIZE = 500;
+    static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final SubscriptionRevenueAggregate revenueAggregate;
+
+    private final SubscriptionExpiryIndex expiryIndex;
+
+    private final ObjectReader ndjsonReader;
+
+    private final CsvMapper csvMapper;
+
+    private final Counter importedRows;
+
+    private final Counter rejectedRows;
+
+    public SkierImportServicesImpl(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                   SubscriptionRevenueAggregate revenueAggregate, SubscriptionExpiryIndex expiryIndex,
+                                   ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.revenueAggregate = revenueAggregate;
+        this.expiryIndex = expiryIndex;
+        this.ndjsonReader = objectMapper.readerFor(SkierImportRow.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.csvMapper = new CsvMapper();
+        this.csvMapper.registerModule(new JavaTimeModule());
+        this.importedRows = meterRegistry.counter("ski.import.rows", "outcome", "imported");
+        this.rejectedRows = meterRegistry.counter("ski.import.rows", "outcome", "rejected");
+    }
+
+    @Override
+    public SkierImportReport importSkiers(InputStream input, SkierImportFormat format) throws IOException {
+        Progress progress = new Progress();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        ObjectReader rowReader = ndjsonReader;
+        if (format == SkierImportFormat.CSV) {
+            String header = reader.readLine();
+            if (header == null) {
+                return progress.report();
+            }
+            lineNumber++;
+            rowReader = csvReader(header);
+        }
+
+        List<NumberedRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                SkierImportRow row = rowReader.readValue(line);
+                validate(row);
+                chunk.add(new NumberedRow(lineNumber, row));
+            } catch (JsonProcessingException e) {
+                progress.reject(lineNumber, e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                progress.reject(lineNumber, e.getMessage());
+            }
+            if (chunk.size() == CHUNK_SIZE) {
+                write(chunk, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            write(chunk, progress);
+        }
+        SkierImportReport report = progress.report();
+        log.info("Skier import done: {} imported, {} rejected in {} ms ({} rows/s)",
+                report.getImported(), report.getRejected(), report.getElapsedMillis(), report.getRowsPerSecond());
+        return report;
+    }
+
+    private ObjectReader csvReader(String header) {
+        CsvSchema.Builder schema = CsvSchema.builder();
+        for (String column : header.split(",")) {
+            schema.addColumn(column.trim());
+        }
+        return csvMapper.readerFor(SkierImportRow.class)
+                .with(schema.build())
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    private static void validate(SkierImportRow row) {
+        if (isBlank(row.getFirstName()) || isBlank(row.getLastName())) {
+            throw new IllegalArgumentException("firstName and lastName are required");
+        }
+        if (row.getTypeSub() == null || row.getStartDate() == null) {
+            throw new IllegalArgumentException("typeSub and startDate are required");
+        }
+        if (row.getPrice() == null || row.getPrice() < 0) {
+            throw new IllegalArgumentException("price must be a positive number");
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private void write(List<NumberedRow> chunk, Progress progress) {
+        try {
+            persist(chunk);
+            chunk.forEach(progress::accept);
+        } catch (RuntimeException chunkFailure) {
+            for (NumberedRow row : chunk) {
+                try {
+                    persist(Collections.singletonList(row));
+                    progress.accept(row);
+                } catch (RuntimeException e) {
+                    progress.reject(row.line, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                }
+            }
+        }
+    }
+
+    /* New entities on every attempt: a rolled back persist leaves its generated ids on the instances */
+    private void persist(List<NumberedRow> rows) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (NumberedRow row : rows) {
+                entityManager.persist(toSkier(row.row));
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private static Skier toSkier(SkierImportRow row) {
+        Subscription subscription = new Subscription(null, row.getStartDate(),
+                row.getTypeSub().endDate(row.getStartDate()), row.getPrice(), row.getTypeSub(), null);
+        return new Skier(null, row.getFirstName(), row.getLastName(), row.getDateOfBirth(), row.getCity(),
+                subscription, null);
+    }
+
+    private static final class NumberedRow {
+
+        private final long line;
+        private final SkierImportRow row;
+
+        private NumberedRow(long line, SkierImportRow row) {
+            this.line = line;
+            this.row = row;
+        }
+    }
+
+    private final class Progress {
+
+        private final long started = System.nanoTime();
+        private final List<SkierImportError> errors = new ArrayList<>();
+        private long imported;
+        private long rejected;
+
+        /* Called once the row's transaction committed */
+        void accept(NumberedRow row) {
+            imported++;
+            importedRows.increment();
+            revenueAggregate.record(row.row.getTypeSub(), row.row.getPrice());
+            expiryIndex.invalidate(row.row.getTypeSub().endDate(row.row.getStartDate()));
+            logProgress();
+        }
+
+        void reject(long line, String message) {
+            rejected++;
+            rejectedRows.increment();
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new SkierImportError(line, message));
+            }
+            logProgress();
+        }
+
+        private void logProgress() {
+            if ((imported + rejected) % PROGRESS_INTERVAL == 0) {
+                log.info("Skier import: {} imported, {} rejected, {} rows/s", imported, rejected, rowsPerSecond());
+            }
+        }
+
+        private long elapsedMillis() {
+            return (System.nanoTime() - started) / 1_000_000;
+        }
+
+        private long rowsPerSecond() {
+            return (imported + rejected) * 1000 / Math.max(1, elapsedMillis());
+        }
+
+        SkierImportReport report() {
+            return new SkierImportReport(imported, rejected, errors, elapsedMillis(), rowsPerSecond());
+        }
+    }
+}
@@ -1,18 +1,29 @@
 package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import tn.esprit.spring.entities.*;
 import tn.esprit.spring.repositories.*;
 
-import java.util.HashSet;
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @AllArgsConstructor
 @Service
 public class SkierServicesImpl implements ISkierServices {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_CLEAR_INTERVAL = 500;
+    private static final int STREAM_CHUNK_SIZE = 100;
+
     private ISkierRepository skierRepository;
 
     private IPisteRepository pisteRepository;
@@ -23,26 +34,66 @@ public class SkierServicesImpl implements ISkierServices {
 
     private ISubscriptionRepository subscriptionRepository;
 
+    private EntityManager entityManager;
+
+    private SubscriptionRevenueAggregate revenueAggregate;
+
+    private InstructorWeeksCache instructorWeeksCache;
+
+    private ExcursionWriter excursionWriter;
+
+    private PisteOccupancyTracker occupancyTracker;
+
+    private SubscriptionExpiryIndex expiryIndex;
+
 
     @Override
     public List<Skier> retrieveAllSkiers() {
         return skierRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<Skier> retrieveSkiersAfter(Long numSkier, int size) {
+        List<Skier> skiers = skierRepository.findByNumSkierGreaterThanOrderByNumSkierAsc(numSkier == null ? 0L : numSkier,
+                PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE))));
+        if (!skiers.isEmpty()) {
+            skierRepository.fetchRegistrations(skiers);
+        }
+        return skiers;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAllSkiers(Consumer<Skier> consumer) {
+        try (Stream<Skier> skiers = skierRepository.streamAllByOrderByNumSkierAsc()) {
+            List<Skier> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            Iterator<Skier> iterator = skiers.iterator();
+            for (int row = 1; iterator.hasNext(); row++) {
+                chunk.add(iterator.next());
+                if (chunk.size() == STREAM_CHUNK_SIZE || !iterator.hasNext()) {
+                    skierRepository.fetchRegistrations(chunk);
+                    chunk.forEach(consumer);
+                    chunk.clear();
+                }
+                if (row % STREAM_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
     @Override
     public Skier addSkier(Skier skier) {
-        switch (skier.getSubscription().getTypeSub()) {
-            case ANNUAL:
-                skier.getSubscription().setEndDate(skier.getSubscription().getStartDate().plusYears(1));
-                break;
-            case SEMESTRIEL:
-                skier.getSubscription().setEndDate(skier.getSubscription().getStartDate().plusMonths(6));
-                break;
-            case MONTHLY:
-                skier.getSubscription().setEndDate(skier.getSubscription().getStartDate().plusMonths(1));
-                break;
+        Subscription subscription = skier.getSubscription();
+        subscription.setEndDate(subscription.getTypeSub().endDate(subscription.getStartDate()));
+        boolean newSubscription = skier.getSubscription().getNumSub() == null;
+        Skier savedSkier = skierRepository.save(skier);
+        if (newSubscription) {
+            revenueAggregate.record(savedSkier.getSubscription().getTypeSub(), savedSkier.getSubscription().getPrice());
         }
-        return skierRepository.save(skier);
+        expiryIndex.invalidate(subscription.getEndDate());
+        return savedSkier;
     }
 
     @Override
@@ -50,10 +101,19 @@ public class SkierServicesImpl implements ISkierServices {
         Skier skier = skierRepository.findById(numSkier).orElse(null);
 	if(skier == null) {return null;}
         Subscription subscription = subscriptionRepository.findById(numSubscription).orElse(null);
+        Subscription previous = skier.getSubscription();
         skier.setSubscription(subscription);
-        return skierRepository.save(skier);
+        Skier savedSkier = skierRepository.save(skier);
+        if (previous != null) {
+            expiryIndex.invalidate(previous.getEndDate());
+        }
+        if (subscription != null) {
+            expiryIndex.invalidate(subscription.getEndDate());
+        }
+        return savedSkier;
     }
 
+    @Transactional
     @Override
     public Skier addSkierAndAssignToCourse(Skier skier, Long numCourse) {
         Skier savedSkier = skierRepository.save(skier);
@@ -64,34 +124,46 @@ public class SkierServicesImpl implements ISkierServices {
             r.setCourse(course);
             registrationRepository.save(r);
         }
+        if (!registrations.isEmpty()) {
+            instructorWeeksCache.evictCourse(numCourse);
+        }
         return savedSkier;
     }
 
+    @Transactional
     @Override
     public void removeSkier(Long numSkier) {
+        Subscription subscription = skierRepository.findById(numSkier).map(Skier::getSubscription).orElse(null);
+        skierRepository.deleteExcursions(numSkier);
         skierRepository.deleteById(numSkier);
+        if (subscription != null) {
+            // The subscription goes with the skier: take it out of the running totals once that is committed
+            TypeSubscription type = subscription.getTypeSub();
+            Float price = subscription.getPrice();
+            LocalDate endDate = subscription.getEndDate();
+            AfterCommit.run(() -> {
+                revenueAggregate.remove(type, price);
+                expiryIndex.invalidate(endDate);
+            });
+        }
     }
 
     @Override
     public Skier retrieveSkier(Long numSkier) {
-        return skierRepository.findById(numSkier).orElse(null);
+        return skierRepository.findWithRegistrationsByNumSkier(numSkier).orElse(null);
     }
 
+    /* The excursion row is written asynchronously by the ExcursionWriter, in batches */
     @Override
     public Skier assignSkierToPiste(Long numSkieur, Long numPiste) {
         Skier skier = skierRepository.findById(numSkieur).orElse(null);
-	if(skier == null){ return null;}
         Piste piste = pisteRepository.findById(numPiste).orElse(null);
-	
-        try {
-            skier.getPistes().add(piste);
-        } catch (NullPointerException exception) {
-            Set<Piste> pisteList = new HashSet<>();
-            pisteList.add(piste);
-            skier.setPistes(pisteList);
+        if (skier == null || piste == null) {
+            return null;
         }
-
-        return skierRepository.save(skier);
+        excursionWriter.enqueue(skier.getNumSkier(), piste.getNumPiste());
+        occupancyTracker.record(piste);
+        return skier;
     }
 
     @Override
@@ -0,0 +1,15 @@
+package tn.esprit.spring.services;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import tn.esprit.spring.dto.ExpiredSubscription;
+
+/* Published once per subscription, the day after its last valid day */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class SubscriptionExpiredEvent {
+
+    private final ExpiredSubscription subscription;
+}
@@ -0,0 +1,143 @@
+package tn.esprit.spring.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.ExpiringSubscription;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Subscriptions by last valid day, as a timing wheel of day slots covering yesterday and the next
+ * {@code wheel-days} - 1 days. A slot is loaded with one indexed range read on end_date the first time
+ * it is asked for (contiguous cold slots share a read), then answered from memory, and reused for a new
+ * day once the wheel turns past it. Writes don't patch slots, they unload the slot of each end date they
+ * touch, after their commit, so the next read reloads it. Days outside the wheel are read directly.
+ */
+@Component
+public class SubscriptionExpiryIndex {
+
+    private final ISubscriptionRepository subscriptionRepository;
+    private final Clock clock;
+    private final Slot[] wheel;
+
+    @Autowired
+    public SubscriptionExpiryIndex(ISubscriptionRepository subscriptionRepository,
+                                   @Value("${ski.subscriptions.expiry.wheel-days:64}") int wheelDays) {
+        this(subscriptionRepository, Clock.systemDefaultZone(), wheelDays);
+    }
+
+    SubscriptionExpiryIndex(ISubscriptionRepository subscriptionRepository, Clock clock, int wheelDays) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.clock = clock;
+        this.wheel = new Slot[Math.max(2, wheelDays)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Slot();
+        }
+    }
+
+    /* Subscriptions whose last valid day is one of the next days, today included */
+    public List<ExpiringSubscription> expiringWithin(int days) {
+        LocalDate today = LocalDate.now(clock);
+        return days <= 0 ? Collections.emptyList() : expiringBetween(today, today.plusDays(days - 1L));
+    }
+
+    /* Subscriptions that were valid until yesterday and are not anymore */
+    public List<ExpiringSubscription> expiredToday() {
+        LocalDate yesterday = LocalDate.now(clock).minusDays(1);
+        return expiringBetween(yesterday, yesterday);
+    }
+
+    /* Ordered by end date, then number */
+    public synchronized List<ExpiringSubscription> expiringBetween(LocalDate from, LocalDate to) {
+        List<ExpiringSubscription> result = new ArrayList<>();
+        if (to.isBefore(from)) {
+            return result;
+        }
+        LocalDate first = firstDay();
+        LocalDate last = first.plusDays(wheel.length - 1L);
+        if (from.isBefore(first)) {
+            result.addAll(subscriptionRepository.findExpiringBetween(from, min(to, first.minusDays(1))));
+        }
+        LocalDate start = max(from, first);
+        LocalDate end = min(to, last);
+        if (!end.isBefore(start)) {
+            load(start, end);
+            for (long day = start.toEpochDay(); day <= end.toEpochDay(); day++) {
+                result.addAll(slot(day).subscriptions);
+            }
+        }
+        if (to.isAfter(last)) {
+            result.addAll(subscriptionRepository.findExpiringBetween(max(from, last.plusDays(1)), to));
+        }
+        return result;
+    }
+
+    /* A subscription ending on this day was added, changed or removed; call once committed */
+    public synchronized void invalidate(LocalDate endDate) {
+        if (endDate == null) {
+            return;
+        }
+        Slot slot = slot(endDate.toEpochDay());
+        if (slot.day == endDate.toEpochDay()) {
+            slot.subscriptions = null;
+        }
+    }
+
+    private void load(LocalDate start, LocalDate end) {
+        long runStart = Long.MIN_VALUE;
+        for (long day = start.toEpochDay(); day <= end.toEpochDay() + 1; day++) {
+            boolean cold = day <= end.toEpochDay() && !slot(day).holds(day);
+            if (cold && runStart == Long.MIN_VALUE) {
+                runStart = day;
+            } else if (!cold && runStart != Long.MIN_VALUE) {
+                fill(runStart, day - 1);
+                runStart = Long.MIN_VALUE;
+            }
+        }
+    }
+
+    private void fill(long fromDay, long toDay) {
+        for (long day = fromDay; day <= toDay; day++) {
+            Slot slot = slot(day);
+            slot.day = day;
+            slot.subscriptions = new ArrayList<>();
+        }
+        for (ExpiringSubscription subscription : subscriptionRepository.findExpiringBetween(
+                LocalDate.ofEpochDay(fromDay), LocalDate.ofEpochDay(toDay))) {
+            slot(subscription.getEndDate().toEpochDay()).subscriptions.add(subscription);
+        }
+    }
+
+    private Slot slot(long day) {
+        return wheel[(int) Math.floorMod(day, (long) wheel.length)];
+    }
+
+    private LocalDate firstDay() {
+        return LocalDate.now(clock).minusDays(1);
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static final class Slot {
+
+        long day = Long.MIN_VALUE;
+        /* Null until loaded for day */
+        List<ExpiringSubscription> subscriptions;
+
+        boolean holds(long day) {
+            return this.day == day && subscriptions != null;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.SubscriptionRevenue;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Running price sum and subscription count per {@link TypeSubscription}, kept up to date by the
+ * services that create or change subscriptions and periodically reconciled against the database.
+ */
+@Slf4j
+@Component
+public class SubscriptionRevenueAggregate {
+
+    private final Map<TypeSubscription, AtomicReference<Totals>> totals = new EnumMap<>(TypeSubscription.class);
+
+    private final Map<TypeSubscription, DistributionSummary> prices = new EnumMap<>(TypeSubscription.class);
+
+    private final ISubscriptionRepository subscriptionRepository;
+
+    public SubscriptionRevenueAggregate(ISubscriptionRepository subscriptionRepository, MeterRegistry meterRegistry) {
+        this.subscriptionRepository = subscriptionRepository;
+        for (TypeSubscription type : TypeSubscription.values()) {
+            totals.put(type, new AtomicReference<>(Totals.EMPTY));
+            Gauge.builder("ski.subscriptions.revenue.average", this, aggregate -> aggregate.averagePrice(type))
+                    .description("Average subscription price per subscription type")
+                    .tag("type", type.name())
+                    .register(meterRegistry);
+            prices.put(type, DistributionSummary.builder("ski.subscriptions.price")
+                    .description("Price of new subscriptions per subscription type")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("ski.subscriptions.mrr", this, SubscriptionRevenueAggregate::monthlyRecurringRevenue)
+                .description("Monthly recurring revenue")
+                .register(meterRegistry);
+    }
+
+    public void record(TypeSubscription type, Float price) {
+        if (type != null) {
+            add(type, valueOf(price), 1);
+            prices.get(type).record(valueOf(price));
+        }
+    }
+
+    public void replace(TypeSubscription oldType, Float oldPrice, TypeSubscription newType, Float newPrice) {
+        if (oldType != null) {
+            add(oldType, -valueOf(oldPrice), -1);
+        }
+        if (newType != null) {
+            add(newType, valueOf(newPrice), 1);
+        }
+    }
+
+    public void remove(TypeSubscription type, Float price) {
+        replace(type, price, null, null);
+    }
+
+    private void add(TypeSubscription type, double sum, long count) {
+        totals.get(type).accumulateAndGet(new Totals(sum, count), Totals::plus);
+    }
+
+    public double averagePrice(TypeSubscription type) {
+        return totals.get(type).get().average();
+    }
+
+    public double monthlyRecurringRevenue() {
+        return averagePrice(TypeSubscription.MONTHLY)
+                + averagePrice(TypeSubscription.SEMESTRIEL) / 6
+                + averagePrice(TypeSubscription.ANNUAL) / 12;
+    }
+
+    /* Writes racing with the reconciliation query are corrected on the next run */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${ski.revenue.reconcile-delay-ms:600000}")
+    public void reconcile() {
+        Map<TypeSubscription, Totals> fresh = new EnumMap<>(TypeSubscription.class);
+        for (SubscriptionRevenue revenue : subscriptionRepository.revenueByTypeSub()) {
+            if (revenue.getTypeSub() != null) {
+                fresh.put(revenue.getTypeSub(), new Totals(valueOf(revenue.getTotal()), revenue.getSubscriptions()));
+            }
+        }
+        for (TypeSubscription type : TypeSubscription.values()) {
+            Totals current = fresh.getOrDefault(type, Totals.EMPTY);
+            Totals previous = totals.get(type).getAndSet(current);
+            if (previous.count != current.count) {
+                log.info("Revenue aggregate for {} reconciled from {} to {} subscriptions",
+                        type, previous.count, current.count);
+            }
+        }
+    }
+
+    private static double valueOf(Number value) {
+        return value == null ? 0 : value.doubleValue();
+    }
+
+    private static final class Totals {
+
+        static final Totals EMPTY = new Totals(0, 0);
+
+        final double sum;
+        final long count;
+
+        Totals(double sum, long count) {
+            this.sum = sum;
+            this.count = count;
+        }
+
+        Totals plus(Totals other) {
+            return new Totals(sum + other.sum, count + other.count);
+        }
+
+        double average() {
+            return count == 0 ? 0 : sum / count;
+        }
+    }
+}
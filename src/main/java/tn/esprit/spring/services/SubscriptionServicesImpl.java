@@ -1,47 +1,121 @@
 package tn.esprit.spring.services;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import tn.esprit.spring.entities.Skier;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.ExpiredSubscription;
+import tn.esprit.spring.dto.ExpiringSubscription;
+import tn.esprit.spring.dto.SubscriptionPatch;
+import tn.esprit.spring.entities.JobCheckpoint;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
-import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.repositories.IJobCheckpointRepository;
 import tn.esprit.spring.repositories.ISubscriptionRepository;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @AllArgsConstructor
 @Service
 public class SubscriptionServicesImpl implements ISubscriptionServices{
 
+    private static final String EXPIRY_JOB = "subscription-expiry";
+    private static final int EXPIRY_CHUNK_SIZE = 500;
+    private static final LocalDate EXPIRY_EPOCH = LocalDate.of(1970, 1, 1);
+
     private ISubscriptionRepository subscriptionRepository;
 
-    private ISkierRepository skierRepository;
+    private IJobCheckpointRepository jobCheckpointRepository;
+
+    private SubscriptionRevenueAggregate revenueAggregate;
+
+    private MeterRegistry meterRegistry;
+
+    private SubscriptionExpiryIndex expiryIndex;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private ConflictRetry conflictRetry;
 
     @Override
     public Subscription addSubscription(Subscription subscription) {
-        switch (subscription.getTypeSub()) {
-            case ANNUAL:
-                subscription.setEndDate(subscription.getStartDate().plusYears(1));
-                break;
-            case SEMESTRIEL:
-                subscription.setEndDate(subscription.getStartDate().plusMonths(6));
-                break;
-            case MONTHLY:
-                subscription.setEndDate(subscription.getStartDate().plusMonths(1));
-                break;
-        }
-        return subscriptionRepository.save(subscription);
+        subscription.setEndDate(subscription.getTypeSub().endDate(subscription.getStartDate()));
+        Subscription savedSubscription = subscriptionRepository.save(subscription);
+        revenueAggregate.record(savedSubscription.getTypeSub(), savedSubscription.getPrice());
+        expiryIndex.invalidate(savedSubscription.getEndDate());
+        return savedSubscription;
     }
 
+    /*
+     * The merge finds the subscription read for the totals in the persistence context instead of reading it
+     * again. A body without a version applies to the stored one.
+     */
+    @Transactional
     @Override
     public Subscription updateSubscription(Subscription subscription) {
-        return subscriptionRepository.save(subscription);
+        Subscription previous = subscription.getNumSub() == null ? null
+                : subscriptionRepository.findById(subscription.getNumSub()).orElse(null);
+        TypeSubscription previousType = previous == null ? null : previous.getTypeSub();
+        Float previousPrice = previous == null ? null : previous.getPrice();
+        LocalDate previousEndDate = previous == null ? null : previous.getEndDate();
+        if (subscription.getNumSub() != null && subscription.getVersion() == null) {
+            subscription.setVersion(previous == null ? Long.valueOf(0L) : previous.getVersion());
+        }
+        Subscription savedSubscription = subscriptionRepository.save(subscription);
+        afterUpdate(previousType, previousPrice, previousEndDate, savedSubscription);
+        return savedSubscription;
+    }
+
+    @Override
+    public Subscription patchSubscription(Long numSub, SubscriptionPatch patch) {
+        AtomicReference<Subscription> previous = new AtomicReference<>();
+        Subscription patched = conflictRetry.run(() -> {
+            Subscription subscription = subscriptionRepository.findById(numSub).orElse(null);
+            if (subscription == null) {
+                return null;
+            }
+            VersionConflictException.check(Subscription.class, numSub, patch.getVersion(), subscription.getVersion());
+            previous.set(new Subscription(numSub, subscription.getStartDate(), subscription.getEndDate(),
+                    subscription.getPrice(), subscription.getTypeSub(), subscription.getVersion()));
+            if (patch.getStartDate() != null) {
+                subscription.setStartDate(patch.getStartDate());
+            }
+            if (patch.getTypeSub() != null) {
+                subscription.setTypeSub(patch.getTypeSub());
+            }
+            if (patch.getPrice() != null) {
+                subscription.setPrice(patch.getPrice());
+            }
+            if (patch.getEndDate() != null) {
+                subscription.setEndDate(patch.getEndDate());
+            } else if ((patch.getStartDate() != null || patch.getTypeSub() != null) && subscription.getTypeSub() != null) {
+                subscription.setEndDate(subscription.getTypeSub().endDate(subscription.getStartDate()));
+            }
+            return subscription;
+        });
+        if (patched != null) {
+            afterUpdate(previous.get().getTypeSub(), previous.get().getPrice(), previous.get().getEndDate(), patched);
+        }
+        return patched;
+    }
+
+    private void afterUpdate(TypeSubscription previousType, Float previousPrice, LocalDate previousEndDate,
+                             Subscription saved) {
+        AfterCommit.run(() -> {
+            revenueAggregate.replace(previousType, previousPrice, saved.getTypeSub(), saved.getPrice());
+            expiryIndex.invalidate(previousEndDate);
+            expiryIndex.invalidate(saved.getEndDate());
+        });
     }
 
     @Override
@@ -60,21 +134,63 @@ public class SubscriptionServicesImpl implements ISubscriptionServices{
     }
 
     @Override
-    @Scheduled(cron = "*/30 * * * * *") /* Cron expression to run a job every 30 secondes */
+    public List<ExpiringSubscription> retrieveSubscriptionsExpiringWithin(int days) {
+        return expiryIndex.expiringWithin(days);
+    }
+
+    @Override
+    public List<ExpiringSubscription> retrieveSubscriptionsExpiredToday() {
+        return expiryIndex.expiredToday();
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 0 * * *") /* Cron expression to run a job every day at midnight */
     public void retrieveSubscriptions() {
-        for (Subscription sub: subscriptionRepository.findDistinctOrderByEndDateAsc()) {
-            Skier   aSkier = skierRepository.findBySubscription(sub);
-            log.info(sub.getNumSub().toString() + " | "+ sub.getEndDate().toString()
-                    + " | "+ aSkier.getFirstName() + " " + aSkier.getLastName());
+        // A subscription is reported once, the day after its last valid day; the high-water mark
+        // is the latest end date already reported, so each run only reads the new window.
+        LocalDate until = LocalDate.now().minusDays(1);
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(EXPIRY_JOB)
+                .orElse(new JobCheckpoint(EXPIRY_JOB, EXPIRY_EPOCH));
+        if (!checkpoint.getHighWaterMark().isBefore(until)) {
+            return;
         }
+
+        // Days before yesterday are only left after downtime: catch up from end_date, chunk by chunk
+        long expired = 0;
+        LocalDate caughtUp = until.minusDays(1);
+        if (checkpoint.getHighWaterMark().isBefore(caughtUp)) {
+            Long afterNumSub = 0L;
+            List<ExpiredSubscription> chunk;
+            do {
+                chunk = subscriptionRepository.findExpiredSubscriptions(checkpoint.getHighWaterMark(), caughtUp,
+                        afterNumSub, PageRequest.of(0, EXPIRY_CHUNK_SIZE));
+                for (ExpiredSubscription sub : chunk) {
+                    expire(sub);
+                    afterNumSub = sub.getNumSub();
+                }
+                expired += chunk.size();
+            } while (chunk.size() == EXPIRY_CHUNK_SIZE);
+        }
+        // Yesterday's come from the expiry index: no query when its slot was already read
+        for (ExpiringSubscription sub : expiryIndex.expiringBetween(until, until)) {
+            expire(sub);
+            expired++;
+        }
+        meterRegistry.counter("ski.subscriptions.expired").increment(expired);
+
+        checkpoint.setHighWaterMark(until);
+        jobCheckpointRepository.save(checkpoint);
+    }
+
+    private void expire(ExpiredSubscription sub) {
+        log.info("{} | {} | {} {}", sub.getNumSub(), sub.getEndDate(), sub.getFirstName(), sub.getLastName());
+        eventPublisher.publishEvent(new SubscriptionExpiredEvent(sub));
     }
 
    // @Scheduled(cron = "* 0 9 1 * *") /* Cron expression to run a job every month at 9am */
     @Scheduled(cron = "*/30 * * * * *") /* Cron expression to run a job every 30 secondes */
     public void showMonthlyRecurringRevenue() {
-        Float revenue = subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.MONTHLY)
-                + subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.SEMESTRIEL)/6
-                + subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.ANNUAL)/12;
-        log.info("Monthly Revenue = " + revenue);
+        log.info("Monthly Revenue = {}", revenueAggregate.monthlyRecurringRevenue());
     }
 }
@@ -0,0 +1,53 @@
+package tn.esprit.spring.services;
+
+import java.util.concurrent.TimeUnit;
+
+/* Refills ratePerSecond tokens a second, up to burst; a take either gets all its tokens or none */
+final class TokenBucket {
+
+    private final double burst;
+    private final double tokensPerNano;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double ratePerSecond, double burst, long now) {
+        this.burst = burst;
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = burst;
+        this.refilledAt = now;
+    }
+
+    synchronized boolean tryTake(double count, long now) {
+        refill(now);
+        if (tokens < count) {
+            return false;
+        }
+        tokens -= count;
+        return true;
+    }
+
+    /* How long until count tokens are available, 0 if they are */
+    synchronized long nanosUntil(double count, long now) {
+        refill(now);
+        double missing = Math.min(count, burst) - tokens;
+        return missing <= 0 ? 0 : (long) Math.ceil(missing / tokensPerNano);
+    }
+
+    synchronized double available(long now) {
+        refill(now);
+        return tokens;
+    }
+
+    /* Full again: the client has been idle for at least burst / rate */
+    synchronized boolean isFull(long now) {
+        refill(now);
+        return tokens >= burst;
+    }
+
+    private void refill(long now) {
+        if (now > refilledAt) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package tn.esprit.spring.services;
+
+/* A partial update asked for a version of the entity that is not the current one anymore */
+public class VersionConflictException extends RuntimeException {
+
+    public VersionConflictException(Class<?> entity, Object id, long expected, Long current) {
+        super(entity.getSimpleName() + " " + id + " is at version " + current + ", not " + expected);
+    }
+
+    static void check(Class<?> entity, Object id, Long expected, Long current) {
+        if (expected != null && !expected.equals(current)) {
+            throw new VersionConflictException(entity, id, expected, current);
+        }
+    }
+}
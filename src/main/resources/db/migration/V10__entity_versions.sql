@@ -0,0 +1,6 @@
+-- Optimistic locking: the mutable reference entities carry a version, checked and incremented by every
+-- UPDATE hibernate issues for them, so concurrent edits fail instead of overwriting each other.
+
+alter table course add column version bigint not null default 0;
+alter table instructor add column version bigint not null default 0;
+alter table subscription add column version bigint not null default 0;
@@ -0,0 +1,7 @@
+-- High-water mark of the subscription expiry job (JobCheckpoint), so a run only scans what is new.
+
+create table job_checkpoint (
+    job_name varchar(255) not null,
+    high_water_mark date,
+    primary key (job_name)
+);
@@ -0,0 +1,29 @@
+-- Collective registrations hold a numbered seat handed out by CourseCapacityRegistry. The unique keys make the
+-- database refuse a second registration of a skier to the same course week, and two holders of one seat.
+
+alter table registration add column seat integer;
+
+-- Nothing guarded registrations before: keep the first of each (skier, course, week) so the key can be added.
+-- The derived tables are materialized, MySQL refuses a subquery reading the table being changed otherwise.
+delete from registration
+where skier_num_skier is not null and course_num_course is not null
+  and num_registration not in (
+    select kept.num_registration from (
+        select min(num_registration) as num_registration from registration
+        group by skier_num_skier, course_num_course, num_week) kept);
+
+-- Existing collective registrations take seats 1 to 6 (CourseCapacityRegistry.COLLECTIVE_CAPACITY) in
+-- registration order; rows past the capacity stay without a seat and count as taken places on warm-up.
+update registration
+set seat = (
+    select count(*) from (
+        select num_registration, course_num_course, num_week from registration) earlier
+    where earlier.course_num_course = registration.course_num_course
+      and earlier.num_week = registration.num_week
+      and earlier.num_registration <= registration.num_registration)
+where course_num_course in (select num_course from course where type_course <> 'INDIVIDUAL');
+
+update registration set seat = null where seat > 6;
+
+alter table registration add constraint uk_registration_skier_course_week unique (skier_num_skier, course_num_course, num_week);
+alter table registration add constraint uk_registration_course_week_seat unique (course_num_course, num_week, seat);
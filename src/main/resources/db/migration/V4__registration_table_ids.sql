@@ -0,0 +1,13 @@
+-- Registration ids move from IDENTITY to the id_generator table so that hibernate can batch their inserts
+-- (bulk registration). The pooled optimizer hands out (next_val - 49 .. next_val), so the row starts one
+-- allocation above the highest existing id. num_registration keeps its auto_increment: every insert now
+-- carries its id, and altering the column is not portable to H2.
+
+create table id_generator (
+    sequence_name varchar(255) not null,
+    next_val bigint,
+    primary key (sequence_name)
+);
+
+insert into id_generator (sequence_name, next_val)
+select 'registration', coalesce(max(num_registration), 0) + 50 from registration;
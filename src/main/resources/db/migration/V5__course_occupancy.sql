@@ -0,0 +1,15 @@
+-- Registered seats per course and week, kept next to the course type and support so that availability
+-- searches read this table alone. Rows are filled in by CourseServicesImpl on startup and kept up to date
+-- by every registration.
+
+create table course_occupancy (
+    num_course bigint not null,
+    num_week integer not null,
+    capacity integer not null,
+    registered integer not null,
+    support varchar(255),
+    type_course varchar(255),
+    primary key (num_course, num_week)
+);
+
+create index idx_course_occupancy_week_type_support on course_occupancy (num_week, type_course, support);
@@ -0,0 +1,15 @@
+-- One index per repository lookup that had none.
+-- Registration lookups by (skier, course, week) and (course, week) are already served by
+-- uk_registration_skier_course_week and uk_registration_course_week_seat.
+
+-- ISubscriptionRepository.findByTypeSubOrderByStartDateAsc, recurringRevenueByTypeSubEquals
+create index idx_subscription_type_start on subscription (type_sub, start_date);
+
+-- ISubscriptionRepository.getSubscriptionsByStartDateBetween
+create index idx_subscription_start on subscription (start_date);
+
+-- ISubscriptionRepository.findDistinctOrderByEndDateAsc, findExpiredSubscriptions
+create index idx_subscription_end on subscription (end_date);
+
+-- ISkierRepository.findBySubscription, findBySubscription_TypeSub, findExpiredSubscriptions
+create index idx_skier_subscription on skier (subscription_num_sub);
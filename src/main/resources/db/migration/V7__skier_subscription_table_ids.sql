@@ -0,0 +1,6 @@
+-- Skier and Subscription ids move from IDENTITY to the id_generator table so that hibernate can
+-- batch their inserts (bulk import). The pooled optimizer hands out (next_val - 49 .. next_val),
+-- so each row starts one allocation above the highest existing id.
+
+insert into id_generator (sequence_name, next_val) select 'skier', coalesce(max(num_skier), 0) + 50 from skier;
+insert into id_generator (sequence_name, next_val) select 'subscription', coalesce(max(num_sub), 0) + 50 from subscription;
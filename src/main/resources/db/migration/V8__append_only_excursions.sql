@@ -0,0 +1,24 @@
+-- Excursions become an append-only log of lift-gate scans written by ExcursionWriter: one row per
+-- scan instead of one per (skier, piste) pair.
+-- Existing pairs are kept, stamped with the migration time.
+
+create table excursion_log (
+    num_excursion bigint not null auto_increment,
+    num_skier bigint not null,
+    num_piste bigint not null,
+    scanned_at datetime(3) not null,
+    primary key (num_excursion)
+);
+
+insert into excursion_log (num_skier, num_piste, scanned_at)
+select num_skier, num_piste, current_timestamp from excursion;
+
+drop table excursion;
+
+alter table excursion_log rename to excursion;
+
+create index idx_excursion_skier_scanned on excursion (num_skier, scanned_at);
+create index idx_excursion_piste_scanned on excursion (num_piste, scanned_at);
+
+alter table excursion add constraint fk_excursion_skier foreign key (num_skier) references skier (num_skier);
+alter table excursion add constraint fk_excursion_piste foreign key (num_piste) references piste (num_piste);
@@ -0,0 +1,14 @@
+-- Responses of writes sent with an Idempotency-Key, kept by IdempotencyStore when ski.idempotency.persistent
+-- is set. A row without status is a claim: the first request with the key is still running.
+
+create table idempotency_key (
+    idem_key varchar(255) not null,
+    created_at datetime(3) not null,
+    fingerprint char(64),
+    status int,
+    content_type varchar(255),
+    body longblob,
+    primary key (idem_key)
+);
+
+create index idx_idempotency_key_created on idempotency_key (created_at);
@@ -0,0 +1,70 @@
+package tn.esprit.spring.configs;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlSamplingTurboFilterTest {
+
+    private SqlSamplingTurboFilter filter;
+    private Logger sqlLogger;
+    private Logger otherLogger;
+
+    @BeforeEach
+    void setUp() {
+        LoggerContext context = new LoggerContext();
+        sqlLogger = context.getLogger("org.hibernate.SQL");
+        sqlLogger.setLevel(Level.DEBUG);
+        otherLogger = context.getLogger("tn.esprit.spring.services");
+        filter = new SqlSamplingTurboFilter();
+        filter.setSampleRate(10);
+        filter.setMaxPerSecond(1000);
+    }
+
+    @Test
+    void testDecide_samplesOneStatementInRate() {
+        // Act
+        int admitted = 0;
+        for (int i = 0; i < 100; i++) {
+            if (filter.decide(null, sqlLogger, Level.DEBUG, "select 1", null, null) == FilterReply.NEUTRAL) {
+                admitted++;
+            }
+        }
+
+        // Assert
+        assertEquals(10, admitted);
+    }
+
+    @Test
+    void testDecide_capsAdmittedStatementsPerSecond() {
+        // Arrange
+        filter.setSampleRate(1);
+        filter.setMaxPerSecond(5);
+
+        // Act
+        int admitted = 0;
+        for (int i = 0; i < 100; i++) {
+            if (filter.decide(null, sqlLogger, Level.DEBUG, "select 1", null, null) == FilterReply.NEUTRAL) {
+                admitted++;
+            }
+        }
+
+        // Assert: at most one second boundary can be crossed during the loop
+        assertTrue(admitted >= 5 && admitted <= 10);
+    }
+
+    @Test
+    void testDecide_leavesLevelChecksAndOtherLoggersAlone() {
+        // Act & Assert
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, sqlLogger, Level.DEBUG, null, null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, otherLogger, Level.INFO, "message", null, null));
+        sqlLogger.setLevel(Level.WARN);
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, sqlLogger, Level.DEBUG, "select 1", null, null));
+    }
+}
@@ -0,0 +1,110 @@
+package tn.esprit.spring.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tn.esprit.spring.configs.CatalogServerConfig;
+import tn.esprit.spring.dto.CourseView;
+import tn.esprit.spring.dto.SubscriptionView;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ICourseViewRepository;
+import tn.esprit.spring.repositories.IPisteViewRepository;
+import tn.esprit.spring.repositories.ISubscriptionViewRepository;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CatalogHandlerTest {
+
+    @Mock
+    private ICourseViewRepository courseViewRepository;
+
+    @Mock
+    private IPisteViewRepository pisteViewRepository;
+
+    @Mock
+    private ISubscriptionViewRepository subscriptionViewRepository;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        CatalogHandler handler = new CatalogHandler(courseViewRepository, pisteViewRepository, subscriptionViewRepository);
+        client = WebTestClient.bindToRouterFunction(new CatalogServerConfig().catalogRoutes(handler)).build();
+    }
+
+    @Test
+    void testStreamCourses_oneDocumentPerLine() {
+        // Arrange
+        when(courseViewRepository.findAllByOrderByNumCourseAsc()).thenReturn(Flux.just(
+                new CourseView(1L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 120f, 2, 0),
+                new CourseView(2L, 2, TypeCourse.INDIVIDUAL, Support.SNOWBOARD, 90f, 1, 0)));
+
+        // Act & Assert
+        client.get().uri("/api/course/all/stream").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).value(body -> {
+                    String[] lines = body.trim().split("\n");
+                    assertEquals(2, lines.length);
+                    assertTrue(lines[1].contains("\"numCourse\":2"));
+                });
+    }
+
+    @Test
+    void testCoursesPage_clampsSize() {
+        // Arrange
+        when(courseViewRepository.findByNumCourseGreaterThanOrderByNumCourseAsc(5L, PageRequest.of(0, 500))).thenReturn(Flux.empty());
+
+        // Act & Assert
+        client.get().uri("/api/course/all/page?after=5&size=10000").exchange()
+                .expectStatus().isOk()
+                .expectBody().json("[]");
+        verify(courseViewRepository, times(1)).findByNumCourseGreaterThanOrderByNumCourseAsc(5L, PageRequest.of(0, 500));
+    }
+
+    @Test
+    void testCourse_notFound() {
+        // Arrange
+        when(courseViewRepository.findById(9L)).thenReturn(Mono.empty());
+
+        // Act & Assert
+        client.get().uri("/api/course/get/9").exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testSubscriptionsByType() {
+        // Arrange
+        when(subscriptionViewRepository.findByTypeSubOrderByStartDateAsc(TypeSubscription.MONTHLY)).thenReturn(Flux.just(
+                new SubscriptionView(4L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1), 60f, TypeSubscription.MONTHLY, 0)));
+
+        // Act & Assert
+        client.get().uri("/api/subscription/all/MONTHLY").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].numSub").isEqualTo(4)
+                .jsonPath("$[0].typeSub").isEqualTo("MONTHLY");
+    }
+
+    @Test
+    void testMalformedParameters_badRequest() {
+        // Act & Assert
+        client.get().uri("/api/course/get/abc").exchange().expectStatus().isBadRequest();
+        client.get().uri("/api/piste/all/page?size=ten").exchange().expectStatus().isBadRequest();
+        client.get().uri("/api/subscription/all/WEEKLY").exchange().expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").exists();
+        client.get().uri("/api/subscription/all/2024-01-01/2024-13-01").exchange().expectStatus().isBadRequest();
+        verifyNoInteractions(courseViewRepository, pisteViewRepository, subscriptionViewRepository);
+    }
+}
@@ -0,0 +1,141 @@
+package tn.esprit.spring.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+import tn.esprit.spring.services.IdempotencyStore;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class IdempotencyFilterTest {
+
+    private final IdempotencyStore store = new IdempotencyStore(mock(JdbcTemplate.class), 60_000, 100, false, 1000);
+    private final IdempotencyFilter filter = new IdempotencyFilter(store, new ObjectMapper(),
+            Arrays.asList("/registration/", "/skier/"));
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private int status = 200;
+
+    /* Echoes the body it read, numbered by call */
+    private final HttpServlet controller = new HttpServlet() {
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            String body = StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
+            response.setStatus(status);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"call\":" + calls.incrementAndGet() + ",\"body\":" + body + "}");
+        }
+    };
+
+    @Test
+    void testRetry_replaysTheFirstResponseWithoutRunningAgain() throws Exception {
+        // Arrange
+        MockHttpServletResponse first = send("key-1", "/registration/addAndAssignToSkierAndCourse/1/2", "{\"numWeek\":3}");
+
+        // Act
+        MockHttpServletResponse retry = send("key-1", "/registration/addAndAssignToSkierAndCourse/1/2", "{\"numWeek\":3}");
+
+        // Assert
+        assertEquals(1, calls.get());
+        assertEquals(200, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, retry.getContentType());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED));
+    }
+
+    @Test
+    void testRetry_sameKeyOnAnotherRequestIsRejected() throws Exception {
+        // Arrange
+        send("key-1", "/registration/addAndAssignToSkierAndCourse/1/2", "{\"numWeek\":3}");
+
+        // Act
+        MockHttpServletResponse otherBody = send("key-1", "/registration/addAndAssignToSkierAndCourse/1/2", "{\"numWeek\":4}");
+        MockHttpServletResponse otherPath = send("key-1", "/registration/addAndAssignToSkierAndCourse/1/3", "{\"numWeek\":3}");
+
+        // Assert
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), otherBody.getStatus());
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), otherPath.getStatus());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testRetry_whileTheFirstRequestRunsIsAConflict() throws Exception {
+        // Arrange
+        store.claim("key-1");
+
+        // Act
+        MockHttpServletResponse retry = send("key-1", "/skier/add", "{}");
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT.value(), retry.getStatus());
+        assertEquals("1", retry.getHeader("Retry-After"));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void testRetry_afterAFailureRunsAgain() throws Exception {
+        // Arrange
+        status = 503;
+        send("key-1", "/skier/add", "{}");
+        status = 200;
+
+        // Act
+        MockHttpServletResponse retry = send("key-1", "/skier/add", "{}");
+
+        // Assert
+        assertEquals(200, retry.getStatus());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testFilter_requestsWithoutKeyOrOutsideThePathsAlwaysRun() throws Exception {
+        // Act
+        send(null, "/skier/add", "{}");
+        send(null, "/skier/add", "{}");
+        send("key-1", "/piste/add", "{}");
+        send("key-1", "/piste/add", "{}");
+
+        // Assert
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void testFilter_oversizedKeyIsABadRequest() throws Exception {
+        // Act
+        MockHttpServletResponse response = send(new String(new char[256]).replace('\0', 'k'), "/skier/add", "{}");
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+        assertEquals(0, calls.get());
+    }
+
+    private MockHttpServletResponse send(String key, String path, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api" + path);
+        request.setContextPath("/api");
+        request.setServletPath(path);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, key);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(controller));
+        return response;
+    }
+}
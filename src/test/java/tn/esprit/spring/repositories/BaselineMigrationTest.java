@@ -0,0 +1,94 @@
+package tn.esprit.spring.repositories;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A database built by ddl-auto=update before Flyway, with rows in it, baselined at V1 as
+ * spring.flyway.baseline-on-migrate does in production, then migrated to the latest version.
+ */
+class BaselineMigrationTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Arrange: the pre-Flyway schema, without a flyway_schema_history table, holding data
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:baseline-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline_schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("insert into subscription (num_sub, type_sub) values (7, 0)");
+        jdbcTemplate.update("insert into skier (num_skier, first_name, subscription_num_sub) values (12, 'a', 7)");
+        jdbcTemplate.update("insert into course (num_course, level, time_slot, type_course, support) values (3, 1, 1, 'COLLECTIVE_ADULT', 'SKI')");
+        jdbcTemplate.update("insert into piste (num_piste, length, slope) values (4, 100, 10)");
+        jdbcTemplate.update("insert into excursion (num_skier, num_piste) values (12, 4)");
+        jdbcTemplate.update("insert into registration (num_registration, num_week, course_num_course, skier_num_skier) values (230, 5, 3, 12)");
+    }
+
+    @Test
+    void testMigrate_fromBaselineAppliesEveryLaterVersion() {
+        // Act
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        // Assert
+        assertEquals(0, count("job_checkpoint"));
+        assertEquals(0, count("course_occupancy"));
+        assertEquals(0, count("idempotency_key"));
+        assertEquals(1, count("excursion"));
+        Map<String, Object> registration = jdbcTemplate.queryForMap("select seat, num_week from registration where num_registration = 230");
+        assertEquals(1, registration.get("SEAT"));
+        assertEquals(0L, jdbcTemplate.queryForObject("select version from course where num_course = 3", Long.class));
+    }
+
+    @Test
+    void testMigrate_seedsEveryGeneratorAboveTheExistingIds() {
+        // Act
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        // Assert
+        assertEquals(280L, nextVal("registration"));
+        assertEquals(62L, nextVal("skier"));
+        assertEquals(57L, nextVal("subscription"));
+    }
+
+    @Test
+    void testMigrate_dropsDuplicateRegistrationsAndNumbersCollectiveSeats() {
+        // Arrange: a second registration of skier 12, then seven more skiers in the same collective course week
+        jdbcTemplate.update("insert into course (num_course, level, time_slot, type_course, support) values (5, 1, 1, 'INDIVIDUAL', 'SKI')");
+        jdbcTemplate.update("insert into registration (num_registration, num_week, course_num_course, skier_num_skier) values (231, 5, 3, 12)");
+        for (int skier = 13; skier <= 19; skier++) {
+            jdbcTemplate.update("insert into skier (num_skier, first_name) values (?, 'b')", skier);
+            jdbcTemplate.update("insert into registration (num_registration, num_week, course_num_course, skier_num_skier) values (?, 5, 3, ?)",
+                    skier + 219, skier);
+        }
+        jdbcTemplate.update("insert into registration (num_registration, num_week, course_num_course, skier_num_skier) values (240, 5, 5, 12)");
+
+        // Act
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        // Assert
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from registration where num_registration = 231", Integer.class));
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, null, null), jdbcTemplate.queryForList(
+                "select seat from registration where course_num_course = 3 order by num_registration", Integer.class));
+        assertNull(jdbcTemplate.queryForObject("select seat from registration where num_registration = 240", Integer.class));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Integer.class);
+    }
+
+    private Long nextVal(String sequenceName) {
+        return jdbcTemplate.queryForObject("select next_val from id_generator where sequence_name = ?", Long.class, sequenceName);
+    }
+}
@@ -0,0 +1,86 @@
+package tn.esprit.spring.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+import tn.esprit.spring.configs.R2dbcConfig;
+import tn.esprit.spring.dto.CourseView;
+import tn.esprit.spring.dto.SubscriptionView;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataR2dbcTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///catalog?options=DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.flyway.url=jdbc:h2:mem:catalog;DB_CLOSE_DELAY=-1",
+        "spring.flyway.user=sa"})
+@Import(R2dbcConfig.class)
+class CatalogViewRepositoryTest {
+
+    @Autowired
+    private ICourseViewRepository courseViewRepository;
+
+    @Autowired
+    private ISubscriptionViewRepository subscriptionViewRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeEach
+    void setUp() {
+        databaseClient.sql("delete from course").then()
+                .then(databaseClient.sql("delete from subscription").then())
+                .then(databaseClient.sql("insert into course (num_course, level, type_course, support, price, time_slot) values " +
+                        "(1, 1, 'COLLECTIVE_ADULT', 'SKI', 120, 2), (2, 2, 'INDIVIDUAL', 'SNOWBOARD', 90, 1), (3, 3, 'COLLECTIVE_CHILDREN', 'SKI', 80, 1)").then())
+                .then(databaseClient.sql("insert into subscription (num_sub, start_date, end_date, price, type_sub) values " +
+                        "(1, '2024-02-01', '2025-02-01', 500, 0), (2, '2024-01-01', '2024-02-01', 60, 1), (3, '2024-01-15', '2025-01-15', 450, 0)").then())
+                .block();
+    }
+
+    @Test
+    void testCoursesPage_keysetAndLimit() {
+        StepVerifier.create(courseViewRepository.findByNumCourseGreaterThanOrderByNumCourseAsc(1L, PageRequest.of(0, 1)))
+                .assertNext(course -> {
+                    assertEquals(2L, course.getNumCourse());
+                    assertEquals(TypeCourse.INDIVIDUAL, course.getTypeCourse());
+                    assertEquals(Support.SNOWBOARD, course.getSupport());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testStreamCourses_ordered() {
+        StepVerifier.create(courseViewRepository.findAllByOrderByNumCourseAsc().map(CourseView::getNumCourse))
+                .expectNext(1L, 2L, 3L)
+                .verifyComplete();
+    }
+
+    @Test
+    void testSubscriptionsByType_bindsAndReadsOrdinal() {
+        StepVerifier.create(subscriptionViewRepository.findByTypeSubOrderByStartDateAsc(TypeSubscription.ANNUAL))
+                .assertNext(subscription -> {
+                    assertEquals(3L, subscription.getNumSub());
+                    assertEquals(TypeSubscription.ANNUAL, subscription.getTypeSub());
+                })
+                .assertNext(subscription -> assertEquals(1L, subscription.getNumSub()))
+                .verifyComplete();
+    }
+
+    @Test
+    void testSubscriptionsByDates() {
+        StepVerifier.create(subscriptionViewRepository.findByStartDateBetween(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31))
+                        .map(SubscriptionView::getNumSub).sort())
+                .expectNext(2L, 3L)
+                .verifyComplete();
+    }
+}
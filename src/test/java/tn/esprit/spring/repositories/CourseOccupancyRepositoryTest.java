@@ -0,0 +1,113 @@
+package tn.esprit.spring.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.CourseOccupancy;
+import tn.esprit.spring.entities.CourseWeek;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:occupancy;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CourseOccupancyRepositoryTest {
+
+    @Autowired
+    private ICourseOccupancyRepository occupancyRepository;
+
+    @Autowired
+    private ICourseRepository courseRepository;
+
+    @Autowired
+    private IRegistrationRepository registrationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        occupancyRepository.deleteAll();
+        registrationRepository.deleteAll();
+    }
+
+    @Test
+    void testIncrement_insertsThenAccumulates() {
+        transactionTemplate.execute(status -> occupancyRepository.increment(1L, 5, "COLLECTIVE_ADULT", "SKI", 1, 6));
+        transactionTemplate.execute(status -> occupancyRepository.increment(1L, 5, "COLLECTIVE_ADULT", "SKI", 2, 6));
+
+        CourseOccupancy occupancy = occupancyRepository.findById(new CourseWeek(1L, 5)).orElseThrow(AssertionError::new);
+        assertEquals(3, occupancy.getRegistered());
+        assertEquals(6, occupancy.getCapacity());
+        assertEquals(Support.SKI, occupancy.getSupport());
+    }
+
+    @Test
+    void testDecrement_neverGoesBelowZero() {
+        transactionTemplate.execute(status -> occupancyRepository.increment(1L, 5, "COLLECTIVE_ADULT", "SKI", 1, 6));
+
+        assertEquals(Integer.valueOf(1), transactionTemplate.execute(status -> occupancyRepository.decrement(1L, 5, 1)));
+        assertEquals(Integer.valueOf(0), transactionTemplate.execute(status -> occupancyRepository.decrement(1L, 5, 1)));
+
+        assertEquals(0, occupancyRepository.findById(new CourseWeek(1L, 5)).orElseThrow(AssertionError::new).getRegistered());
+    }
+
+    @Test
+    void testUpdateCourse_relabelsEveryWeekOfTheCourse() {
+        transactionTemplate.execute(status -> {
+            occupancyRepository.increment(1L, 5, "COLLECTIVE_ADULT", "SKI", 1, 6);
+            occupancyRepository.increment(1L, 6, "COLLECTIVE_ADULT", "SKI", 1, 6);
+            return occupancyRepository.increment(2L, 5, "COLLECTIVE_ADULT", "SKI", 1, 6);
+        });
+
+        transactionTemplate.execute(status -> occupancyRepository.updateCourse(1L, "COLLECTIVE_CHILDREN", "SNOWBOARD"));
+
+        assertEquals(2, occupancyRepository.findByWeeks(1, 52, TypeCourse.COLLECTIVE_CHILDREN, Support.SNOWBOARD).size());
+        assertEquals(1, occupancyRepository.findByWeeks(1, 52, TypeCourse.COLLECTIVE_ADULT, Support.SKI).size());
+    }
+
+    @Test
+    void testFindByWeeks_filtersOnRangeTypeAndSupport() {
+        transactionTemplate.execute(status -> {
+            occupancyRepository.increment(1L, 5, "COLLECTIVE_ADULT", "SKI", 1, 6);
+            occupancyRepository.increment(2L, 6, "COLLECTIVE_CHILDREN", "SNOWBOARD", 1, 6);
+            return occupancyRepository.increment(1L, 9, "COLLECTIVE_ADULT", "SKI", 1, 6);
+        });
+
+        assertEquals(2, occupancyRepository.findByWeeks(5, 6, null, null).size());
+        List<CourseOccupancy> adults = occupancyRepository.findByWeeks(1, 52, TypeCourse.COLLECTIVE_ADULT, null);
+        assertEquals(2, adults.size());
+        assertTrue(occupancyRepository.findByWeeks(5, 6, null, Support.SNOWBOARD).stream().allMatch(o -> o.getNumCourse() == 2L));
+    }
+
+    @Test
+    void testBackfill_countsCollectiveRegistrations() {
+        Course collective = courseRepository.save(new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 120f, 2, null, null));
+        Course individual = courseRepository.save(new Course(null, 1, TypeCourse.INDIVIDUAL, Support.SKI, 200f, 2, null, null));
+        for (Course course : new Course[]{collective, collective, individual}) {
+            Registration registration = new Registration();
+            registration.setNumWeek(7);
+            registration.setCourse(course);
+            registrationRepository.save(registration);
+        }
+
+        transactionTemplate.execute(status -> occupancyRepository.backfill(6));
+
+        assertEquals(1, occupancyRepository.count());
+        assertEquals(2, occupancyRepository.findById(new CourseWeek(collective.getNumCourse(), 7))
+                .orElseThrow(AssertionError::new).getRegistered());
+    }
+}
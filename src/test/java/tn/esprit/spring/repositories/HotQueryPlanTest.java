@@ -0,0 +1,204 @@
+package tn.esprit.spring.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dto.ExpiredSubscription;
+import tn.esprit.spring.entities.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the SQL Hibernate generates for each hot repository method through EXPLAIN on H2 in MySQL
+ * mode, with the schema built by the Flyway migrations, and fails on any full table scan.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:plans;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=tn.esprit.spring.repositories.HotQueryPlanTest$RecordingInspector"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HotQueryPlanTest {
+
+    private static final int SKIERS = 200;
+
+    @Autowired
+    private IRegistrationRepository registrationRepository;
+
+    @Autowired
+    private ISubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private ISkierRepository skierRepository;
+
+    @Autowired
+    private ICourseRepository courseRepository;
+
+    @Autowired
+    private ICourseOccupancyRepository occupancyRepository;
+
+    @Autowired
+    private IInstructorRepository instructorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static Skier skier;
+    private static Course course;
+    private static Instructor instructor;
+
+    @BeforeEach
+    void setUp() {
+        if (skier != null) {
+            return;
+        }
+        List<Course> courses = courseRepository.saveAll(Arrays.asList(
+                new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 120f, 2, null, null),
+                new Course(null, 1, TypeCourse.COLLECTIVE_CHILDREN, Support.SNOWBOARD, 100f, 1, null, null)));
+        course = courses.get(0);
+        instructor = instructorRepository.save(new Instructor(null, "first", "last", LocalDate.of(2020, 1, 1), Collections.singleton(course), null));
+        List<Skier> skiers = new ArrayList<>();
+        for (int i = 0; i < SKIERS; i++) {
+            LocalDate start = LocalDate.of(2024, 1, 1).plusDays(i);
+            Subscription subscription = new Subscription(null, start, start.plusMonths(1 + i % 12), 100f + i,
+                    TypeSubscription.values()[i % TypeSubscription.values().length], null);
+            skiers.add(new Skier(null, "first" + i, "last" + i, LocalDate.of(1990, 1, 1), "city", subscription, null));
+        }
+        skiers = skierRepository.saveAll(skiers);
+        skier = skiers.get(0);
+        List<Registration> registrations = new ArrayList<>();
+        for (int i = 0; i < SKIERS; i++) {
+            registrations.add(new Registration(null, 1 + i % 52, null, skiers.get(i), courses.get(i % 2)));
+        }
+        registrationRepository.saveAll(registrations);
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    void testRegistrationDuplicateCheck_usesIndex() {
+        assertNoTableScan(() -> registrationRepository.countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(1, skier.getNumSkier(), course.getNumCourse()),
+                1, skier.getNumSkier(), course.getNumCourse());
+    }
+
+    @Test
+    void testRegistrationCountByCourseAndWeek_usesIndex() {
+        assertNoTableScan(() -> registrationRepository.countByCourseAndNumWeek(course, 1), course.getNumCourse(), 1);
+    }
+
+    @Test
+    void testRegistrationKeysBySkiersAndCourses_usesIndex() {
+        assertNoTableScan(() -> registrationRepository.findKeysBySkiersAndCourses(Collections.singleton(skier.getNumSkier()), Collections.singleton(course.getNumCourse())),
+                skier.getNumSkier(), course.getNumCourse());
+    }
+
+    @Test
+    void testSubscriptionsByType_usesIndex() {
+        assertNoTableScan(() -> subscriptionRepository.findByTypeSubOrderByStartDateAsc(TypeSubscription.ANNUAL), TypeSubscription.ANNUAL.ordinal());
+    }
+
+    @Test
+    void testRecurringRevenueByType_usesIndex() {
+        assertNoTableScan(() -> subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.ANNUAL), TypeSubscription.ANNUAL.ordinal());
+    }
+
+    @Test
+    void testSubscriptionsByStartDate_usesIndex() {
+        LocalDate from = LocalDate.of(2024, 2, 1);
+        LocalDate to = LocalDate.of(2024, 2, 7);
+        assertNoTableScan(() -> subscriptionRepository.getSubscriptionsByStartDateBetween(from, to), from, to);
+    }
+
+    @Test
+    void testExpiredSubscriptions_usesIndex() {
+        LocalDate since = LocalDate.of(2024, 3, 1);
+        LocalDate until = LocalDate.of(2024, 3, 2);
+        assertNoTableScan(() -> subscriptionRepository.findExpiredSubscriptions(since, until, 0L, PageRequest.of(0, 100)),
+                since, until, 0L, 100);
+    }
+
+    @Test
+    void testExpiredSubscriptions_includeThoseWithoutSkier() {
+        // Arrange
+        LocalDate end = LocalDate.of(2031, 5, 1);
+        Subscription unowned = subscriptionRepository.save(
+                new Subscription(null, end.minusYears(1), end, 500f, TypeSubscription.ANNUAL, null));
+
+        // Act
+        List<Long> expired = subscriptionRepository.findExpiredSubscriptions(end.minusDays(1), end, 0L, PageRequest.of(0, 100))
+                .stream().map(ExpiredSubscription::getNumSub).collect(Collectors.toList());
+        List<Long> expiring = subscriptionRepository.findExpiringBetween(end, end)
+                .stream().map(ExpiredSubscription::getNumSub).collect(Collectors.toList());
+
+        // Assert
+        assertEquals(Collections.singletonList(unowned.getNumSub()), expired);
+        assertEquals(expiring, expired);
+    }
+
+    @Test
+    void testExpiringSubscriptions_usesIndex() {
+        LocalDate from = LocalDate.of(2024, 3, 1);
+        LocalDate to = LocalDate.of(2024, 3, 7);
+        assertNoTableScan(() -> subscriptionRepository.findExpiringBetween(from, to), from, to);
+    }
+
+    @Test
+    void testSkierBySubscription_usesIndex() {
+        assertNoTableScan(() -> skierRepository.findBySubscription(skier.getSubscription()), skier.getSubscription().getNumSub());
+    }
+
+    @Test
+    void testOccupancyByWeeks_usesIndex() {
+        assertNoTableScan(() -> occupancyRepository.findByWeeks(5, 6, TypeCourse.COLLECTIVE_ADULT, null),
+                5, 6, TypeCourse.COLLECTIVE_ADULT.name(), TypeCourse.COLLECTIVE_ADULT.name(), null, null);
+    }
+
+    @Test
+    void testInstructorWeeksBySupport_distinctSortedAndIndexed() {
+        List<Integer> weeks = registrationRepository.numWeeksCourseOfInstructorBySupport(instructor.getNumInstructor(), Support.SKI);
+
+        assertEquals(IntStream.iterate(1, week -> week + 2).limit(26).boxed().collect(Collectors.toList()), weeks);
+        assertNoTableScan(() -> registrationRepository.numWeeksCourseOfInstructorBySupport(instructor.getNumInstructor(), Support.SKI),
+                instructor.getNumInstructor(), Support.SKI.name());
+    }
+
+    private void assertNoTableScan(Runnable query, Object... parameters) {
+        RecordingInspector.STATEMENTS.clear();
+        query.run();
+        assertFalse(RecordingInspector.STATEMENTS.isEmpty());
+        String sql = RecordingInspector.STATEMENTS.get(RecordingInspector.STATEMENTS.size() - 1);
+
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class, parameters);
+
+        assertFalse(plan.contains(".tableScan"), plan);
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package tn.esprit.spring.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.configs.DataSourceConfig;
+import tn.esprit.spring.entities.Registration;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Id blocks are taken on the id-generator pool: a transaction holding the only connection of the main
+ * pool can still insert more rows than one block covers.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idgenerator;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=1000",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(DataSourceConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdGeneratorPoolTest {
+
+    @Autowired
+    private IRegistrationRepository registrationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void testSaveAll_moreRowsThanOneBlockWithTheMainPoolExhausted() throws SQLException {
+        // Arrange
+        List<Registration> registrations = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            Registration registration = new Registration();
+            registration.setNumWeek(i);
+            registrations.add(registration);
+        }
+
+        // Act: the transaction gets the last connection of the main pool
+        try (Connection held = dataSource.getConnection()) {
+            transactionTemplate.executeWithoutResult(status -> registrationRepository.saveAll(registrations));
+        }
+
+        // Assert: the blocks hibernate's pooled table generator would have handed out from the V4 seed (50)
+        assertEquals(LongStream.rangeClosed(2, 121).boxed().collect(Collectors.toList()),
+                registrations.stream().map(Registration::getNumRegistration).collect(Collectors.toList()));
+        assertEquals(200L, jdbcTemplate.queryForObject(
+                "select next_val from id_generator where sequence_name = 'registration'", Long.class));
+    }
+}
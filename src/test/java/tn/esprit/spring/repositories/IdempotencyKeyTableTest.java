@@ -0,0 +1,108 @@
+package tn.esprit.spring.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.services.IdempotencyStore;
+import tn.esprit.spring.services.IdempotencyStore.StoredResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two persistent {@link IdempotencyStore}s on the same idempotency_key table, as two instances would be,
+ * with the schema built by the Flyway migrations.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyKeyTableTest {
+
+    private static final long TTL = 3_600_000;
+    private static final long CLAIM_TIMEOUT = 60_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private IdempotencyStore first;
+    private IdempotencyStore second;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from idempotency_key");
+        first = new IdempotencyStore(jdbcTemplate, TTL, 100, true, CLAIM_TIMEOUT);
+        second = new IdempotencyStore(jdbcTemplate, TTL, 100, true, CLAIM_TIMEOUT);
+    }
+
+    @Test
+    void testClaim_heldByAnotherInstanceIsInProgress() {
+        // Act
+        StoredResponse claimed = first.claim("key");
+        StoredResponse retry = second.claim("key");
+
+        // Assert
+        assertNull(claimed);
+        assertSame(StoredResponse.IN_PROGRESS, retry);
+    }
+
+    @Test
+    void testClaim_completedOnAnotherInstanceIsReplayed() {
+        // Arrange
+        first.claim("key");
+        first.complete("key", new StoredResponse("abc", 201, "application/json",
+                "{\"numRegistration\":7}".getBytes(StandardCharsets.UTF_8)));
+
+        // Act
+        StoredResponse retry = second.claim("key");
+
+        // Assert
+        assertEquals("abc", retry.getFingerprint());
+        assertEquals(201, retry.getStatus());
+        assertEquals("application/json", retry.getContentType());
+        assertEquals("{\"numRegistration\":7}", new String(retry.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testRelease_anotherInstanceCanRunIt() {
+        // Arrange
+        first.claim("key");
+        first.release("key");
+
+        // Act & Assert
+        assertNull(second.claim("key"));
+    }
+
+    @Test
+    void testClaim_abandonedClaimIsTakenOver() {
+        // Arrange: an instance died while running the first request
+        jdbcTemplate.update("insert into idempotency_key (idem_key, created_at) values (?, ?)", "key",
+                new Timestamp(System.currentTimeMillis() - 2 * CLAIM_TIMEOUT));
+
+        // Act & Assert
+        assertNull(first.claim("key"));
+        assertSame(StoredResponse.IN_PROGRESS, second.claim("key"));
+    }
+
+    @Test
+    void testPurge_dropsExpiredRows() {
+        // Arrange
+        jdbcTemplate.update("insert into idempotency_key (idem_key, created_at, fingerprint, status) values (?, ?, 'abc', 200)",
+                "old", new Timestamp(System.currentTimeMillis() - 2 * TTL));
+        first.claim("new");
+
+        // Act
+        first.purge();
+
+        // Assert
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from idempotency_key", Integer.class));
+    }
+}
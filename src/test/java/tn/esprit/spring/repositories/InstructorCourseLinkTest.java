@@ -0,0 +1,192 @@
+package tn.esprit.spring.repositories;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dto.CourseAssignment;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Instructor;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.services.ConflictRetry;
+import tn.esprit.spring.services.IInstructorServices;
+import tn.esprit.spring.services.InstructorServicesImpl;
+import tn.esprit.spring.services.InstructorWeeksCache;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(InstructorServicesImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InstructorCourseLinkTest {
+
+    @Autowired
+    private IInstructorRepository instructorRepository;
+
+    @Autowired
+    private ICourseRepository courseRepository;
+
+    @Autowired
+    private IInstructorServices instructorServices;
+
+    @MockBean
+    private InstructorWeeksCache instructorWeeksCache;
+
+    @MockBean
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testLinkCourses_oneStatementWhateverTheCollectionSize() {
+        // Arrange
+        Instructor junior = instructorRepository.save(instructor(courses(1)));
+        Instructor senior = instructorRepository.save(instructor(courses(200)));
+        Long first = courses(1).iterator().next().getNumCourse();
+        Long second = courses(1).iterator().next().getNumCourse();
+
+        // Act
+        statistics.clear();
+        int juniorLinked = transactionTemplate.execute(status -> instructorRepository.linkCourses(junior.getNumInstructor(), Collections.singleton(first)));
+        long juniorStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        int seniorLinked = transactionTemplate.execute(status -> instructorRepository.linkCourses(senior.getNumInstructor(), Collections.singleton(second)));
+        long seniorStatements = statistics.getPrepareStatementCount();
+
+        // Assert
+        assertEquals(1, juniorLinked);
+        assertEquals(1, seniorLinked);
+        assertEquals(1, juniorStatements);
+        assertEquals(1, seniorStatements);
+        assertEquals(201, coursesOf(senior).size());
+    }
+
+    @Test
+    void testLinkCourses_skipsTaughtAndUnknownCourses() {
+        // Arrange
+        Set<Course> taught = courses(2);
+        Instructor owner = instructorRepository.save(instructor(taught));
+        Instructor other = instructorRepository.save(instructor(new HashSet<>()));
+        Long free = courses(1).iterator().next().getNumCourse();
+        List<Long> numCourses = taught.stream().map(Course::getNumCourse).collect(Collectors.toList());
+        numCourses.add(free);
+        numCourses.add(-1L);
+
+        // Act
+        int linked = transactionTemplate.execute(status -> instructorRepository.linkCourses(other.getNumInstructor(), numCourses));
+
+        // Assert
+        assertEquals(1, linked);
+        assertEquals(Collections.singleton(free), coursesOf(other));
+        assertEquals(2, coursesOf(owner).size());
+    }
+
+    @Test
+    void testUnlinkCourses_removesOnlyTheGivenLinks() {
+        // Arrange
+        Set<Course> taught = courses(3);
+        Instructor instructor = instructorRepository.save(instructor(taught));
+        List<Long> numCourses = taught.stream().map(Course::getNumCourse).sorted().collect(Collectors.toList());
+
+        // Act
+        int unlinked = transactionTemplate.execute(status -> instructorRepository.unlinkCourses(instructor.getNumInstructor(), numCourses.subList(0, 2)));
+
+        // Assert
+        assertEquals(2, unlinked);
+        assertEquals(Collections.singleton(numCourses.get(2)), coursesOf(instructor));
+        assertEquals(3, courseRepository.findAllById(numCourses).size());
+    }
+
+    @Test
+    void testAssignCourses_evictsCachedCoursesOfTheInstructorOnly() {
+        // Arrange
+        Instructor instructor = instructorRepository.save(instructor(courses(2)));
+        Instructor other = instructorRepository.save(instructor(courses(1)));
+        Long free = courses(1).iterator().next().getNumCourse();
+        coursesOf(instructor);
+        coursesOf(other);
+        transactionTemplate.execute(status -> courseRepository.findById(free));
+        List<Long> numInstructors = Arrays.asList(instructor.getNumInstructor(), other.getNumInstructor());
+
+        // Act
+        instructorServices.assignCourses(instructor.getNumInstructor(), Collections.singleton(free));
+
+        // Assert
+        assertTrue(entityManagerFactory.getCache().contains(Course.class, free));
+        assertTrue(entityManagerFactory.getCache().contains(Instructor.class, other.getNumInstructor()));
+        statistics.clear();
+        assertEquals(3, coursesOf(instructor).size());
+        assertEquals(1, coursesOf(other).size());
+        assertEquals(1, statistics.getCollectionLoadCount());
+        assertEquals(numInstructors.subList(0, 1), instructorRepository.findNumInstructorsByCourse(free));
+    }
+
+    @Test
+    void testAssignCourses_bulkInOneTransaction() {
+        // Arrange
+        Instructor first = instructorRepository.save(instructor(courses(1)));
+        Instructor second = instructorRepository.save(instructor(courses(1)));
+        Set<Long> firstCourses = courses(2).stream().map(Course::getNumCourse).collect(Collectors.toSet());
+        Set<Long> secondCourses = courses(3).stream().map(Course::getNumCourse).collect(Collectors.toSet());
+        statistics.clear();
+
+        // Act
+        int linked = instructorServices.assignCourses(Arrays.asList(
+                new CourseAssignment(first.getNumInstructor(), firstCourses),
+                new CourseAssignment(second.getNumInstructor(), secondCourses)));
+
+        // Assert
+        assertEquals(5, linked);
+        assertEquals(1, statistics.getTransactionCount());
+        assertEquals(3, coursesOf(first).size());
+        assertEquals(4, coursesOf(second).size());
+    }
+
+    private Set<Long> coursesOf(Instructor instructor) {
+        return transactionTemplate.execute(status -> instructorRepository.findById(instructor.getNumInstructor())
+                .map(found -> found.getCourses().stream().map(Course::getNumCourse).collect(Collectors.toSet()))
+                .orElse(Collections.emptySet()));
+    }
+
+    private Set<Course> courses(int count) {
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            courses.add(new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 100f, 1, null, null));
+        }
+        return new HashSet<>(courseRepository.saveAll(courses));
+    }
+
+    private static Instructor instructor(Set<Course> courses) {
+        return new Instructor(null, "first", "last", LocalDate.of(2020, 1, 1), courses, null);
+    }
+}
@@ -0,0 +1,185 @@
+package tn.esprit.spring.repositories;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.CoursePatch;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.services.ConflictRetry;
+import tn.esprit.spring.services.CourseServicesImpl;
+import tn.esprit.spring.services.ICourseServices;
+import tn.esprit.spring.services.InstructorWeeksCache;
+import tn.esprit.spring.services.VersionConflictException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Versioned writes of Course against H2, with the schema built by the Flyway migrations: the UPDATEs
+ * hibernate issues, stale whole-entity updates, and partial updates racing each other.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=tn.esprit.spring.repositories.OptimisticLockingTest$RecordingInspector",
+        "ski.updates.conflict.backoff-ms=0"})
+@Import({CourseServicesImpl.class, ConflictRetry.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OptimisticLockingTest {
+
+    @Autowired
+    private ICourseRepository courseRepository;
+
+    @Autowired
+    private ICourseServices courseServices;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private InstructorWeeksCache instructorWeeksCache;
+
+    private Long numCourse;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository.deleteAll();
+        numCourse = courseRepository.save(new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 120f, 2, null, null))
+                .getNumCourse();
+    }
+
+    @Test
+    void testPatchCourse_updatesOnlyTheChangedColumnsAtTheVersionRead() {
+        // Arrange
+        RecordingInspector.STATEMENTS.clear();
+
+        // Act
+        Course patched = courseServices.patchCourse(numCourse, new CoursePatch(null, null, null, 150f, null, null));
+
+        // Assert
+        List<String> updates = updates();
+        assertEquals(1, updates.size(), updates::toString);
+        assertTrue(updates.get(0).startsWith("update course set price=?, version=? where num_course=? and version=?"), updates::toString);
+        assertEquals(1, patched.getVersion());
+        assertEquals(150f, courseRepository.findById(numCourse).get().getPrice());
+    }
+
+    @Test
+    void testPatchCourse_staleVersionIsRejected() {
+        // Arrange
+        courseServices.patchCourse(numCourse, new CoursePatch(3, null, null, null, null, 0L));
+
+        // Act & Assert
+        assertThrows(VersionConflictException.class,
+                () -> courseServices.patchCourse(numCourse, new CoursePatch(null, null, null, 99f, null, 0L)));
+        assertEquals(120f, courseRepository.findById(numCourse).get().getPrice());
+    }
+
+    @Test
+    void testUpdateCourse_staleWholeCourseIsRejected() {
+        // Arrange
+        Course stale = courseRepository.findById(numCourse).get();
+        courseServices.patchCourse(numCourse, new CoursePatch(null, null, null, 150f, null, null));
+        stale.setLevel(5);
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> courseServices.updateCourse(stale));
+        Course stored = courseRepository.findById(numCourse).get();
+        assertEquals(1, stored.getLevel());
+        assertEquals(150f, stored.getPrice());
+    }
+
+    @Test
+    void testUpdateCourse_withoutVersionAppliesToTheStoredOne() {
+        // Arrange: a client of the full-body update that has never sent a version
+        courseServices.patchCourse(numCourse, new CoursePatch(null, null, null, 150f, null, null));
+
+        // Act
+        courseServices.updateCourse(new Course(numCourse, 3, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 160f, 2, null, null));
+        Course updated = courseServices.updateCourse(new Course(numCourse, 4, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 170f, 2, null, null));
+
+        // Assert
+        assertEquals(3L, updated.getVersion());
+        Course stored = courseRepository.findById(numCourse).get();
+        assertEquals(4, stored.getLevel());
+        assertEquals(170f, stored.getPrice());
+    }
+
+    @Test
+    void testConflictRetry_concurrentUpdateIsRetriedAndNeitherIsLost() throws Exception {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+        ExecutorService concurrent = Executors.newSingleThreadExecutor();
+        double retriedBefore = retried();
+
+        try {
+            // Act: another request changes the price between this one's read and its commit, once
+            Course patched = conflictRetry.run(() -> {
+                Course course = courseRepository.findById(numCourse).get();
+                if (attempts.incrementAndGet() == 1) {
+                    try {
+                        concurrent.submit(() -> courseServices.patchCourse(numCourse,
+                                new CoursePatch(null, null, null, 200f, null, null))).get();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                course.setLevel(4);
+                return course;
+            });
+
+            // Assert
+            assertEquals(2, attempts.get());
+            assertEquals(2, patched.getVersion());
+            Course stored = courseRepository.findById(numCourse).get();
+            assertEquals(4, stored.getLevel());
+            assertEquals(200f, stored.getPrice());
+            assertEquals(1, retried() - retriedBefore);
+        } finally {
+            concurrent.shutdownNow();
+        }
+    }
+
+    private double retried() {
+        return meterRegistry.get("ski.updates.conflicts").tag("outcome", "retried").counter().count();
+    }
+
+    private static List<String> updates() {
+        synchronized (RecordingInspector.STATEMENTS) {
+            return RecordingInspector.STATEMENTS.stream()
+                    .filter(sql -> sql.startsWith("update course"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
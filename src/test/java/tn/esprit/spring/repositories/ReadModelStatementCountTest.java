@@ -0,0 +1,163 @@
+package tn.esprit.spring.repositories;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dto.InstructorView;
+import tn.esprit.spring.dto.SkierView;
+import tn.esprit.spring.entities.*;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReadModelStatementCountTest {
+
+    private static final int SKIERS = 3;
+    private static final int REGISTRATIONS_PER_SKIER = 2;
+
+    @Autowired
+    private ISkierRepository skierRepository;
+
+    @Autowired
+    private IInstructorRepository instructorRepository;
+
+    @Autowired
+    private ICourseRepository courseRepository;
+
+    @Autowired
+    private IRegistrationRepository registrationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        registrationRepository.deleteAll();
+        skierRepository.deleteAll();
+        instructorRepository.deleteAll();
+        courseRepository.deleteAll();
+
+        Course course = courseRepository.save(new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 120f, 2, null, null));
+        for (int i = 0; i < SKIERS; i++) {
+            Subscription subscription = new Subscription(null, LocalDate.now(), LocalDate.now().plusYears(1), 500f, TypeSubscription.ANNUAL, null);
+            Skier skier = skierRepository.save(new Skier(null, "first" + i, "last" + i, LocalDate.of(1990, 1, 1), "city", subscription, null));
+            for (int week = 1; week <= REGISTRATIONS_PER_SKIER; week++) {
+                registrationRepository.save(new Registration(null, i * 10 + week, null, skier, course));
+            }
+        }
+        for (int i = 0; i < 2; i++) {
+            List<Course> courses = courseRepository.saveAll(Arrays.asList(
+                    new Course(null, 1, TypeCourse.INDIVIDUAL, Support.SKI, 90f, 1, null, null),
+                    new Course(null, 2, TypeCourse.INDIVIDUAL, Support.SNOWBOARD, 95f, 1, null, null)));
+            instructorRepository.save(new Instructor(null, "first" + i, "last" + i, LocalDate.of(2020, 1, 1), new HashSet<>(courses), null));
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @Test
+    void testFindAllSkiers_singleStatement() {
+        List<SkierView> views = transactionTemplate.execute(status -> skierRepository.findAll()).stream()
+                .map(SkierView::of).collect(Collectors.toList());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(SKIERS, views.size());
+        views.forEach(view -> {
+            assertNotNull(view.getSubscription());
+            assertEquals(REGISTRATIONS_PER_SKIER, view.getRegistrations().size());
+        });
+    }
+
+    @Test
+    void testFindSkierById_singleStatement() {
+        Long numSkier = skierRepository.findAll().get(0).getNumSkier();
+        statistics.clear();
+
+        SkierView view = SkierView.of(transactionTemplate.execute(status ->
+                skierRepository.findWithRegistrationsByNumSkier(numSkier).orElse(null)));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(REGISTRATIONS_PER_SKIER, view.getRegistrations().size());
+    }
+
+    @Test
+    void testFindSkiersBySubscriptionType_singleStatement() {
+        List<Skier> skiers = transactionTemplate.execute(status -> skierRepository.findBySubscription_TypeSub(TypeSubscription.ANNUAL));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(SKIERS, skiers.stream().map(SkierView::of).count());
+    }
+
+    @Test
+    void testSkierPage_twoStatements() {
+        List<SkierView> views = transactionTemplate.execute(status -> {
+            List<Skier> skiers = skierRepository.findByNumSkierGreaterThanOrderByNumSkierAsc(0L, PageRequest.of(0, 100));
+            skierRepository.fetchRegistrations(skiers);
+            return skiers;
+        }).stream().map(SkierView::of).collect(Collectors.toList());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        views.forEach(view -> assertEquals(REGISTRATIONS_PER_SKIER, view.getRegistrations().size()));
+    }
+
+    @Test
+    void testStreamSkiers_registrationsFetchedPerChunk() {
+        List<SkierView> views = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Skier> skiers = skierRepository.streamAllByOrderByNumSkierAsc()) {
+                List<Skier> chunk = skiers.collect(Collectors.toList());
+                skierRepository.fetchRegistrations(chunk);
+                chunk.stream().map(SkierView::of).forEach(views::add);
+            }
+        });
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(SKIERS, views.size());
+    }
+
+    @Test
+    void testFindAllInstructors_singleStatement() {
+        List<InstructorView> views = transactionTemplate.execute(status -> instructorRepository.findAll()).stream()
+                .map(InstructorView::of).collect(Collectors.toList());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(2, views.size());
+        views.forEach(view -> assertEquals(2, view.getCourses().size()));
+    }
+
+    @Test
+    void testInstructorPage_twoStatements() {
+        List<InstructorView> views = transactionTemplate.execute(status -> {
+            List<Instructor> instructors = instructorRepository.findByNumInstructorGreaterThanOrderByNumInstructorAsc(0L, PageRequest.of(0, 100));
+            instructorRepository.fetchCourses(instructors);
+            return instructors;
+        }).stream().map(InstructorView::of).collect(Collectors.toList());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        views.forEach(view -> assertEquals(2, view.getCourses().size()));
+    }
+}
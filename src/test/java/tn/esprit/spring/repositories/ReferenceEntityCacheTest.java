@@ -0,0 +1,78 @@
+package tn.esprit.spring.repositories;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReferenceEntityCacheTest {
+
+    @Autowired
+    private ICourseRepository courseRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testFindById_servedFromSecondLevelCache() {
+        Course course = courseRepository.save(new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 120f, 2, null, null));
+        statistics.clear();
+
+        transactionTemplate.execute(status -> courseRepository.findById(course.getNumCourse()));
+        transactionTemplate.execute(status -> courseRepository.findById(course.getNumCourse()));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void testUpdate_refreshesCachedEntry() {
+        Course course = courseRepository.save(new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 120f, 2, null, null));
+        transactionTemplate.execute(status -> courseRepository.findById(course.getNumCourse()));
+
+        course.setPrice(150f);
+        courseRepository.save(course);
+
+        Course cached = transactionTemplate.execute(status -> courseRepository.findById(course.getNumCourse()).orElse(null));
+        assertNotNull(cached);
+        assertEquals(150f, cached.getPrice());
+    }
+
+    @Test
+    void testFindAll_servedFromQueryCache() {
+        courseRepository.save(new Course(null, 1, TypeCourse.INDIVIDUAL, Support.SNOWBOARD, 90f, 1, null, null));
+        statistics.clear();
+
+        transactionTemplate.execute(status -> courseRepository.findAll());
+        transactionTemplate.execute(status -> courseRepository.findAll());
+
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,82 @@
+package tn.esprit.spring.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void testRelease_fastCallsRaiseTheLimitByAboutOnePerRound() throws InterruptedException {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 100, 250, 0);
+
+        // Act
+        long now = 0;
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < limit.limit(); i++) {
+                assertEquals(AdaptiveConcurrencyLimit.Outcome.ADMITTED, limit.acquire(0));
+            }
+            int inFlight = limit.inFlight();
+            for (int i = 0; i < inFlight; i++) {
+                limit.release(FAST, false, now += FAST);
+            }
+        }
+
+        // Assert
+        assertEquals(6, limit.limit());
+        assertEquals(0, limit.inFlight());
+    }
+
+    @Test
+    void testRelease_slowCallsCutTheLimitOncePerTargetLatency() throws InterruptedException {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 2, 100, 250, 0);
+        for (int i = 0; i < 20; i++) {
+            limit.acquire(0);
+        }
+
+        // Act: a whole round comes back slow at once, then another one a target latency later
+        for (int i = 0; i < 10; i++) {
+            limit.release(SLOW, false, SLOW);
+        }
+        int afterOneRound = limit.limit();
+        for (int i = 0; i < 10; i++) {
+            limit.release(SLOW, true, 2 * SLOW);
+        }
+
+        // Assert
+        assertEquals(18, afterOneRound);
+        assertEquals(16, limit.limit());
+    }
+
+    @Test
+    void testRelease_neverBelowTheMinimum() throws InterruptedException {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(3, 2, 10, 250, 0);
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            limit.acquire(0);
+            limit.release(SLOW, true, i * SLOW);
+        }
+
+        // Assert
+        assertEquals(2, limit.limit());
+    }
+
+    @Test
+    void testAcquire_overTheLimitWithoutQueueIsRejected() throws InterruptedException {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 1, 250, 0);
+        limit.acquire(0);
+
+        // Act & Assert
+        assertEquals(AdaptiveConcurrencyLimit.Outcome.QUEUE_FULL, limit.acquire(TimeUnit.SECONDS.toNanos(1)));
+    }
+}
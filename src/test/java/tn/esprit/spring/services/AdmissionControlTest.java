@@ -0,0 +1,159 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void testAdmit_clientOverItsRateGets429WithRetryAfter() {
+        // Arrange
+        AdmissionControl control = control(2, 4, 1000, 1000, new AdaptiveConcurrencyLimit(100, 1, 100, 250, 0));
+        for (int i = 0; i < 4; i++) {
+            control.admit("10.0.0.1", 1).release(false);
+        }
+
+        // Act
+        AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class, () -> control.admit("10.0.0.1", 1));
+
+        // Assert
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatus());
+        assertEquals(1, rejected.getRetryAfterSeconds());
+        assertDoesNotThrow(() -> control.admit("10.0.0.2", 1).release(false));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertDoesNotThrow(() -> control.admit("10.0.0.1", 1).release(false));
+        assertEquals(1, meterRegistry.get("ski.admission.requests").tag("outcome", "client_rate_limited").counter().count());
+    }
+
+    @Test
+    void testAdmit_globalRateIsSharedByEveryClient() {
+        // Arrange
+        AdmissionControl control = control(100, 100, 1, 3, new AdaptiveConcurrencyLimit(100, 1, 100, 250, 0));
+        control.admit("a", 1).release(false);
+        control.admit("b", 1).release(false);
+        control.admit("c", 1).release(false);
+
+        // Act
+        AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class, () -> control.admit("d", 1));
+
+        // Assert
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatus());
+        assertEquals(1, meterRegistry.get("ski.admission.requests").tag("outcome", "global_rate_limited").counter().count());
+    }
+
+    @Test
+    void testAdmit_bulkCallWeighsItsSize() {
+        // Arrange
+        AdmissionControl control = control(1, 10, 1000, 1000, new AdaptiveConcurrencyLimit(100, 1, 100, 250, 0));
+        control.admit("a", 8).release(false);
+
+        // Act & Assert
+        assertThrows(AdmissionRejectedException.class, () -> control.admit("a", 3));
+        assertDoesNotThrow(() -> control.admit("a", 2).release(false));
+    }
+
+    @Test
+    void testAdmit_fullQueueGets503Immediately() {
+        // Arrange
+        AdmissionControl control = control(1000, 1000, 1000, 1000, new AdaptiveConcurrencyLimit(1, 1, 1, 250, 0));
+        AdmissionControl.Permit held = control.admit("a", 1);
+
+        // Act
+        AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class, () -> control.admit("b", 1));
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatus());
+        assertEquals(1, meterRegistry.get("ski.admission.requests").tag("outcome", "queue_full").counter().count());
+        held.release(false);
+        assertDoesNotThrow(() -> control.admit("b", 1).release(false));
+    }
+
+    @Test
+    void testAdmit_queuedCallGetsTheReleasedSlot() throws Exception {
+        // Arrange
+        AdmissionControl control = control(1000, 1000, 1000, 1000, new AdaptiveConcurrencyLimit(1, 1, 1, 250, 10));
+        AdmissionControl.Permit held = control.admit("a", 1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch queued = new CountDownLatch(1);
+
+        try {
+            // Act
+            Future<AdmissionControl.Permit> waiting = executor.submit(() -> {
+                queued.countDown();
+                return control.admit("b", 1);
+            });
+            queued.await();
+            while (meterRegistry.get("ski.admission.queue.size").gauge().value() < 1) {
+                Thread.sleep(1);
+            }
+            held.release(false);
+
+            // Assert
+            assertNotNull(waiting.get(5, TimeUnit.SECONDS));
+            assertEquals(1, meterRegistry.get("ski.admission.concurrency.in.flight").gauge().value());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testAdmit_queuedCallGets503AfterTheMaximumWait() {
+        // Arrange
+        AdmissionControl control = control(1000, 1000, 1000, 1000, new AdaptiveConcurrencyLimit(1, 1, 1, 250, 10));
+        control.admit("a", 1);
+
+        // Act
+        AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class, () -> control.admit("b", 1));
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatus());
+        assertEquals(1, meterRegistry.get("ski.admission.requests").tag("outcome", "queue_timeout").counter().count());
+    }
+
+    @Test
+    void testAdmit_disabledAdmitsEverything() {
+        // Arrange
+        AdmissionControl control = new AdmissionControl(meterRegistry, false, 1, 1, 10, 1, 1,
+                new AdaptiveConcurrencyLimit(1, 1, 1, 250, 0), 10, now::get);
+
+        // Act & Assert
+        for (int i = 0; i < 10; i++) {
+            assertDoesNotThrow(() -> control.admit("a", 1));
+        }
+    }
+
+    @Test
+    void testAdmit_forgetsIdleClientsPastTheTrackedMaximum() {
+        // Arrange
+        AdmissionControl control = new AdmissionControl(meterRegistry, true, 10, 10, 2, 1000, 1000,
+                new AdaptiveConcurrencyLimit(100, 1, 100, 250, 0), 10, now::get);
+        control.admit("a", 1).release(false);
+        control.admit("b", 1).release(false);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        // Act
+        control.admit("c", 1).release(false);
+
+        // Assert
+        assertEquals(1, meterRegistry.get("ski.admission.clients").gauge().value());
+    }
+
+    private AdmissionControl control(double clientRate, double clientBurst, double globalRate, double globalBurst,
+                                     AdaptiveConcurrencyLimit concurrency) {
+        return new AdmissionControl(meterRegistry, true, clientRate, clientBurst, 10_000, globalRate, globalBurst,
+                concurrency, 50, now::get);
+    }
+}
@@ -0,0 +1,67 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import tn.esprit.spring.entities.Course;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ConflictRetryTest {
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConflictRetry conflictRetry = new ConflictRetry(transactionManager, meterRegistry, 3, 0);
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    ConflictRetryTest() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void testRun_retriesAConflictInANewTransaction() {
+        // Act
+        String result = conflictRetry.run(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("lost");
+            }
+            return "done";
+        });
+
+        // Assert
+        assertEquals("done", result);
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        assertEquals(2, meterRegistry.get("ski.updates.conflicts").tag("outcome", "retried").counter().count());
+    }
+
+    @Test
+    void testRun_givesUpAfterTheMaximumAttempts() {
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> conflictRetry.run(() -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("lost");
+        }));
+        assertEquals(3, attempts.get());
+        assertEquals(1, meterRegistry.get("ski.updates.conflicts").tag("outcome", "exhausted").counter().count());
+    }
+
+    @Test
+    void testRun_staleVersionAskedByTheClientIsNotRetried() {
+        // Act & Assert
+        assertThrows(VersionConflictException.class, () -> conflictRetry.run(() -> {
+            attempts.incrementAndGet();
+            VersionConflictException.check(Course.class, 1L, 1L, 2L);
+            return null;
+        }));
+        assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,122 @@
+package tn.esprit.spring.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.dto.OccupiedSeat;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CourseCapacityRegistryTest {
+
+    @Mock
+    private IRegistrationRepository registrationRepository;
+
+    @InjectMocks
+    private CourseCapacityRegistry capacityRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testReserve_fillsCourseThenRejects() {
+        for (int seat = 1; seat <= CourseCapacityRegistry.COLLECTIVE_CAPACITY; seat++) {
+            assertEquals(seat, capacityRegistry.reserve(1L, 5));
+        }
+
+        assertEquals(CourseCapacityRegistry.FULL, capacityRegistry.reserve(1L, 5));
+        assertEquals(1, capacityRegistry.reserve(1L, 6));
+        assertEquals(1, capacityRegistry.reserve(2L, 5));
+    }
+
+    @Test
+    void testRelease_freesTheSeat() {
+        for (int seat = 1; seat <= CourseCapacityRegistry.COLLECTIVE_CAPACITY; seat++) {
+            capacityRegistry.reserve(1L, 5);
+        }
+
+        capacityRegistry.release(1L, 5, 4);
+
+        assertEquals(5, capacityRegistry.registered(1L, 5));
+        assertEquals(4, capacityRegistry.reserve(1L, 5));
+    }
+
+    @Test
+    void testHoldUntilCommit_releasesWhenWriteFails() {
+        int seat = capacityRegistry.reserve(1L, 5);
+
+        assertThrows(IllegalStateException.class, () -> capacityRegistry.holdUntilCommit(1L, 5, seat, () -> {
+            throw new IllegalStateException();
+        }));
+
+        assertEquals(0, capacityRegistry.registered(1L, 5));
+    }
+
+    @Test
+    void testReleaseAfterCommit_withoutTransactionReleasesAtOnce() {
+        int seat = capacityRegistry.reserve(1L, 5);
+
+        capacityRegistry.releaseAfterCommit(1L, 5, seat);
+
+        assertEquals(0, capacityRegistry.registered(1L, 5));
+    }
+
+    @Test
+    void testWarmUp_loadsSeatsFromRegistrations() {
+        List<OccupiedSeat> occupied = Arrays.asList(seat(1L, 5, 2), seat(1L, 5, null), seat(1L, 5, 1));
+        when(registrationRepository.findOccupiedSeats(TypeCourse.INDIVIDUAL)).thenReturn(occupied);
+
+        capacityRegistry.warmUp();
+
+        assertEquals(3, capacityRegistry.registered(1L, 5));
+        assertEquals(4, capacityRegistry.reserve(1L, 5));
+    }
+
+    @Test
+    void testReserve_neverOverbooksUnderContention() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Integer>> bookings = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            bookings.add(() -> capacityRegistry.reserve(1L, 5));
+        }
+
+        Set<Integer> seats = new HashSet<>();
+        int rejected = 0;
+        for (Future<Integer> booking : executor.invokeAll(bookings)) {
+            if (booking.get() == CourseCapacityRegistry.FULL) {
+                rejected++;
+            } else {
+                assertTrue(seats.add(booking.get()));
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(CourseCapacityRegistry.COLLECTIVE_CAPACITY, seats.size());
+        assertEquals(100 - CourseCapacityRegistry.COLLECTIVE_CAPACITY, rejected);
+    }
+
+    private static OccupiedSeat seat(Long numCourse, int numWeek, Integer seat) {
+        OccupiedSeat occupiedSeat = mock(OccupiedSeat.class);
+        when(occupiedSeat.getNumCourse()).thenReturn(numCourse);
+        when(occupiedSeat.getNumWeek()).thenReturn(numWeek);
+        when(occupiedSeat.getSeat()).thenReturn(seat);
+        return occupiedSeat;
+    }
+}
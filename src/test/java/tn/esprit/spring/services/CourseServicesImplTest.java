@@ -5,13 +5,26 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import tn.esprit.spring.dto.CourseAvailability;
+import tn.esprit.spring.dto.CoursePatch;
 import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.CourseOccupancy;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.ICourseOccupancyRepository;
 import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -22,6 +35,21 @@ class CourseServicesImplTest {
     @Mock
     private ICourseRepository courseRepository;
 
+    @Mock
+    private ICourseOccupancyRepository occupancyRepository;
+
+    @Mock
+    private IRegistrationRepository registrationRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private InstructorWeeksCache instructorWeeksCache;
+
+    @Mock
+    private ConflictRetry conflictRetry;
+
     @InjectMocks
     private CourseServicesImpl courseServices;
 
@@ -30,6 +58,7 @@ class CourseServicesImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);  // Initialize mocks
+        when(conflictRetry.run(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
 
         course = new Course();
         course.setNumCourse(1L);
@@ -98,6 +127,8 @@ class CourseServicesImplTest {
     @Test
     void testUpdateCourse_successful() {
         // Arrange
+        course.setTypeCourse(TypeCourse.COLLECTIVE_ADULT);
+        course.setSupport(Support.SNOWBOARD);
         when(courseRepository.save(any(Course.class))).thenReturn(course);
 
         // Act
@@ -106,6 +137,23 @@ class CourseServicesImplTest {
         // Assert
         assertEquals(course.getNumCourse(), updatedCourse.getNumCourse());
         verify(courseRepository, times(1)).save(course);
+        verify(occupancyRepository, times(1)).updateCourse(1L, "COLLECTIVE_ADULT", "SNOWBOARD");
+        verify(instructorWeeksCache, times(1)).evictCourse(1L);
+    }
+
+    @Test
+    void testUpdateCourse_individualWithRegistrationsCantBecomeCollective() {
+        // Arrange
+        Course current = new Course();
+        current.setNumCourse(1L);
+        current.setTypeCourse(TypeCourse.INDIVIDUAL);
+        course.setTypeCourse(TypeCourse.COLLECTIVE_ADULT);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(current));
+        when(registrationRepository.existsByCourse_NumCourse(1L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(CourseTypeConflictException.class, () -> courseServices.updateCourse(course));
+        verify(courseRepository, never()).save(any());
     }
 
     @Test
@@ -118,6 +166,92 @@ class CourseServicesImplTest {
         verify(courseRepository, times(1)).save(null);
     }
 
+    // Tests for patchCourse()
+
+    @Test
+    void testPatchCourse_changesOnlyTheGivenFields() {
+        // Arrange
+        course.setSupport(Support.SKI);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+
+        // Act
+        Course patched = courseServices.patchCourse(1L, new CoursePatch(null, null, null, 250F, null, null));
+
+        // Assert
+        assertEquals(250F, patched.getPrice());
+        assertEquals(2, patched.getLevel());
+        assertEquals(Support.SKI, patched.getSupport());
+        verify(courseRepository, never()).save(any());
+        verify(instructorWeeksCache, never()).evictCourse(any());
+    }
+
+    @Test
+    void testPatchCourse_newSupportEvictsTheWeeksTaught() {
+        // Arrange
+        course.setSupport(Support.SKI);
+        course.setVersion(0L);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+
+        // Act
+        courseServices.patchCourse(1L, new CoursePatch(null, null, Support.SNOWBOARD, null, null, 0L));
+
+        // Assert
+        assertEquals(Support.SNOWBOARD, course.getSupport());
+        verify(instructorWeeksCache, times(1)).evictCourse(1L);
+        verify(occupancyRepository, times(1)).updateCourse(1L, null, "SNOWBOARD");
+    }
+
+    @Test
+    void testPatchCourse_collectiveTypeCarriesTheOccupancyOver() {
+        // Arrange
+        course.setTypeCourse(TypeCourse.COLLECTIVE_ADULT);
+        course.setSupport(Support.SKI);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+        when(registrationRepository.existsByCourse_NumCourse(1L)).thenReturn(true);
+
+        // Act
+        courseServices.patchCourse(1L, new CoursePatch(null, TypeCourse.COLLECTIVE_CHILDREN, null, null, null, null));
+
+        // Assert
+        assertEquals(TypeCourse.COLLECTIVE_CHILDREN, course.getTypeCourse());
+        verify(occupancyRepository, times(1)).updateCourse(1L, "COLLECTIVE_CHILDREN", "SKI");
+    }
+
+    @Test
+    void testPatchCourse_collectiveWithRegistrationsCantBecomeIndividual() {
+        // Arrange
+        course.setTypeCourse(TypeCourse.COLLECTIVE_ADULT);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+        when(registrationRepository.existsByCourse_NumCourse(1L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(CourseTypeConflictException.class,
+                () -> courseServices.patchCourse(1L, new CoursePatch(null, TypeCourse.INDIVIDUAL, null, null, null, null)));
+        assertEquals(TypeCourse.COLLECTIVE_ADULT, course.getTypeCourse());
+        verify(occupancyRepository, never()).updateCourse(any(), any(), any());
+    }
+
+    @Test
+    void testPatchCourse_staleVersion() {
+        // Arrange
+        course.setVersion(2L);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+
+        // Act & Assert
+        assertThrows(VersionConflictException.class,
+                () -> courseServices.patchCourse(1L, new CoursePatch(null, null, null, 250F, null, 1L)));
+        assertEquals(300F, course.getPrice());
+    }
+
+    @Test
+    void testPatchCourse_unknownCourse() {
+        // Arrange
+        when(courseRepository.findById(9L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertNull(courseServices.patchCourse(9L, new CoursePatch(null, null, null, 250F, null, null)));
+    }
+
     // Tests for retrieveCourse()
 
     @Test
@@ -146,4 +280,89 @@ class CourseServicesImplTest {
         assertNull(foundCourse);
         verify(courseRepository, times(1)).findById(2L);
     }
+
+    // Tests for retrieveCoursesAfter()
+
+    @Test
+    void testRetrieveCoursesAfter_usesKeysetCursor() {
+        // Arrange
+        when(courseRepository.findByNumCourseGreaterThanOrderByNumCourseAsc(eq(1L), any(Pageable.class))).thenReturn(Arrays.asList(course));
+
+        // Act
+        List<Course> page = courseServices.retrieveCoursesAfter(1L, 10_000);
+
+        // Assert
+        assertEquals(1, page.size());
+        verify(courseRepository, times(1)).findByNumCourseGreaterThanOrderByNumCourseAsc(1L, PageRequest.of(0, 500));
+    }
+
+    // Tests for streamAllCourses()
+
+    @Test
+    void testStreamAllCourses_passesEveryRow() {
+        // Arrange
+        when(courseRepository.streamAllByOrderByNumCourseAsc()).thenReturn(Stream.of(course, course));
+        List<Course> received = new ArrayList<>();
+
+        // Act
+        courseServices.streamAllCourses(received::add);
+
+        // Assert
+        assertEquals(2, received.size());
+        verify(courseRepository, times(1)).streamAllByOrderByNumCourseAsc();
+    }
+
+    // Tests for retrieveAvailability()
+
+    @Test
+    void testRetrieveAvailability_fillsCourseWeeksWithoutRegistrations() {
+        // Arrange
+        course.setTypeCourse(TypeCourse.COLLECTIVE_ADULT);
+        course.setSupport(Support.SKI);
+        Course individualCourse = new Course();
+        individualCourse.setNumCourse(2L);
+        individualCourse.setTypeCourse(TypeCourse.INDIVIDUAL);
+        when(courseRepository.findAll()).thenReturn(Arrays.asList(course, individualCourse));
+        when(occupancyRepository.findByWeeks(5, 6, null, Support.SKI)).thenReturn(Arrays.asList(
+                new CourseOccupancy(1L, 5, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 6, 6)));
+
+        // Act
+        List<CourseAvailability> availabilities = courseServices.retrieveAvailability(5, 6, null, Support.SKI, false);
+
+        // Assert
+        assertEquals(2, availabilities.size());
+        assertEquals(0, availabilities.get(0).getAvailable());
+        assertEquals(6, availabilities.get(1).getAvailable());
+        assertEquals(6, availabilities.get(1).getNumWeek());
+        verify(occupancyRepository, times(1)).findByWeeks(5, 6, null, Support.SKI);
+    }
+
+    @Test
+    void testRetrieveAvailability_onlyAvailableSkipsFullWeeks() {
+        // Arrange
+        course.setTypeCourse(TypeCourse.COLLECTIVE_CHILDREN);
+        when(courseRepository.findAll()).thenReturn(Arrays.asList(course));
+        when(occupancyRepository.findByWeeks(5, 5, TypeCourse.COLLECTIVE_CHILDREN, null)).thenReturn(Arrays.asList(
+                new CourseOccupancy(1L, 5, TypeCourse.COLLECTIVE_CHILDREN, null, 6, 6)));
+
+        // Act
+        List<CourseAvailability> availabilities = courseServices.retrieveAvailability(5, 5, TypeCourse.COLLECTIVE_CHILDREN, null, true);
+
+        // Assert
+        assertTrue(availabilities.isEmpty());
+    }
+
+    // Tests for backfillOccupancy()
+
+    @Test
+    void testBackfillOccupancy_skipsWhenAlreadyFilled() {
+        // Arrange
+        when(occupancyRepository.count()).thenReturn(3L);
+
+        // Act
+        courseServices.backfillOccupancy();
+
+        // Assert
+        verify(occupancyRepository, never()).backfill(anyInt());
+    }
 }
@@ -0,0 +1,328 @@
+package tn.esprit.spring.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.repositories.IPisteRepository;
+import tn.esprit.spring.repositories.ISkierRepository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:excursions;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExcursionWriterTest {
+
+    private static final long NEVER = 3_600_000;
+
+    @Autowired
+    private ISkierRepository skierRepository;
+
+    @Autowired
+    private IPisteRepository pisteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @TempDir
+    Path walDirectory;
+
+    private final List<ExcursionWriter> writers = new ArrayList<>();
+    private final CountDownLatch stalled = new CountDownLatch(1);
+    private final ReentrantLock stalledWriter = new ReentrantLock();
+
+    private Skier skier;
+    private Piste piste;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from excursion");
+        skier = skierRepository.save(new Skier(null, "first", "last", LocalDate.of(1990, 1, 1), "city", null, null));
+        piste = pisteRepository.save(new Piste(null, "Blue", Color.BLUE, 1200, 20));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        stalled.countDown();
+        for (ExcursionWriter writer : writers) {
+            writer.close();
+        }
+    }
+
+    @Test
+    void testFlush_appendsEveryExcursionWithItsTime() throws IOException {
+        // Arrange
+        ExcursionWriter writer = start(ExcursionWriter.Durability.ASYNC, 10, 500, NEVER);
+        writer.enqueue(skier.getNumSkier(), piste.getNumPiste());
+        writer.enqueue(skier.getNumSkier(), piste.getNumPiste());
+
+        // Act
+        writer.flush();
+
+        // Assert
+        assertEquals(2, count());
+        assertEquals(Instant.parse("2024-01-01T10:00:00Z").toEpochMilli(),
+                jdbcTemplate.queryForObject("select max(scanned_at) from excursion", Timestamp.class).getTime());
+    }
+
+    @Test
+    void testFlush_dropsOnlyRejectedExcursions() throws IOException {
+        // Arrange
+        ExcursionWriter writer = start(ExcursionWriter.Durability.ASYNC, 10, 500, NEVER);
+        writer.enqueue(skier.getNumSkier(), piste.getNumPiste());
+        writer.enqueue(-1L, piste.getNumPiste());
+        writer.enqueue(skier.getNumSkier(), piste.getNumPiste());
+
+        // Act
+        writer.flush();
+
+        // Assert
+        assertEquals(2, count());
+    }
+
+    @Test
+    void testEnqueue_batchSizeTriggersTheWriter() throws IOException {
+        // Arrange
+        ExcursionWriter writer = start(ExcursionWriter.Durability.SYNC, 10, 3, NEVER);
+
+        // Act
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Thread producer = new Thread(() -> writer.enqueue(skier.getNumSkier(), piste.getNumPiste()));
+            producer.start();
+            producers.add(producer);
+        }
+        for (Thread producer : producers) {
+            assertDoesNotThrow(() -> producer.join(10_000));
+            assertFalse(producer.isAlive());
+        }
+
+        // Assert
+        assertEquals(3, count());
+    }
+
+    @Test
+    void testEnqueue_syncWaitsForTheCommit() throws IOException {
+        // Arrange
+        ExcursionWriter writer = start(ExcursionWriter.Durability.SYNC, 10, 500, 20);
+
+        // Act
+        writer.enqueue(skier.getNumSkier(), piste.getNumPiste());
+
+        // Assert
+        assertEquals(1, count());
+    }
+
+    @Test
+    void testEnqueue_syncThrowsWhenTheBatchIsNotWritten() throws IOException {
+        // Arrange
+        ExcursionWriter writer = start(unreachable(new AtomicInteger()), ExcursionWriter.Durability.SYNC, 10, 500, 20);
+
+        // Act & Assert
+        assertThrows(DataAccessResourceFailureException.class, () -> writer.enqueue(skier.getNumSkier(), piste.getNumPiste()));
+    }
+
+    @Test
+    void testFlush_unavailableDatabaseFailsTheBatchAtOnce() throws IOException {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+        ExcursionWriter writer = start(unreachable(attempts), ExcursionWriter.Durability.WAL, 10, 500, NEVER);
+        for (int i = 0; i < 3; i++) {
+            writer.enqueue(skier.getNumSkier(), piste.getNumPiste());
+        }
+
+        // Act & Assert: one connection attempt for the three rows, and their log segment is kept
+        assertThrows(DataAccessResourceFailureException.class, writer::flush);
+        assertEquals(1, attempts.get());
+        try (Stream<Path> segments = Files.list(walDirectory)) {
+            assertEquals(2, segments.count());
+        }
+    }
+
+    @Test
+    void testEnqueue_syncGivesUpWhenTheCommitTakesTooLong() throws IOException {
+        // Arrange
+        ExcursionWriter writer = start(stalled(), ExcursionWriter.Durability.SYNC, 10, 500, 20);
+
+        // Act & Assert
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                () -> writer.enqueue(skier.getNumSkier(), piste.getNumPiste()));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+    }
+
+    @Test
+    void testEnqueue_fullQueueGivesUpAfterTheOfferTimeout() throws IOException {
+        // Arrange: the writer is stuck on the first batch, the second one fills the queue
+        ExcursionWriter writer = start(stalled(), ExcursionWriter.Durability.ASYNC, 1, 1, NEVER);
+        writer.enqueue(skier.getNumSkier(), piste.getNumPiste());
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            while (!stalledWriter.isLocked()) {
+                Thread.sleep(5);
+            }
+        });
+        writer.enqueue(skier.getNumSkier(), piste.getNumPiste());
+
+        // Act & Assert
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                () -> writer.enqueue(skier.getNumSkier(), piste.getNumPiste()));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+    }
+
+    @Test
+    void testEnqueue_syncThrowsOnlyForTheRejectedExcursion() throws Exception {
+        // Arrange
+        ExcursionWriter writer = start(ExcursionWriter.Durability.SYNC, 10, 2, NEVER);
+        Thread accepted = new Thread(() -> writer.enqueue(skier.getNumSkier(), piste.getNumPiste()));
+        accepted.start();
+
+        // Act & Assert: both excursions go in the same batch
+        assertThrows(DataIntegrityViolationException.class, () -> writer.enqueue(-1L, piste.getNumPiste()));
+        accepted.join(10_000);
+        assertFalse(accepted.isAlive());
+        assertEquals(1, count());
+    }
+
+    @Test
+    void testEnqueue_fullQueueWaitsForTheWriter() throws IOException {
+        // Arrange
+        ExcursionWriter writer = start(ExcursionWriter.Durability.ASYNC, 2, 500, 20);
+
+        // Act
+        for (int i = 0; i < 7; i++) {
+            writer.enqueue(skier.getNumSkier(), piste.getNumPiste());
+        }
+        writer.flush();
+
+        // Assert
+        assertEquals(7, count());
+    }
+
+    @Test
+    void testStart_replaysTheLogOfACrashedWriter() throws IOException {
+        // Arrange
+        ExcursionWriter crashed = start(ExcursionWriter.Durability.WAL, 10, 500, NEVER);
+        crashed.enqueue(skier.getNumSkier(), piste.getNumPiste());
+        crashed.enqueue(skier.getNumSkier(), piste.getNumPiste());
+        assertEquals(0, count());
+        writers.remove(crashed);
+
+        // Act
+        start(ExcursionWriter.Durability.WAL, 10, 500, NEVER);
+
+        // Assert
+        assertEquals(2, count());
+        try (Stream<Path> segments = Files.list(walDirectory)) {
+            assertEquals(1, segments.count());
+        }
+    }
+
+    @Test
+    void testFlush_deletesCommittedSegments() throws IOException {
+        // Arrange
+        ExcursionWriter writer = start(ExcursionWriter.Durability.WAL, 10, 500, NEVER);
+        writer.enqueue(skier.getNumSkier(), piste.getNumPiste());
+
+        // Act
+        writer.flush();
+
+        // Assert
+        try (Stream<Path> segments = Files.list(walDirectory)) {
+            assertEquals(1, segments.count());
+        }
+        assertEquals(1, count());
+    }
+
+    private ExcursionWriter start(ExcursionWriter.Durability durability, int capacity, int batchSize, long flushIntervalMillis) throws IOException {
+        return start(new ExcursionWriter(jdbcTemplate, transactionManager,
+                Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneOffset.UTC),
+                capacity, batchSize, flushIntervalMillis, 10_000, 10_000, durability, walDirectory, false));
+    }
+
+    /* Short timeouts: the database behind this data source is unreachable or stalled */
+    private ExcursionWriter start(DataSource dataSource, ExcursionWriter.Durability durability, int capacity, int batchSize,
+                                  long flushIntervalMillis) throws IOException {
+        return start(new ExcursionWriter(new JdbcTemplate(dataSource), new DataSourceTransactionManager(dataSource),
+                Clock.systemUTC(), capacity, batchSize, flushIntervalMillis, 200, 200, durability, walDirectory, false));
+    }
+
+    private ExcursionWriter start(ExcursionWriter writer) throws IOException {
+        writer.start();
+        writers.add(writer);
+        return writer;
+    }
+
+    private DataSource unreachable(AtomicInteger attempts) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                attempts.incrementAndGet();
+                throw new SQLException("Connection refused");
+            }
+        };
+    }
+
+    /* Connections are only handed out once the test ends, the writer waits on the first one meanwhile */
+    private DataSource stalled() {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                stalledWriter.lock();
+                try {
+                    stalled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    stalledWriter.unlock();
+                }
+                return super.getConnection();
+            }
+        };
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("select count(*) from excursion", Integer.class);
+    }
+}
@@ -0,0 +1,145 @@
+package tn.esprit.spring.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.ExportFormat;
+import tn.esprit.spring.dto.ExportedFile;
+import tn.esprit.spring.dto.RegistrationExportFilter;
+import tn.esprit.spring.dto.RegistrationExportRow;
+import tn.esprit.spring.entities.*;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+import tn.esprit.spring.repositories.ISkierRepository;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "ski.export.directory=target/test-exports"})
+@AutoConfigureJson
+@Import(ExportServicesImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExportServicesImplTest {
+
+    @Autowired
+    private IExportServices exportServices;
+
+    @Autowired
+    private ICourseRepository courseRepository;
+
+    @Autowired
+    private ISkierRepository skierRepository;
+
+    @Autowired
+    private IRegistrationRepository registrationRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        registrationRepository.deleteAll();
+        skierRepository.deleteAll();
+        courseRepository.deleteAll();
+        List<Course> courses = courseRepository.saveAll(Arrays.asList(
+                new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 120f, 2, null, null),
+                new Course(null, 1, TypeCourse.INDIVIDUAL, Support.SNOWBOARD, 200f, 1, null, null)));
+        List<Skier> skiers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            TypeSubscription typeSub = i % 2 == 0 ? TypeSubscription.ANNUAL : TypeSubscription.MONTHLY;
+            LocalDate start = LocalDate.of(2024, 1, 1);
+            skiers.add(new Skier(null, "first" + i, "last" + i, LocalDate.of(1990, 1, 1), "city",
+                    new Subscription(null, start, typeSub.endDate(start), 100f, typeSub, null), null));
+        }
+        skiers = skierRepository.saveAll(skiers);
+        List<Registration> registrations = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            registrations.add(new Registration(null, 1 + i, null, skiers.get(i % 4), courses.get(i % 2)));
+        }
+        registrationRepository.saveAll(registrations);
+    }
+
+    @Test
+    void testExportCsv_allRowsWithHeader() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long rows = exportServices.exportRegistrations(new RegistrationExportFilter(), ExportFormat.CSV, out);
+
+        // Assert
+        List<String> lines = gunzip(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(8, rows);
+        assertEquals(9, lines.size());
+        assertTrue(lines.get(0).startsWith("numRegistration,numWeek,numCourse,typeCourse"));
+        assertTrue(lines.get(1).contains("COLLECTIVE_ADULT,SKI,120.0"));
+        assertTrue(lines.get(1).endsWith(",ANNUAL,100.0,2024-01-01,2025-01-01"));
+    }
+
+    @Test
+    void testExportNdjson_filtersOnWeeksAndTypes() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RegistrationExportFilter filter = new RegistrationExportFilter(1, 6, TypeCourse.COLLECTIVE_ADULT, TypeSubscription.ANNUAL);
+
+        // Act
+        long rows = exportServices.exportRegistrations(filter, ExportFormat.NDJSON, out);
+
+        // Assert
+        List<RegistrationExportRow> exported = new ArrayList<>();
+        for (String line : gunzip(new ByteArrayInputStream(out.toByteArray()))) {
+            exported.add(objectMapper.readValue(line, RegistrationExportRow.class));
+        }
+        assertEquals(3, rows);
+        assertEquals(Arrays.asList(1, 3, 5), exported.stream().map(RegistrationExportRow::getNumWeek).collect(Collectors.toList()));
+        assertTrue(exported.stream().allMatch(row -> row.getTypeCourse() == TypeCourse.COLLECTIVE_ADULT
+                && row.getTypeSub() == TypeSubscription.ANNUAL));
+    }
+
+    @Test
+    void testExportToFile_movesCompleteFileIntoPlace() throws IOException {
+        // Act
+        ExportedFile file = exportServices.exportRegistrationsToFile(new RegistrationExportFilter(), ExportFormat.NDJSON);
+
+        // Assert
+        assertEquals(8, file.getRows());
+        assertTrue(file.getPath().endsWith(".ndjson.gz"));
+        try (InputStream in = Files.newInputStream(Paths.get(file.getPath()))) {
+            assertEquals(8, gunzip(in).size());
+        }
+        try (Stream<Path> files = Files.list(Paths.get("target/test-exports"))) {
+            assertTrue(files.noneMatch(path -> path.toString().endsWith(".partial")));
+        }
+    }
+
+    private static List<String> gunzip(InputStream in) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(in), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package tn.esprit.spring.services;
+
+import org.junit.jupiter.api.Test;
+import tn.esprit.spring.services.IdempotencyStore.StoredResponse;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private static final long TTL = 60_000;
+
+    private final MutableClock clock = new MutableClock();
+    private final IdempotencyStore store = new IdempotencyStore(null, clock, TTL, 3, false, 1000);
+
+    @Test
+    void testClaim_firstRequestHoldsTheKeyAndRetriesWait() {
+        // Act
+        StoredResponse first = store.claim("key");
+        StoredResponse retry = store.claim("key");
+
+        // Assert
+        assertNull(first);
+        assertSame(StoredResponse.IN_PROGRESS, retry);
+    }
+
+    @Test
+    void testClaim_completedKeyReturnsTheStoredResponse() {
+        // Arrange
+        store.claim("key");
+        StoredResponse response = response("{\"numRegistration\":1}");
+        store.complete("key", response);
+
+        // Act
+        StoredResponse retry = store.claim("key");
+
+        // Assert
+        assertSame(response, retry);
+    }
+
+    @Test
+    void testRelease_nextRequestRunsAgain() {
+        // Arrange
+        store.claim("key");
+        store.release("key");
+
+        // Act & Assert
+        assertNull(store.claim("key"));
+    }
+
+    @Test
+    void testClaim_expiredKeyRunsAgain() {
+        // Arrange
+        store.claim("key");
+        store.complete("key", response("{}"));
+        clock.millis += TTL;
+
+        // Act & Assert
+        assertNull(store.claim("key"));
+    }
+
+    @Test
+    void testClaim_oldestKeysGoPastTheMaximum() {
+        // Arrange
+        for (String key : new String[]{"a", "b", "c", "d"}) {
+            store.claim(key);
+            store.complete(key, response(key));
+            clock.millis++;
+        }
+
+        // Act & Assert
+        assertEquals(3, store.size());
+        assertNull(store.claim("a"));
+        assertNotNull(store.claim("d"));
+    }
+
+    @Test
+    void testPurge_dropsExpiredKeys() {
+        // Arrange
+        store.claim("a");
+        store.complete("a", response("a"));
+        clock.millis += TTL / 2;
+        store.claim("b");
+        store.complete("b", response("b"));
+        clock.millis += TTL / 2;
+
+        // Act
+        store.purge();
+
+        // Assert
+        assertEquals(1, store.size());
+    }
+
+    private static StoredResponse response(String body) {
+        return new StoredResponse("fingerprint", 200, "application/json", body.getBytes());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        long millis;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+    }
+}
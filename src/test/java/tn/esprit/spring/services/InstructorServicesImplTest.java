@@ -2,15 +2,23 @@ package tn.esprit.spring.services;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import tn.esprit.spring.dto.CourseAssignment;
+import tn.esprit.spring.dto.InstructorPatch;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.repositories.ICourseRepository;
 import tn.esprit.spring.repositories.IInstructorRepository;
 
+import javax.persistence.EntityManager;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,6 +31,18 @@ class InstructorServicesImplTest {
     @Mock
     private ICourseRepository courseRepository;
 
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private EntityManager entityManager;
+
+    @Mock
+    private InstructorWeeksCache instructorWeeksCache;
+
+    @Mock
+    private org.hibernate.Cache secondLevelCache;
+
+    @Mock
+    private ConflictRetry conflictRetry;
+
     @InjectMocks
     private InstructorServicesImpl instructorServices;
 
@@ -32,6 +52,8 @@ class InstructorServicesImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(entityManager.getEntityManagerFactory().getCache().unwrap(org.hibernate.Cache.class)).thenReturn(secondLevelCache);
+        when(conflictRetry.run(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
 
         instructor = new Instructor();
         instructor.setNumInstructor(1L);
@@ -112,6 +134,7 @@ class InstructorServicesImplTest {
         // Assert
         assertEquals(instructor.getNumInstructor(), updatedInstructor.getNumInstructor());
         verify(instructorRepository, times(1)).save(instructor);
+        verify(instructorWeeksCache, times(1)).evictInstructor(instructor.getNumInstructor());
     }
 
     @Test
@@ -124,12 +147,44 @@ class InstructorServicesImplTest {
         verify(instructorRepository, times(1)).save(null);
     }
 
+    // Tests for patchInstructor()
+
+    @Test
+    void testPatchInstructor_keepsCoursesAndWeeks() {
+        // Arrange
+        instructor.setCourses(new HashSet<>(Collections.singletonList(course)));
+        instructor.setVersion(0L);
+        when(instructorRepository.findWithCoursesByNumInstructor(1L)).thenReturn(Optional.of(instructor));
+
+        // Act
+        Instructor patched = instructorServices.patchInstructor(1L, new InstructorPatch(null, "Smith", null, 0L));
+
+        // Assert
+        assertEquals("John", patched.getFirstName());
+        assertEquals("Smith", patched.getLastName());
+        assertEquals(1, patched.getCourses().size());
+        verify(instructorRepository, never()).save(any());
+        verifyNoInteractions(instructorWeeksCache);
+    }
+
+    @Test
+    void testPatchInstructor_staleVersion() {
+        // Arrange
+        instructor.setVersion(5L);
+        when(instructorRepository.findWithCoursesByNumInstructor(1L)).thenReturn(Optional.of(instructor));
+
+        // Act & Assert
+        assertThrows(VersionConflictException.class,
+                () -> instructorServices.patchInstructor(1L, new InstructorPatch("Jane", null, null, 4L)));
+        assertEquals("John", instructor.getFirstName());
+    }
+
     // Tests for retrieveInstructor()
 
     @Test
     void testRetrieveInstructor_found() {
         // Arrange
-        when(instructorRepository.findById(1L)).thenReturn(Optional.of(instructor));
+        when(instructorRepository.findWithCoursesByNumInstructor(1L)).thenReturn(Optional.of(instructor));
 
         // Act
         Instructor foundInstructor = instructorServices.retrieveInstructor(1L);
@@ -137,20 +192,20 @@ class InstructorServicesImplTest {
         // Assert
         assertNotNull(foundInstructor);
         assertEquals(instructor.getNumInstructor(), foundInstructor.getNumInstructor());
-        verify(instructorRepository, times(1)).findById(1L);
+        verify(instructorRepository, times(1)).findWithCoursesByNumInstructor(1L);
     }
 
     @Test
     void testRetrieveInstructor_notFound() {
         // Arrange
-        when(instructorRepository.findById(2L)).thenReturn(Optional.empty());
+        when(instructorRepository.findWithCoursesByNumInstructor(2L)).thenReturn(Optional.empty());
 
         // Act
         Instructor foundInstructor = instructorServices.retrieveInstructor(2L);
 
         // Assert
         assertNull(foundInstructor);
-        verify(instructorRepository, times(1)).findById(2L);
+        verify(instructorRepository, times(1)).findWithCoursesByNumInstructor(2L);
     }
 
     // Tests for addInstructorAndAssignToCourse()
@@ -169,6 +224,7 @@ class InstructorServicesImplTest {
         assertEquals(instructor.getNumInstructor(), savedInstructor.getNumInstructor());
         assertTrue(savedInstructor.getCourses().contains(course));
         verify(instructorRepository, times(1)).save(instructor);
+        verify(instructorWeeksCache, times(1)).evictInstructor(instructor.getNumInstructor());
         verify(courseRepository, times(1)).findById(1L);
     }
 
@@ -187,4 +243,111 @@ class InstructorServicesImplTest {
         verify(instructorRepository, times(1)).save(instructor);
         verify(courseRepository, times(1)).findById(2L);
     }
+
+    @Test
+    void testAddInstructorAndAssignToCourse_existingInstructorKeepsItsCourses() {
+        // Arrange
+        when(instructorRepository.existsById(1L)).thenReturn(true);
+        when(instructorRepository.linkCourses(1L, Collections.singleton(1L))).thenReturn(1);
+        when(instructorRepository.findWithCoursesByNumInstructor(1L)).thenReturn(Optional.of(instructor));
+
+        // Act
+        Instructor savedInstructor = instructorServices.addInstructorAndAssignToCourse(instructor, 1L);
+
+        // Assert
+        assertSame(instructor, savedInstructor);
+        verify(instructorRepository, times(1)).linkCourses(1L, Collections.singleton(1L));
+        verify(instructorRepository, never()).save(any(Instructor.class));
+        verify(instructorWeeksCache, times(1)).evictInstructor(1L);
+    }
+
+    // Tests for assignCourses() and unassignCourses()
+
+    @Test
+    void testAssignCourses_linksOnlyTheNewCourses() {
+        // Arrange
+        Set<Long> numCourses = new HashSet<>(Arrays.asList(2L, 3L));
+        when(instructorRepository.linkCourses(1L, numCourses)).thenReturn(2);
+
+        // Act
+        int linked = instructorServices.assignCourses(1L, numCourses);
+
+        // Assert
+        assertEquals(2, linked);
+        verify(instructorRepository, never()).save(any(Instructor.class));
+        verify(secondLevelCache, times(1)).evictCollectionData(Instructor.class.getName() + ".courses", 1L);
+        verify(instructorWeeksCache, times(1)).evictInstructor(1L);
+    }
+
+    @Test
+    void testAssignCourses_nothingToLink() {
+        // Act
+        int linked = instructorServices.assignCourses(1L, Collections.emptySet());
+
+        // Assert
+        assertEquals(0, linked);
+        verify(instructorRepository, never()).linkCourses(any(), any());
+        verify(instructorWeeksCache, never()).evictInstructor(any());
+    }
+
+    @Test
+    void testUnassignCourses_unlinksTheGivenCourses() {
+        // Arrange
+        when(instructorRepository.unlinkCourses(1L, Collections.singleton(2L))).thenReturn(1);
+
+        // Act
+        int unlinked = instructorServices.unassignCourses(1L, Collections.singleton(2L));
+
+        // Assert
+        assertEquals(1, unlinked);
+        verify(instructorWeeksCache, times(1)).evictInstructor(1L);
+    }
+
+    @Test
+    void testAssignCourses_bulkSumsEveryInstructor() {
+        // Arrange
+        when(instructorRepository.linkCourses(eq(1L), any())).thenReturn(2);
+        when(instructorRepository.linkCourses(eq(2L), any())).thenReturn(0);
+
+        // Act
+        int linked = instructorServices.assignCourses(Arrays.asList(
+                new CourseAssignment(1L, new HashSet<>(Arrays.asList(3L, 4L))),
+                new CourseAssignment(2L, Collections.singleton(5L))));
+
+        // Assert
+        assertEquals(2, linked);
+        verify(instructorWeeksCache, times(1)).evictInstructor(1L);
+        verify(instructorWeeksCache, never()).evictInstructor(2L);
+    }
+
+    // Tests for retrieveInstructorsAfter()
+
+    @Test
+    void testRetrieveInstructorsAfter_usesKeysetCursor() {
+        // Arrange
+        when(instructorRepository.findByNumInstructorGreaterThanOrderByNumInstructorAsc(eq(1L), any(Pageable.class))).thenReturn(Arrays.asList(instructor));
+
+        // Act
+        List<Instructor> page = instructorServices.retrieveInstructorsAfter(1L, 10_000);
+
+        // Assert
+        assertEquals(1, page.size());
+        verify(instructorRepository, times(1)).findByNumInstructorGreaterThanOrderByNumInstructorAsc(1L, PageRequest.of(0, 500));
+    }
+
+    // Tests for streamAllInstructors()
+
+    @Test
+    void testStreamAllInstructors_passesEveryRow() {
+        // Arrange
+        when(instructorRepository.streamAllByOrderByNumInstructorAsc()).thenReturn(Stream.of(instructor, instructor));
+        List<Instructor> received = new ArrayList<>();
+
+        // Act
+        instructorServices.streamAllInstructors(received::add);
+
+        // Assert
+        assertEquals(2, received.size());
+        verify(instructorRepository, times(1)).streamAllByOrderByNumInstructorAsc();
+    }
 }
@@ -0,0 +1,101 @@
+package tn.esprit.spring.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.repositories.IInstructorRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InstructorWeeksCacheTest {
+
+    private final IInstructorRepository instructorRepository = mock(IInstructorRepository.class);
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(InstructorWeeksCache.CACHE);
+    private final InstructorWeeksCache instructorWeeksCache = new InstructorWeeksCache(cacheManager, instructorRepository, 50);
+
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = cacheManager.getCache(InstructorWeeksCache.CACHE);
+        cache.put(new SimpleKey(1L, Support.SKI), Arrays.asList(1, 2));
+        cache.put(new SimpleKey(1L, Support.SNOWBOARD), Arrays.asList(3));
+        cache.put(new SimpleKey(2L, Support.SKI), Arrays.asList(4));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        instructorWeeksCache.close();
+    }
+
+    @Test
+    void testEvictCourse_evictsEverySupportOfItsInstructor() {
+        // Arrange
+        when(instructorRepository.findNumInstructorsByCourse(7L)).thenReturn(Collections.singletonList(1L));
+
+        // Act
+        instructorWeeksCache.evictCourse(7L);
+
+        // Assert
+        assertNull(cache.get(new SimpleKey(1L, Support.SKI)));
+        assertNull(cache.get(new SimpleKey(1L, Support.SNOWBOARD)));
+        assertNotNull(cache.get(new SimpleKey(2L, Support.SKI)));
+    }
+
+    @Test
+    void testEvictInstructor_waitsForCommit() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        instructorWeeksCache.evictInstructor(2L);
+
+        // Assert
+        assertNotNull(cache.get(new SimpleKey(2L, Support.SKI)));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertNull(cache.get(new SimpleKey(2L, Support.SKI)));
+    }
+
+    @Test
+    void testEvictInstructor_evictsAgainWhatARacingReadPutBack() throws InterruptedException {
+        // Arrange
+        instructorWeeksCache.evictInstructor(2L);
+        cache.put(new SimpleKey(2L, Support.SKI), Arrays.asList(4));
+
+        // Act
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.get(new SimpleKey(2L, Support.SKI)) != null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // Assert
+        assertNull(cache.get(new SimpleKey(2L, Support.SKI)));
+        assertNotNull(cache.get(new SimpleKey(1L, Support.SKI)));
+    }
+
+    @Test
+    void testEvictCourse_withoutInstructor() {
+        // Arrange
+        when(instructorRepository.findNumInstructorsByCourse(8L)).thenReturn(Collections.emptyList());
+
+        // Act
+        instructorWeeksCache.evictCourse(8L);
+
+        // Assert
+        assertNotNull(cache.get(new SimpleKey(1L, Support.SKI)));
+    }
+}
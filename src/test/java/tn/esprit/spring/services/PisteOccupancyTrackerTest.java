@@ -0,0 +1,180 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tn.esprit.spring.dto.PisteOccupancy;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Piste;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PisteOccupancyTrackerTest {
+
+    private MutableClock clock;
+
+    private MeterRegistry meterRegistry;
+
+    private PisteOccupancyTracker tracker;
+
+    private final Piste blue = new Piste(1L, "Blue", Color.BLUE, 1200, 20);
+    private final Piste black = new Piste(2L, "Black", Color.BLACK, 900, 40);
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T10:00:00Z"));
+        meterRegistry = new SimpleMeterRegistry();
+        tracker = new PisteOccupancyTracker(meterRegistry, clock);
+    }
+
+    @Test
+    void testSnapshot_perPisteAndPerColor() {
+        // Arrange
+        tracker.record(blue);
+        tracker.record(blue);
+        clock.advanceSeconds(30);
+        tracker.record(black);
+
+        // Act
+        PisteOccupancy occupancy = tracker.snapshot();
+
+        // Assert
+        assertEquals(2, occupancy.getPistes().size());
+        assertEquals(1L, occupancy.getPistes().get(0).getNumPiste());
+        assertEquals(2, occupancy.getPistes().get(0).getSkiersPerMinute());
+        assertEquals(2L, occupancy.getSkiersPerMinuteByColor().get(Color.BLUE));
+        assertEquals(1L, occupancy.getSkiersPerMinuteByColor().get(Color.BLACK));
+        assertEquals(0L, occupancy.getSkiersPerMinuteByColor().get(Color.GREEN));
+        assertEquals(2d, meterRegistry.get("ski.pistes.skiers.per.minute").tag("color", "BLUE").gauge().value());
+    }
+
+    @Test
+    void testSnapshot_windowSlidesButTotalRemains() {
+        // Arrange
+        tracker.record(blue);
+        clock.advanceSeconds(59);
+        tracker.record(blue);
+
+        // Act
+        clock.advanceSeconds(1);
+        PisteOccupancy occupancy = tracker.snapshot();
+
+        // Assert
+        assertEquals(1, occupancy.getPistes().get(0).getSkiersPerMinute());
+        assertEquals(2, occupancy.getPistes().get(0).getTotalSkiers());
+    }
+
+    @Test
+    void testRecord_reusedBucketStartsOver() {
+        // Arrange
+        tracker.record(blue);
+        tracker.record(blue);
+        clock.advanceSeconds(PisteOccupancyTracker.WINDOW_SECONDS);
+
+        // Act
+        tracker.record(blue);
+
+        // Assert
+        assertEquals(1, tracker.snapshot().getPistes().get(0).getSkiersPerMinute());
+    }
+
+    @Test
+    void testUpdate_renamesAndRecolorsButKeepsCounts() {
+        // Arrange
+        tracker.record(blue);
+        tracker.record(blue);
+
+        // Act
+        tracker.update(new Piste(1L, "Red", Color.RED, 1200, 20));
+        tracker.update(new Piste(3L, "Untracked", Color.GREEN, 500, 10));
+
+        // Assert
+        PisteOccupancy occupancy = tracker.snapshot();
+        assertEquals(1, occupancy.getPistes().size());
+        assertEquals("Red", occupancy.getPistes().get(0).getNamePiste());
+        assertEquals(Color.RED, occupancy.getPistes().get(0).getColor());
+        assertEquals(2, occupancy.getPistes().get(0).getTotalSkiers());
+        assertEquals(2L, occupancy.getSkiersPerMinuteByColor().get(Color.RED));
+        assertEquals(0L, occupancy.getSkiersPerMinuteByColor().get(Color.BLUE));
+    }
+
+    @Test
+    void testForget_dropsTheDeletedPiste() {
+        // Arrange
+        tracker.record(blue);
+        tracker.record(black);
+
+        // Act
+        tracker.forget(1L);
+
+        // Assert
+        PisteOccupancy occupancy = tracker.snapshot();
+        assertEquals(1, occupancy.getPistes().size());
+        assertEquals(2L, occupancy.getPistes().get(0).getNumPiste());
+        assertEquals(0L, occupancy.getSkiersPerMinuteByColor().get(Color.BLUE));
+    }
+
+    @Test
+    void testRecord_concurrentWritersLoseNothing() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> writers = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 8; i++) {
+            writers.add(executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    tracker.record(j % 2 == 0 ? blue : black);
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        PisteOccupancy occupancy = tracker.snapshot();
+        assertEquals(40_000L, occupancy.getSkiersPerMinuteByColor().get(Color.BLUE));
+        assertEquals(40_000L, occupancy.getSkiersPerMinuteByColor().get(Color.BLACK));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advanceSeconds(long seconds) {
+            now = now.plusSeconds(seconds);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
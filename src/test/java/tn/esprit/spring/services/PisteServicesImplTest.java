@@ -5,13 +5,18 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import tn.esprit.spring.entities.Piste;
 import tn.esprit.spring.repositories.IPisteRepository;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,6 +26,12 @@ class PisteServicesImplTest {
     @Mock
     private IPisteRepository pisteRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PisteOccupancyTracker occupancyTracker;
+
     @InjectMocks
     private PisteServicesImpl pisteServices;
 
@@ -81,6 +92,7 @@ class PisteServicesImplTest {
         assertNotNull(savedPiste);
         assertEquals(piste.getNumPiste(), savedPiste.getNumPiste());
         verify(pisteRepository, times(1)).save(piste);
+        verify(occupancyTracker, times(1)).update(piste);
     }
 
     @Test
@@ -102,6 +114,7 @@ class PisteServicesImplTest {
 
         // Assert
         verify(pisteRepository, times(1)).deleteById(1L);
+        verify(occupancyTracker, times(1)).forget(1L);
     }
 
     @Test
@@ -112,6 +125,7 @@ class PisteServicesImplTest {
         // Act & Assert
         assertThrows(IllegalArgumentException.class, () -> pisteServices.removePiste(2L));
         verify(pisteRepository, times(1)).deleteById(2L);
+        verify(occupancyTracker, never()).forget(2L);
     }
 
     // Tests for retrievePiste()
@@ -142,4 +156,35 @@ class PisteServicesImplTest {
         assertNull(foundPiste);
         verify(pisteRepository, times(1)).findById(2L);
     }
+
+    // Tests for retrievePistesAfter()
+
+    @Test
+    void testRetrievePistesAfter_usesKeysetCursor() {
+        // Arrange
+        when(pisteRepository.findByNumPisteGreaterThanOrderByNumPisteAsc(eq(1L), any(Pageable.class))).thenReturn(Arrays.asList(piste));
+
+        // Act
+        List<Piste> page = pisteServices.retrievePistesAfter(1L, 10_000);
+
+        // Assert
+        assertEquals(1, page.size());
+        verify(pisteRepository, times(1)).findByNumPisteGreaterThanOrderByNumPisteAsc(1L, PageRequest.of(0, 500));
+    }
+
+    // Tests for streamAllPistes()
+
+    @Test
+    void testStreamAllPistes_passesEveryRow() {
+        // Arrange
+        when(pisteRepository.streamAllByOrderByNumPisteAsc()).thenReturn(Stream.of(piste, piste));
+        List<Piste> received = new ArrayList<>();
+
+        // Act
+        pisteServices.streamAllPistes(received::add);
+
+        // Assert
+        assertEquals(2, received.size());
+        verify(pisteRepository, times(1)).streamAllByOrderByNumPisteAsc();
+    }
 }
@@ -0,0 +1,50 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tn.esprit.spring.dto.RegistrationOutcome;
+import tn.esprit.spring.dto.RegistrationResult;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RegistrationMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RegistrationMetrics registrationMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        registrationMetrics = new RegistrationMetrics(meterRegistry);
+    }
+
+    @Test
+    void testRecord_countsPerOutcomeTag() {
+        // Act
+        registrationMetrics.record(RegistrationOutcome.FULL);
+        registrationMetrics.record(RegistrationOutcome.FULL);
+        registrationMetrics.record(RegistrationOutcome.ACCEPTED);
+
+        // Assert
+        assertEquals(2, meterRegistry.get("ski.registrations").tag("outcome", "full").counter().count());
+        assertEquals(1, meterRegistry.get("ski.registrations").tag("outcome", "accepted").counter().count());
+        assertEquals(0, meterRegistry.get("ski.registrations").tag("outcome", "age_rejected").counter().count());
+    }
+
+    @Test
+    void testRecordBulk_countsEveryResultAndBatchSize() {
+        // Act
+        registrationMetrics.recordBulk(Arrays.asList(
+                new RegistrationResult(0, 10L, RegistrationOutcome.ACCEPTED),
+                new RegistrationResult(1, null, RegistrationOutcome.DUPLICATE),
+                new RegistrationResult(2, null, RegistrationOutcome.NOT_FOUND)));
+
+        // Assert
+        assertEquals(1, meterRegistry.get("ski.registrations").tag("outcome", "duplicate").counter().count());
+        assertEquals(1, meterRegistry.get("ski.registrations").tag("outcome", "not_found").counter().count());
+        assertEquals(3, meterRegistry.get("ski.registrations.bulk.size").summary().totalAmount());
+    }
+}
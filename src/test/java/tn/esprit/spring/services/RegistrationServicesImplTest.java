@@ -6,18 +6,25 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.dto.RegistrationKey;
+import tn.esprit.spring.dto.RegistrationOutcome;
+import tn.esprit.spring.dto.RegistrationRequest;
+import tn.esprit.spring.dto.RegistrationResult;
 import tn.esprit.spring.entities.TypeCourse;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.Registration;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.repositories.ICourseOccupancyRepository;
 import tn.esprit.spring.repositories.ICourseRepository;
 import tn.esprit.spring.repositories.IRegistrationRepository;
 import tn.esprit.spring.repositories.ISkierRepository;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -33,6 +40,18 @@ class RegistrationServicesImplTest {
     @Mock
     private ICourseRepository courseRepository;
 
+    @Mock
+    private CourseCapacityRegistry capacityRegistry;
+
+    @Mock
+    private ICourseOccupancyRepository occupancyRepository;
+
+    @Mock
+    private RegistrationMetrics registrationMetrics;
+
+    @Mock
+    private InstructorWeeksCache instructorWeeksCache;
+
     @InjectMocks
     private RegistrationServicesImpl registrationServices;
 
@@ -92,6 +111,7 @@ class RegistrationServicesImplTest {
     @Test
     void testAssignRegistrationToCourse_successful() {
         // Arrange
+        course.setTypeCourse(TypeCourse.INDIVIDUAL);
         when(registrationRepository.findById(1L)).thenReturn(Optional.of(registration));
         when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
         when(registrationRepository.save(any(Registration.class))).thenReturn(registration);
@@ -107,6 +127,61 @@ class RegistrationServicesImplTest {
         verify(registrationRepository, times(1)).save(registration);
     }
 
+    @Test
+    void testAssignRegistrationToCourse_movesTheSeatToTheNewCourse() {
+        // Arrange
+        Course previous = new Course();
+        previous.setNumCourse(2L);
+        previous.setTypeCourse(TypeCourse.COLLECTIVE_ADULT);
+        registration.setCourse(previous);
+        registration.setSeat(2);
+        registration.setSkier(skier);
+        course.setTypeCourse(TypeCourse.COLLECTIVE_CHILDREN);
+        course.setSupport(Support.SKI);
+        when(registrationRepository.findById(1L)).thenReturn(Optional.of(registration));
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+        when(capacityRegistry.reserve(1L, 5)).thenReturn(4);
+        when(registrationRepository.save(any(Registration.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Registration moved = registrationServices.assignRegistrationToCourse(1L, 1L);
+
+        // Assert
+        assertEquals(1L, moved.getCourse().getNumCourse());
+        assertEquals(4, moved.getSeat());
+        verify(capacityRegistry, times(1)).releaseOnRollback(1L, 5, 4);
+        verify(capacityRegistry, times(1)).releaseAfterCommit(2L, 5, 2);
+        verify(occupancyRepository, times(1)).increment(1L, 5, "COLLECTIVE_CHILDREN", "SKI", 1, CourseCapacityRegistry.COLLECTIVE_CAPACITY);
+        verify(occupancyRepository, times(1)).decrement(2L, 5, 1);
+        verify(instructorWeeksCache, times(1)).evictCourse(2L);
+        verify(instructorWeeksCache, times(1)).evictCourse(1L);
+    }
+
+    @Test
+    void testAssignRegistrationToCourse_fullCourseKeepsThePreviousSeat() {
+        // Arrange
+        Course previous = new Course();
+        previous.setNumCourse(2L);
+        previous.setTypeCourse(TypeCourse.COLLECTIVE_ADULT);
+        registration.setCourse(previous);
+        registration.setSeat(2);
+        course.setTypeCourse(TypeCourse.COLLECTIVE_ADULT);
+        when(registrationRepository.findById(1L)).thenReturn(Optional.of(registration));
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+        when(capacityRegistry.reserve(1L, 5)).thenReturn(CourseCapacityRegistry.FULL);
+
+        // Act
+        Registration moved = registrationServices.assignRegistrationToCourse(1L, 1L);
+
+        // Assert
+        assertNull(moved);
+        assertEquals(2L, registration.getCourse().getNumCourse());
+        assertEquals(2, registration.getSeat());
+        verify(registrationRepository, never()).save(any(Registration.class));
+        verify(capacityRegistry, never()).releaseAfterCommit(anyLong(), anyInt(), anyInt());
+        verify(occupancyRepository, never()).decrement(anyLong(), anyInt(), anyInt());
+    }
+
     @Test
     void testAssignRegistrationToCourse_registrationNotFound() {
         // Arrange
@@ -147,6 +222,7 @@ class RegistrationServicesImplTest {
         verify(skierRepository, times(1)).findById(1L);
         verify(courseRepository, times(1)).findById(1L);
         verify(registrationRepository, times(1)).save(registration);
+        verify(instructorWeeksCache, times(1)).evictCourse(1L);
 
 	skier.setDateOfBirth(null);
 	course.setTypeCourse(null);
@@ -167,6 +243,135 @@ class RegistrationServicesImplTest {
         verify(skierRepository, times(1)).findById(1L);
         verify(courseRepository, times(1)).findById(1L);
         verify(registrationRepository, never()).save(any(Registration.class));
+        verify(registrationMetrics, times(1)).record(RegistrationOutcome.DUPLICATE);
+        verify(instructorWeeksCache, never()).evictCourse(anyLong());
+    }
+
+    @Test
+    void testAddRegistrationAndAssignToSkierAndCourse_collectiveSeatReserved() {
+        // Arrange
+        skier.setDateOfBirth(LocalDate.now().minusYears(10));
+        course.setTypeCourse(TypeCourse.COLLECTIVE_CHILDREN);
+        course.setSupport(Support.SKI);
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+        when(registrationRepository.countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(5, 1L, 1L)).thenReturn(0);
+        when(capacityRegistry.reserve(1L, 5)).thenReturn(3);
+        when(capacityRegistry.holdUntilCommit(eq(1L), eq(5), eq(3), any())).thenAnswer(invocation ->
+                ((Supplier<?>) invocation.getArgument(3)).get());
+        when(registrationRepository.save(any(Registration.class))).thenReturn(registration);
+
+        // Act
+        Registration savedRegistration = registrationServices.addRegistrationAndAssignToSkierAndCourse(registration, 1L, 1L);
+
+        // Assert
+        assertNotNull(savedRegistration);
+        assertEquals(3, savedRegistration.getSeat());
+        verify(registrationRepository, never()).countByCourseAndNumWeek(any(Course.class), anyInt());
+        verify(registrationRepository, times(1)).save(registration);
+        verify(occupancyRepository, times(1)).increment(1L, 5, "COLLECTIVE_CHILDREN", "SKI", 1, CourseCapacityRegistry.COLLECTIVE_CAPACITY);
+    }
+
+    @Test
+    void testAddRegistrationAndAssignToSkierAndCourse_collectiveFull() {
+        // Arrange
+        skier.setDateOfBirth(LocalDate.now().minusYears(30));
+        course.setTypeCourse(TypeCourse.COLLECTIVE_ADULT);
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+        when(registrationRepository.countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(5, 1L, 1L)).thenReturn(0);
+        when(capacityRegistry.reserve(1L, 5)).thenReturn(CourseCapacityRegistry.FULL);
+
+        // Act
+        Registration savedRegistration = registrationServices.addRegistrationAndAssignToSkierAndCourse(registration, 1L, 1L);
+
+        // Assert
+        assertNull(savedRegistration);
+        verify(registrationRepository, never()).save(any(Registration.class));
+        verify(registrationMetrics, times(1)).record(RegistrationOutcome.FULL);
+        verify(occupancyRepository, never()).increment(anyLong(), anyInt(), anyString(), any(), anyInt(), anyInt());
+    }
+
+    // Tests for addRegistrationsAndAssignToSkiersAndCourses()
+
+    @Test
+    void testAddRegistrationsInBulk_perItemOutcomes() {
+        // Arrange
+        skier.setDateOfBirth(LocalDate.now().minusYears(30));
+        course.setTypeCourse(TypeCourse.COLLECTIVE_ADULT);
+        Course childrenCourse = new Course();
+        childrenCourse.setNumCourse(2L);
+        childrenCourse.setTypeCourse(TypeCourse.COLLECTIVE_CHILDREN);
+        when(skierRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(skier));
+        when(courseRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(course, childrenCourse));
+        when(registrationRepository.findKeysBySkiersAndCourses(anyCollection(), anyCollection())).thenReturn(Collections.emptyList());
+        when(capacityRegistry.reserve(1L, 5)).thenReturn(1);
+        when(capacityRegistry.reserve(1L, 6)).thenReturn(CourseCapacityRegistry.FULL);
+        List<RegistrationRequest> requests = Arrays.asList(
+                new RegistrationRequest(1L, 1L, 5),
+                new RegistrationRequest(1L, 1L, 5),
+                new RegistrationRequest(1L, 2L, 5),
+                new RegistrationRequest(1L, 1L, 6),
+                new RegistrationRequest(9L, 1L, 5));
+
+        // Act
+        List<RegistrationResult> results = registrationServices.addRegistrationsAndAssignToSkiersAndCourses(requests);
+
+        // Assert
+        assertEquals(RegistrationOutcome.ACCEPTED, results.get(0).getOutcome());
+        assertEquals(RegistrationOutcome.DUPLICATE, results.get(1).getOutcome());
+        assertEquals(RegistrationOutcome.AGE_REJECTED, results.get(2).getOutcome());
+        verify(registrationMetrics, times(1)).recordBulk(results);
+        assertEquals(RegistrationOutcome.FULL, results.get(3).getOutcome());
+        assertEquals(RegistrationOutcome.NOT_FOUND, results.get(4).getOutcome());
+        verify(skierRepository, never()).findById(anyLong());
+        verify(registrationRepository, times(1)).saveAll(argThat(saved -> saved.iterator().next().getSeat() == 1));
+        verify(instructorWeeksCache, times(1)).evictCourse(1L);
+        verify(occupancyRepository, times(1)).increment(1L, 5, "COLLECTIVE_ADULT", null, 1, CourseCapacityRegistry.COLLECTIVE_CAPACITY);
+    }
+
+    @Test
+    void testAddRegistrationsInBulk_alreadyRegistered() {
+        // Arrange
+        course.setTypeCourse(TypeCourse.INDIVIDUAL);
+        RegistrationKey existing = mock(RegistrationKey.class);
+        when(existing.getNumSkier()).thenReturn(1L);
+        when(existing.getNumCourse()).thenReturn(1L);
+        when(existing.getNumWeek()).thenReturn(5);
+        when(skierRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(skier));
+        when(courseRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(course));
+        when(registrationRepository.findKeysBySkiersAndCourses(anyCollection(), anyCollection())).thenReturn(Arrays.asList(existing));
+
+        // Act
+        List<RegistrationResult> results = registrationServices.addRegistrationsAndAssignToSkiersAndCourses(
+                Arrays.asList(new RegistrationRequest(1L, 1L, 5), new RegistrationRequest(1L, 1L, 6)));
+
+        // Assert
+        assertEquals(RegistrationOutcome.DUPLICATE, results.get(0).getOutcome());
+        assertEquals(RegistrationOutcome.ACCEPTED, results.get(1).getOutcome());
+        verify(capacityRegistry, never()).reserve(anyLong(), anyInt());
+        verify(occupancyRepository, never()).increment(anyLong(), anyInt(), anyString(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testAddRegistrationsInBulk_repeatOfARejectedItemIsRejectedAgain() {
+        // Arrange
+        skier.setDateOfBirth(LocalDate.now().minusYears(30));
+        course.setTypeCourse(TypeCourse.COLLECTIVE_ADULT);
+        when(skierRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(skier));
+        when(courseRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(course));
+        when(registrationRepository.findKeysBySkiersAndCourses(anyCollection(), anyCollection())).thenReturn(Collections.emptyList());
+        when(capacityRegistry.reserve(1L, 5)).thenReturn(CourseCapacityRegistry.FULL, 1);
+
+        // Act
+        List<RegistrationResult> results = registrationServices.addRegistrationsAndAssignToSkiersAndCourses(
+                Arrays.asList(new RegistrationRequest(1L, 1L, 5), new RegistrationRequest(1L, 1L, 5),
+                        new RegistrationRequest(1L, 1L, 5)));
+
+        // Assert
+        assertEquals(RegistrationOutcome.FULL, results.get(0).getOutcome());
+        assertEquals(RegistrationOutcome.ACCEPTED, results.get(1).getOutcome());
+        assertEquals(RegistrationOutcome.DUPLICATE, results.get(2).getOutcome());
     }
 
     // Tests for numWeeksCourseOfInstructorBySupport()
@@ -0,0 +1,140 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.SkierImportFormat;
+import tn.esprit.spring.dto.SkierImportReport;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@AutoConfigureJson
+@Import({SkierImportServicesImpl.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SkierImportServicesImplTest {
+
+    private static final String CSV_HEADER = "firstName,lastName,dateOfBirth,city,typeSub,startDate,price\n";
+
+    @Autowired
+    private ISkierImportServices skierImportServices;
+
+    @Autowired
+    private ISkierRepository skierRepository;
+
+    @Autowired
+    private ISubscriptionRepository subscriptionRepository;
+
+    @MockBean
+    private SubscriptionRevenueAggregate revenueAggregate;
+
+    @MockBean
+    private SubscriptionExpiryIndex expiryIndex;
+
+    @BeforeEach
+    void setUp() {
+        skierRepository.deleteAll();
+        subscriptionRepository.deleteAll();
+    }
+
+    @Test
+    void testImportCsv_computesEndDatesAndReportsBadLines() throws IOException {
+        // Arrange
+        String csv = CSV_HEADER
+                + "John,Doe,1990-01-01,Tunis,ANNUAL,2024-01-15,500\n"
+                + "Jane,Doe,1992-02-02,Sousse,WEEKLY,2024-01-15,50\n"
+                + "\n"
+                + "Jim,Doe,1994-03-03,Sfax,SEMESTRIEL,2024-01-15,300\n"
+                + ",Doe,1994-03-03,Sfax,MONTHLY,2024-01-15,60\n";
+
+        // Act
+        SkierImportReport report = skierImportServices.importSkiers(stream(csv), SkierImportFormat.CSV);
+
+        // Assert
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getRejected());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertEquals(6, report.getErrors().get(1).getLine());
+        List<Subscription> subscriptions = new ArrayList<>();
+        subscriptionRepository.findAll().forEach(subscriptions::add);
+        subscriptions.sort(Comparator.comparing(Subscription::getPrice));
+        assertEquals(LocalDate.of(2024, 7, 15), subscriptions.get(0).getEndDate());
+        assertEquals(LocalDate.of(2025, 1, 15), subscriptions.get(1).getEndDate());
+        assertEquals(2, skierRepository.count());
+        verify(revenueAggregate).record(TypeSubscription.ANNUAL, 500f);
+        verify(revenueAggregate).record(TypeSubscription.SEMESTRIEL, 300f);
+        verify(expiryIndex).invalidate(LocalDate.of(2025, 1, 15));
+        verify(expiryIndex).invalidate(LocalDate.of(2024, 7, 15));
+    }
+
+    @Test
+    void testImportNdjson_acrossSeveralChunks() throws IOException {
+        // Arrange
+        int rows = SkierImportServicesImpl.CHUNK_SIZE * 2 + 7;
+        String ndjson = IntStream.range(0, rows)
+                .mapToObj(i -> "{\"firstName\":\"first" + i + "\",\"lastName\":\"last\",\"city\":\"Tunis\",\"typeSub\":\"MONTHLY\","
+                        + "\"startDate\":\"2024-01-31\",\"price\":" + (10 + i) + ",\"unknown\":true}")
+                .collect(Collectors.joining("\n"));
+
+        // Act
+        SkierImportReport report = skierImportServices.importSkiers(stream(ndjson), SkierImportFormat.NDJSON);
+
+        // Assert
+        assertEquals(rows, report.getImported());
+        assertEquals(0, report.getRejected());
+        List<Skier> skiers = skierRepository.findAll();
+        assertEquals(rows, skiers.size());
+        assertEquals(rows, skiers.stream().map(Skier::getNumSkier).distinct().count());
+        subscriptionRepository.findAll().forEach(s -> assertEquals(LocalDate.of(2024, 2, 29), s.getEndDate()));
+        verify(revenueAggregate, times(rows)).record(eq(TypeSubscription.MONTHLY), any());
+    }
+
+    @Test
+    void testImport_failedChunkKeepsItsValidLines() throws IOException {
+        // Arrange
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        for (int i = 0; i < 10; i++) {
+            String city = i == 4 ? String.join("", Collections.nCopies(300, "x")) : "Tunis";
+            csv.append("first").append(i).append(",last,1990-01-01,").append(city).append(",ANNUAL,2024-01-01,100\n");
+        }
+
+        // Act
+        SkierImportReport report = skierImportServices.importSkiers(stream(csv.toString()), SkierImportFormat.CSV);
+
+        // Assert
+        assertEquals(9, report.getImported());
+        assertEquals(1, report.getRejected());
+        assertEquals(6, report.getErrors().get(0).getLine());
+        assertEquals(9, skierRepository.count());
+        verify(revenueAggregate, times(9)).record(TypeSubscription.ANNUAL, 100f);
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -5,11 +5,15 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import tn.esprit.spring.entities.*;
 import tn.esprit.spring.repositories.*;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +35,24 @@ public class SkierServicesImplTest {
     @Mock
     private IPisteRepository pisteRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private SubscriptionRevenueAggregate revenueAggregate;
+
+    @Mock
+    private InstructorWeeksCache instructorWeeksCache;
+
+    @Mock
+    private ExcursionWriter excursionWriter;
+
+    @Mock
+    private PisteOccupancyTracker occupancyTracker;
+
+    @Mock
+    private SubscriptionExpiryIndex expiryIndex;
+
     @InjectMocks
     private SkierServicesImpl skierServices;
 
@@ -88,6 +110,8 @@ public class SkierServicesImplTest {
         assertEquals(LocalDate.now().plusYears(1), savedSkier.getSubscription().getEndDate());
 
         verify(skierRepository, times(1)).save(skier);
+        verify(revenueAggregate, never()).record(any(TypeSubscription.class), any());
+        verify(expiryIndex, times(1)).invalidate(LocalDate.now().plusYears(1));
     }
 
     @Test
@@ -104,6 +128,19 @@ public class SkierServicesImplTest {
         verify(skierRepository, times(1)).save(skier);
     }
 
+    @Test
+    public void testAddSkier_NewSubscriptionUpdatesRevenue() {
+        subscription.setNumSub(null);
+        subscription.setTypeSub(TypeSubscription.MONTHLY);
+        subscription.setPrice(80f);
+        skier.setSubscription(subscription);
+        when(skierRepository.save(skier)).thenReturn(skier);
+
+        skierServices.addSkier(skier);
+
+        verify(revenueAggregate, times(1)).record(TypeSubscription.MONTHLY, 80f);
+    }
+
     // Test for assignSkierToSubscription method
     @Test
     public void testAssignSkierToSubscription() {
@@ -137,9 +174,34 @@ public class SkierServicesImplTest {
     @Test
     public void testRemoveSkier() {
         skierServices.removeSkier(1L);
+        verify(skierRepository, times(1)).deleteExcursions(1L);
         verify(skierRepository, times(1)).deleteById(1L);
     }
 
+    @Test
+    public void testRemoveSkier_invalidatesItsSubscriptionEndDate() {
+        subscription.setEndDate(LocalDate.now().plusDays(3));
+        skier.setSubscription(subscription);
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+
+        skierServices.removeSkier(1L);
+
+        verify(skierRepository, times(1)).deleteById(1L);
+        verify(expiryIndex, times(1)).invalidate(LocalDate.now().plusDays(3));
+    }
+
+    @Test
+    public void testRemoveSkier_takesItsSubscriptionOutOfTheRevenue() {
+        subscription.setTypeSub(TypeSubscription.ANNUAL);
+        subscription.setPrice(900f);
+        skier.setSubscription(subscription);
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+
+        skierServices.removeSkier(1L);
+
+        verify(revenueAggregate, times(1)).remove(TypeSubscription.ANNUAL, 900f);
+    }
+
     @Test
     public void testRemoveSkier_SkierNotFound() {
         doThrow(new NoSuchElementException()).when(skierRepository).deleteById(1L);
@@ -154,24 +216,24 @@ public class SkierServicesImplTest {
     // Test for retrieveSkier method
     @Test
     public void testRetrieveSkier() {
-        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+        when(skierRepository.findWithRegistrationsByNumSkier(1L)).thenReturn(Optional.of(skier));
 
         Skier retrievedSkier = skierServices.retrieveSkier(1L);
 
         assertNotNull(retrievedSkier);
         assertEquals(skier, retrievedSkier);
 
-        verify(skierRepository, times(1)).findById(1L);
+        verify(skierRepository, times(1)).findWithRegistrationsByNumSkier(1L);
     }
 
     @Test
     public void testRetrieveSkier_SkierNotFound() {
-        when(skierRepository.findById(1L)).thenReturn(Optional.empty());
+        when(skierRepository.findWithRegistrationsByNumSkier(1L)).thenReturn(Optional.empty());
 
         Skier retrievedSkier = skierServices.retrieveSkier(1L);
 
         assertNull(retrievedSkier);
-        verify(skierRepository, times(1)).findById(1L);
+        verify(skierRepository, times(1)).findWithRegistrationsByNumSkier(1L);
     }
 
     // Test for retrieveSkiersBySubscriptionType method
@@ -198,4 +260,93 @@ public class SkierServicesImplTest {
 
         verify(skierRepository, times(1)).findBySubscription_TypeSub(TypeSubscription.ANNUAL);
     }
+
+    // Tests for retrieveSkiersAfter()
+
+    @Test
+    public void testRetrieveSkiersAfter_usesKeysetCursor() {
+        // Arrange
+        when(skierRepository.findByNumSkierGreaterThanOrderByNumSkierAsc(eq(1L), any(Pageable.class))).thenReturn(Arrays.asList(skier));
+
+        // Act
+        List<Skier> page = skierServices.retrieveSkiersAfter(1L, 10_000);
+
+        // Assert
+        assertEquals(1, page.size());
+        verify(skierRepository, times(1)).findByNumSkierGreaterThanOrderByNumSkierAsc(1L, PageRequest.of(0, 500));
+    }
+
+    @Test
+    public void testRetrieveSkiersAfter_fetchesRegistrationsOfThePage() {
+        // Arrange
+        List<Skier> skiers = Arrays.asList(skier);
+        when(skierRepository.findByNumSkierGreaterThanOrderByNumSkierAsc(eq(0L), any(Pageable.class))).thenReturn(skiers);
+
+        // Act
+        skierServices.retrieveSkiersAfter(0L, 10);
+
+        // Assert
+        verify(skierRepository, times(1)).fetchRegistrations(skiers);
+    }
+
+    @Test
+    public void testRetrieveSkiersAfter_emptyPageSkipsRegistrations() {
+        // Arrange
+        when(skierRepository.findByNumSkierGreaterThanOrderByNumSkierAsc(eq(0L), any(Pageable.class))).thenReturn(new ArrayList<>());
+
+        // Act
+        skierServices.retrieveSkiersAfter(0L, 10);
+
+        // Assert
+        verify(skierRepository, never()).fetchRegistrations(anyCollection());
+    }
+
+    // Tests for streamAllSkiers()
+
+    @Test
+    public void testStreamAllSkiers_passesEveryRow() {
+        // Arrange
+        when(skierRepository.streamAllByOrderByNumSkierAsc()).thenReturn(Stream.of(skier, skier));
+        List<Skier> received = new ArrayList<>();
+
+        // Act
+        skierServices.streamAllSkiers(received::add);
+
+        // Assert
+        assertEquals(2, received.size());
+        verify(skierRepository, times(1)).streamAllByOrderByNumSkierAsc();
+    }
+
+    // Tests for assignSkierToPiste()
+
+    @Test
+    public void testAssignSkierToPiste_queuesExcursionAndRecordsOccupancy() {
+        // Arrange
+        Piste piste = new Piste(2L, "Blue", Color.BLUE, 1200, 20);
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+        when(pisteRepository.findById(2L)).thenReturn(Optional.of(piste));
+
+        // Act
+        Skier result = skierServices.assignSkierToPiste(1L, 2L);
+
+        // Assert
+        assertSame(skier, result);
+        verify(excursionWriter).enqueue(1L, 2L);
+        verify(occupancyTracker).record(piste);
+        verify(skierRepository, never()).save(any(Skier.class));
+    }
+
+    @Test
+    public void testAssignSkierToPiste_unknownPiste() {
+        // Arrange
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+        when(pisteRepository.findById(2L)).thenReturn(Optional.empty());
+
+        // Act
+        Skier result = skierServices.assignSkierToPiste(1L, 2L);
+
+        // Assert
+        assertNull(result);
+        verifyNoInteractions(excursionWriter, occupancyTracker);
+    }
 }
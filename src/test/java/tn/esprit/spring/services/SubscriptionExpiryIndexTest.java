@@ -0,0 +1,164 @@
+package tn.esprit.spring.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tn.esprit.spring.dto.ExpiringSubscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SubscriptionExpiryIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+    private static final int WHEEL_DAYS = 8;
+
+    private final ISubscriptionRepository subscriptionRepository = mock(ISubscriptionRepository.class);
+    private final MutableClock clock = new MutableClock(TODAY);
+    private final SubscriptionExpiryIndex expiryIndex = new SubscriptionExpiryIndex(subscriptionRepository, clock, WHEEL_DAYS);
+
+    private final List<ExpiringSubscription> subscriptions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Arrange: the repository answers range reads from an in-memory table
+        when(subscriptionRepository.findExpiringBetween(any(LocalDate.class), any(LocalDate.class)))
+                .thenAnswer(invocation -> {
+                    LocalDate from = invocation.getArgument(0);
+                    LocalDate to = invocation.getArgument(1);
+                    return subscriptions.stream()
+                            .filter(s -> !s.getEndDate().isBefore(from) && !s.getEndDate().isAfter(to))
+                            .collect(Collectors.toList());
+                });
+        for (int day = -3; day < 12; day++) {
+            subscriptions.add(subscription(100L + day, TODAY.plusDays(day)));
+        }
+    }
+
+    @Test
+    void testExpiringWithin_loadsColdDaysInOneReadThenServesFromMemory() {
+        // Act
+        List<ExpiringSubscription> first = expiryIndex.expiringWithin(3);
+        List<ExpiringSubscription> second = expiryIndex.expiringWithin(3);
+
+        // Assert
+        assertEquals(numbers(100L, 101L, 102L), numbers(first));
+        assertEquals(numbers(first), numbers(second));
+        verify(subscriptionRepository, times(1)).findExpiringBetween(TODAY, TODAY.plusDays(2));
+        verifyNoMoreInteractions(subscriptionRepository);
+    }
+
+    @Test
+    void testExpiringWithin_onlyReadsTheDaysNotLoadedYet() {
+        // Arrange
+        expiryIndex.expiringWithin(2);
+
+        // Act
+        List<ExpiringSubscription> result = expiryIndex.expiringWithin(4);
+
+        // Assert
+        assertEquals(numbers(100L, 101L, 102L, 103L), numbers(result));
+        verify(subscriptionRepository, times(1)).findExpiringBetween(TODAY.plusDays(2), TODAY.plusDays(3));
+    }
+
+    @Test
+    void testExpiredToday_isYesterdaysLastValidDay() {
+        // Act
+        List<ExpiringSubscription> result = expiryIndex.expiredToday();
+
+        // Assert
+        assertEquals(numbers(99L), numbers(result));
+    }
+
+    @Test
+    void testInvalidate_reloadsOnlyThatDay() {
+        // Arrange
+        expiryIndex.expiringWithin(3);
+        subscriptions.add(subscription(500L, TODAY.plusDays(1)));
+
+        // Act
+        expiryIndex.invalidate(TODAY.plusDays(1));
+        List<ExpiringSubscription> result = expiryIndex.expiringWithin(3);
+
+        // Assert
+        assertEquals(numbers(100L, 101L, 500L, 102L), numbers(result));
+        verify(subscriptionRepository, times(1)).findExpiringBetween(TODAY.plusDays(1), TODAY.plusDays(1));
+    }
+
+    @Test
+    void testWheelTurns_reusesTheSlotOfAPastDay() {
+        // Arrange
+        expiryIndex.expiringWithin(WHEEL_DAYS - 1);
+        clock.today = TODAY.plusDays(2);
+
+        // Act
+        List<ExpiringSubscription> result = expiryIndex.expiringWithin(WHEEL_DAYS - 1);
+
+        // Assert
+        assertEquals(numbers(102L, 103L, 104L, 105L, 106L, 107L, 108L), numbers(result));
+        verify(subscriptionRepository, times(1)).findExpiringBetween(TODAY.plusDays(7), TODAY.plusDays(8));
+    }
+
+    @Test
+    void testExpiringBetween_daysOutsideTheWheelAreReadDirectly() {
+        // Act
+        List<ExpiringSubscription> result = expiryIndex.expiringBetween(TODAY.minusDays(3), TODAY.plusDays(11));
+
+        // Assert
+        assertEquals(15, result.size());
+        verify(subscriptionRepository, times(1)).findExpiringBetween(TODAY.minusDays(3), TODAY.minusDays(2));
+        verify(subscriptionRepository, times(1)).findExpiringBetween(TODAY.minusDays(1), TODAY.plusDays(6));
+        verify(subscriptionRepository, times(1)).findExpiringBetween(TODAY.plusDays(7), TODAY.plusDays(11));
+    }
+
+    private static ExpiringSubscription subscription(Long numSub, LocalDate endDate) {
+        return new ExpiringSubscription(numSub, endDate, TypeSubscription.MONTHLY, "first" + numSub, "last");
+    }
+
+    private static List<Long> numbers(Long... numSubs) {
+        List<Long> numbers = new ArrayList<>();
+        for (Long numSub : numSubs) {
+            numbers.add(numSub);
+        }
+        return numbers;
+    }
+
+    private static List<Long> numbers(List<ExpiringSubscription> subscriptions) {
+        return subscriptions.stream().map(ExpiringSubscription::getNumSub).collect(Collectors.toList());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        LocalDate today;
+
+        MutableClock(LocalDate today) {
+            this.today = today;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return today.atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+    }
+}
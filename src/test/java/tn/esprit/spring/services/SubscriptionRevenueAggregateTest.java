@@ -0,0 +1,96 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.dto.SubscriptionRevenue;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SubscriptionRevenueAggregateTest {
+
+    @Mock
+    private ISubscriptionRepository subscriptionRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private SubscriptionRevenueAggregate revenueAggregate;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        revenueAggregate = new SubscriptionRevenueAggregate(subscriptionRepository, meterRegistry);
+    }
+
+    @Test
+    void testMonthlyRecurringRevenue_empty() {
+        assertEquals(0d, revenueAggregate.monthlyRecurringRevenue());
+    }
+
+    @Test
+    void testRecord_updatesAveragesAndGauge() {
+        revenueAggregate.record(TypeSubscription.MONTHLY, 100f);
+        revenueAggregate.record(TypeSubscription.MONTHLY, 200f);
+        revenueAggregate.record(TypeSubscription.SEMESTRIEL, 600f);
+        revenueAggregate.record(TypeSubscription.ANNUAL, 1200f);
+
+        assertEquals(150d, revenueAggregate.averagePrice(TypeSubscription.MONTHLY));
+        assertEquals(150d + 100d + 100d, revenueAggregate.monthlyRecurringRevenue());
+        assertEquals(350d, meterRegistry.get("ski.subscriptions.mrr").gauge().value());
+        verifyNoInteractions(subscriptionRepository);
+    }
+
+    @Test
+    void testReplace_movesSubscriptionBetweenTypes() {
+        revenueAggregate.record(TypeSubscription.MONTHLY, 100f);
+
+        revenueAggregate.replace(TypeSubscription.MONTHLY, 100f, TypeSubscription.ANNUAL, 1200f);
+
+        assertEquals(0d, revenueAggregate.averagePrice(TypeSubscription.MONTHLY));
+        assertEquals(1200d, revenueAggregate.averagePrice(TypeSubscription.ANNUAL));
+    }
+
+    @Test
+    void testRemove_dropsSubscriptionFromItsType() {
+        revenueAggregate.record(TypeSubscription.MONTHLY, 100f);
+        revenueAggregate.record(TypeSubscription.MONTHLY, 300f);
+
+        revenueAggregate.remove(TypeSubscription.MONTHLY, 300f);
+
+        assertEquals(100d, revenueAggregate.averagePrice(TypeSubscription.MONTHLY));
+    }
+
+    @Test
+    void testReconcile_replacesRunningTotals() {
+        revenueAggregate.record(TypeSubscription.MONTHLY, 999f);
+        List<SubscriptionRevenue> revenues = Arrays.asList(
+                revenue(TypeSubscription.MONTHLY, 300d, 3L),
+                revenue(TypeSubscription.ANNUAL, 2400d, 2L));
+        when(subscriptionRepository.revenueByTypeSub()).thenReturn(revenues);
+
+        revenueAggregate.reconcile();
+
+        assertEquals(100d, revenueAggregate.averagePrice(TypeSubscription.MONTHLY));
+        assertEquals(0d, revenueAggregate.averagePrice(TypeSubscription.SEMESTRIEL));
+        assertEquals(1200d, revenueAggregate.averagePrice(TypeSubscription.ANNUAL));
+        verify(subscriptionRepository, times(1)).revenueByTypeSub();
+    }
+
+    private static SubscriptionRevenue revenue(TypeSubscription type, Double total, Long subscriptions) {
+        SubscriptionRevenue revenue = mock(SubscriptionRevenue.class);
+        when(revenue.getTypeSub()).thenReturn(type);
+        when(revenue.getTotal()).thenReturn(total);
+        when(revenue.getSubscriptions()).thenReturn(subscriptions);
+        return revenue;
+    }
+}
@@ -1,14 +1,22 @@
 package tn.esprit.spring.services;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import tn.esprit.spring.entities.Skier;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import tn.esprit.spring.dto.ExpiredSubscription;
+import tn.esprit.spring.dto.ExpiringSubscription;
+import tn.esprit.spring.dto.SubscriptionPatch;
+import tn.esprit.spring.entities.JobCheckpoint;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
-import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.repositories.IJobCheckpointRepository;
 import tn.esprit.spring.repositories.ISubscriptionRepository;
 
 import java.time.LocalDate;
@@ -16,9 +24,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class SubscriptionServicesImplTest {
@@ -27,7 +38,22 @@ class SubscriptionServicesImplTest {
     private ISubscriptionRepository subscriptionRepository;
 
     @Mock
-    private ISkierRepository skierRepository;
+    private IJobCheckpointRepository jobCheckpointRepository;
+
+    @Mock
+    private SubscriptionRevenueAggregate revenueAggregate;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private SubscriptionExpiryIndex expiryIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ConflictRetry conflictRetry;
 
     @InjectMocks
     private SubscriptionServicesImpl subscriptionServices;
@@ -35,6 +61,7 @@ class SubscriptionServicesImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(conflictRetry.run(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
     }
 
     @Test
@@ -50,6 +77,7 @@ class SubscriptionServicesImplTest {
         assertNotNull(savedSubscription);
         assertEquals(LocalDate.now().plusYears(1), savedSubscription.getEndDate());
         verify(subscriptionRepository, times(1)).save(subscription);
+        verify(revenueAggregate, times(1)).record(TypeSubscription.ANNUAL, null);
     }
 
     @Test
@@ -66,6 +94,61 @@ class SubscriptionServicesImplTest {
         verify(subscriptionRepository, times(1)).save(subscription);
     }
 
+    @Test
+    void testUpdateSubscription_movesRevenueToNewType() {
+        Subscription previous = new Subscription();
+        previous.setNumSub(1L);
+        previous.setTypeSub(TypeSubscription.MONTHLY);
+        previous.setPrice(100f);
+        Subscription subscription = new Subscription();
+        subscription.setNumSub(1L);
+        subscription.setTypeSub(TypeSubscription.ANNUAL);
+        subscription.setPrice(900f);
+
+        previous.setEndDate(LocalDate.of(2024, 2, 1));
+        subscription.setEndDate(LocalDate.of(2025, 1, 1));
+
+        when(subscriptionRepository.findById(1L)).thenReturn(Optional.of(previous));
+        when(subscriptionRepository.save(subscription)).thenReturn(subscription);
+
+        subscriptionServices.updateSubscription(subscription);
+
+        verify(expiryIndex, times(1)).invalidate(LocalDate.of(2024, 2, 1));
+        verify(expiryIndex, times(1)).invalidate(LocalDate.of(2025, 1, 1));
+
+        verify(revenueAggregate, times(1)).replace(TypeSubscription.MONTHLY, 100f, TypeSubscription.ANNUAL, 900f);
+    }
+
+    @Test
+    void testPatchSubscription_newTypeMovesTheEndDateAndTheRevenue() {
+        Subscription subscription = new Subscription(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1), 100f,
+                TypeSubscription.MONTHLY, 3L);
+        when(subscriptionRepository.findById(1L)).thenReturn(Optional.of(subscription));
+
+        Subscription patched = subscriptionServices.patchSubscription(1L,
+                new SubscriptionPatch(null, null, 900f, TypeSubscription.ANNUAL, 3L));
+
+        assertEquals(LocalDate.of(2025, 1, 1), patched.getEndDate());
+        assertEquals(900f, patched.getPrice());
+        verify(subscriptionRepository, never()).save(any());
+        verify(revenueAggregate, times(1)).replace(TypeSubscription.MONTHLY, 100f, TypeSubscription.ANNUAL, 900f);
+        verify(expiryIndex, times(1)).invalidate(LocalDate.of(2024, 2, 1));
+        verify(expiryIndex, times(1)).invalidate(LocalDate.of(2025, 1, 1));
+    }
+
+    @Test
+    void testPatchSubscription_staleVersionChangesNothing() {
+        Subscription subscription = new Subscription(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1), 100f,
+                TypeSubscription.MONTHLY, 4L);
+        when(subscriptionRepository.findById(1L)).thenReturn(Optional.of(subscription));
+
+        assertThrows(VersionConflictException.class, () -> subscriptionServices.patchSubscription(1L,
+                new SubscriptionPatch(null, null, 900f, null, 3L)));
+
+        assertEquals(100f, subscription.getPrice());
+        verifyNoInteractions(revenueAggregate, expiryIndex);
+    }
+
     @Test
     void testRetrieveSubscriptionById() {
         Subscription subscription = new Subscription();
@@ -117,33 +200,70 @@ class SubscriptionServicesImplTest {
 
     @Test
     void testRetrieveSubscriptions() {
-        Subscription subscription = new Subscription();
-        subscription.setNumSub(1L);
-        subscription.setEndDate(LocalDate.of(2024, 12, 31));
+        LocalDate lastRun = LocalDate.now().minusDays(10);
+        ExpiredSubscription expired = mock(ExpiredSubscription.class);
+        when(expired.getNumSub()).thenReturn(1L);
+        when(expired.getEndDate()).thenReturn(LocalDate.now().minusDays(3));
+        when(expired.getFirstName()).thenReturn("John");
+        when(expired.getLastName()).thenReturn("Doe");
+        ExpiringSubscription expiredYesterday = new ExpiringSubscription(2L, LocalDate.now().minusDays(1),
+                TypeSubscription.MONTHLY, "Jane", "Doe");
+
+        when(jobCheckpointRepository.findById(anyString()))
+                .thenReturn(Optional.of(new JobCheckpoint("subscription-expiry", lastRun)));
+        when(subscriptionRepository.findExpiredSubscriptions(eq(lastRun), eq(LocalDate.now().minusDays(2)), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(expired));
+        when(expiryIndex.expiringBetween(LocalDate.now().minusDays(1), LocalDate.now().minusDays(1)))
+                .thenReturn(List.of(expiredYesterday));
 
-        Skier skier = new Skier();
-        skier.setFirstName("John");
-        skier.setLastName("Doe");
+        subscriptionServices.retrieveSubscriptions();
+
+        verify(subscriptionRepository, times(1))
+                .findExpiredSubscriptions(any(LocalDate.class), any(LocalDate.class), anyLong(), any(Pageable.class));
+        verify(eventPublisher, times(1)).publishEvent(argThat((Object event) ->
+                event instanceof SubscriptionExpiredEvent && ((SubscriptionExpiredEvent) event).getSubscription() == expired));
+        verify(eventPublisher, times(1)).publishEvent(argThat((Object event) ->
+                event instanceof SubscriptionExpiredEvent && ((SubscriptionExpiredEvent) event).getSubscription() == expiredYesterday));
+        verify(jobCheckpointRepository, times(1))
+                .save(argThat(checkpoint -> checkpoint.getHighWaterMark().equals(LocalDate.now().minusDays(1))));
+        assertEquals(2, meterRegistry.get("ski.subscriptions.expired").counter().count());
+    }
+
+    @Test
+    void testRetrieveSubscriptions_dailyRunOnlyReadsTheExpiryIndex() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        when(jobCheckpointRepository.findById(anyString()))
+                .thenReturn(Optional.of(new JobCheckpoint("subscription-expiry", yesterday.minusDays(1))));
+        when(expiryIndex.expiringBetween(yesterday, yesterday))
+                .thenReturn(List.of(new ExpiringSubscription(2L, yesterday, TypeSubscription.MONTHLY, "Jane", "Doe")));
 
-        when(subscriptionRepository.findDistinctOrderByEndDateAsc()).thenReturn(List.of(subscription));
-        when(skierRepository.findBySubscription(subscription)).thenReturn(skier);
+        subscriptionServices.retrieveSubscriptions();
+
+        verify(subscriptionRepository, never())
+                .findExpiredSubscriptions(any(LocalDate.class), any(LocalDate.class), anyLong(), any(Pageable.class));
+        verify(eventPublisher, times(1)).publishEvent(any(SubscriptionExpiredEvent.class));
+        assertEquals(1, meterRegistry.get("ski.subscriptions.expired").counter().count());
+    }
+
+    @Test
+    void testRetrieveSubscriptions_alreadyUpToDate() {
+        when(jobCheckpointRepository.findById(anyString()))
+                .thenReturn(Optional.of(new JobCheckpoint("subscription-expiry", LocalDate.now().minusDays(1))));
 
         subscriptionServices.retrieveSubscriptions();
 
-        verify(subscriptionRepository, times(1)).findDistinctOrderByEndDateAsc();
-        verify(skierRepository, times(1)).findBySubscription(subscription);
+        verify(subscriptionRepository, never())
+                .findExpiredSubscriptions(any(LocalDate.class), any(LocalDate.class), anyLong(), any(Pageable.class));
+        verify(jobCheckpointRepository, never()).save(any(JobCheckpoint.class));
     }
 
     @Test
     void testShowMonthlyRecurringRevenue() {
-        when(subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.MONTHLY)).thenReturn(1000f);
-        when(subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.SEMESTRIEL)).thenReturn(6000f);
-        when(subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.ANNUAL)).thenReturn(12000f);
+        when(revenueAggregate.monthlyRecurringRevenue()).thenReturn(3000d);
 
         subscriptionServices.showMonthlyRecurringRevenue();
 
-        verify(subscriptionRepository, times(1)).recurringRevenueByTypeSubEquals(TypeSubscription.MONTHLY);
-        verify(subscriptionRepository, times(1)).recurringRevenueByTypeSubEquals(TypeSubscription.SEMESTRIEL);
-        verify(subscriptionRepository, times(1)).recurringRevenueByTypeSubEquals(TypeSubscription.ANNUAL);
+        verify(revenueAggregate, times(1)).monthlyRecurringRevenue();
+        verify(subscriptionRepository, never()).recurringRevenueByTypeSubEquals(any(TypeSubscription.class));
     }
 }